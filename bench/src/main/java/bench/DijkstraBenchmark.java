@@ -0,0 +1,63 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-source Dijkstra, one full shortest path tree per call, on the adjacency lists of
+ * {@code Graph} and on a {@code CsrGraph} snapshot. Sources are taken round robin so every call
+ * pays for a different tree. This is the per-source cost the old {@code dijkstraParent} had,
+ * which {@code Dijkstra.shortestPathTree} replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DijkstraBenchmark {
+
+    @Param({"tribes", "email-network", "random-1000", "random-10000", "powerlaw-1000",
+            "powerlaw-10000"})
+    public String graph;
+
+    private Object g;
+    private Object csr;
+    private int n;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        g = Project.graph(graph);
+        csr = (Object) Project.NEW_CSR_GRAPH.invokeExact(g);
+        n = (int) Project.GET_SIZE.invokeExact(g);
+    }
+
+    private int source() {
+        int s = next;
+        next = next + 1 == n ? 0 : next + 1;
+        return s;
+    }
+
+    @Benchmark
+    public Object shortestPathTree() throws Throwable {
+        return (Object) Project.TREE.invokeExact(g, source());
+    }
+
+    @Benchmark
+    public Object shortestPathTreeCsr() throws Throwable {
+        return (Object) Project.CSR_TREE.invokeExact(csr, source());
+    }
+}
@@ -0,0 +1,82 @@
+package bench;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole-graph operations of {@code Graph}: loading an edge-list file, edge betweeness, neighborhood
+ * overlap and triadic closure, on every input of {@link Project}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+
+    @Param({"tribes", "email-network", "random-1000", "random-4000", "powerlaw-1000",
+            "powerlaw-4000"})
+    public String graph;
+
+    private File file;
+    private Object g;
+    private int n;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        file = Project.file(graph);
+        g = (Object) Project.CREATE_GRAPH_FILE.invokeExact((Object) file, Project.SEED);
+        n = (int) Project.GET_SIZE.invokeExact(g);
+    }
+
+    /**
+     * Load throughput: parse the file and build the adjacency lists.
+     */
+    @Benchmark
+    public Object createGraphFile() throws Throwable {
+        return (Object) Project.CREATE_GRAPH_FILE.invokeExact((Object) file, Project.SEED);
+    }
+
+    @Benchmark
+    public Object populateBetweeness() throws Throwable {
+        return (Object) Project.POPULATE_BETWEENESS.invokeExact(g, 1);
+    }
+
+    /**
+     * One overlap query per call, for the endpoints of the next node's first edge (or the node
+     * and its successor if it has none), walking the nodes round robin.
+     */
+    @Benchmark
+    public double neighOverlap() throws Throwable {
+        int a = next;
+        next = next + 1 == n ? 0 : next + 1;
+        Iterable<?> out = (Iterable<?>) (Object) Project.OUT_NEIGHBORS.invokeExact(g, a);
+        Object b = out.iterator().hasNext() ? out.iterator().next() : (Object) next;
+        return (double) Project.NEIGH_OVERLAP.invokeExact(g, g, (Object) a, b);
+    }
+
+    @Benchmark
+    public double avgNeighOverlap() throws Throwable {
+        return (double) Project.AVG_NEIGH_OVERLAP.invokeExact(g, g);
+    }
+
+    @Benchmark
+    public Object triadic() throws Throwable {
+        return (Object) Project.TRIADIC.invokeExact(g, g);
+    }
+}
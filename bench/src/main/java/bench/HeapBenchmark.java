@@ -0,0 +1,94 @@
+package bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The heaps the way Dijkstra drives them: {@code size} adds with random keys, a decreaseKey on
+ * every other value, then extractMin until the heap is empty. {@code BinaryMinHeapImpl} gets keys
+ * and values boxed once in setup, so the numbers are the heap's own cost and allocation, and
+ * {@code IndexedIntMinHeap}, which Dijkstra and Brandes use, runs the same operations through its
+ * int overloads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeapBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Integer[] values;
+    private Integer[] keys;
+    private Integer[] lowerKeys; //lowerKeys[i] < keys[i]
+    private int[] intKeys;
+    private int[] intLowerKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(Project.SEED);
+        values = new Integer[size];
+        keys = new Integer[size];
+        lowerKeys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            int key = 1 + rnd.nextInt(Integer.MAX_VALUE - 1);
+            values[i] = i;
+            keys[i] = key;
+            lowerKeys[i] = rnd.nextInt(key);
+        }
+        intKeys = new int[size];
+        intLowerKeys = new int[size];
+        for (int i = 0; i < size; i++) {
+            intKeys[i] = keys[i];
+            intLowerKeys[i] = lowerKeys[i];
+        }
+    }
+
+    @Benchmark
+    public void addDecreaseKeyExtractMin(Blackhole bh) throws Throwable {
+        Object heap = (Object) Project.NEW_HEAP.invokeExact();
+        for (int i = 0; i < size; i++) {
+            Object unused = (Object) Project.HEAP_ADD.invokeExact(heap, (Object) keys[i],
+                    (Object) values[i]);
+        }
+        for (int i = 0; i < size; i += 2) {
+            Object unused = (Object) Project.HEAP_DECREASE_KEY.invokeExact(heap,
+                    (Object) values[i], (Object) lowerKeys[i]);
+        }
+        while (!(boolean) Project.HEAP_IS_EMPTY.invokeExact(heap)) {
+            bh.consume((Object) Project.HEAP_EXTRACT_MIN.invokeExact(heap));
+        }
+    }
+
+    @Benchmark
+    public void indexedAddDecreaseKeyExtractMin(Blackhole bh) throws Throwable {
+        Object heap = (Object) Project.NEW_INT_HEAP.invokeExact(size);
+        for (int i = 0; i < size; i++) {
+            Object unused = (Object) Project.INT_HEAP_ADD.invokeExact(heap, intKeys[i], i);
+        }
+        for (int i = 0; i < size; i += 2) {
+            Object unused = (Object) Project.INT_HEAP_DECREASE_KEY.invokeExact(heap, i,
+                    intLowerKeys[i]);
+        }
+        while (!(boolean) Project.INT_HEAP_IS_EMPTY.invokeExact(heap)) {
+            bh.consume((int) Project.INT_HEAP_EXTRACT_MIN.invokeExact(heap));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Random;
+
+/**
+ * Handles on the project classes, which live in the default package and so cannot be imported
+ * from here (JMH needs the benchmarks in a named package). Every handle is a static final field,
+ * so the JIT treats it as a constant and inlines through it like a direct call. Project types are
+ * passed around as Object.
+ * <p>
+ * Also finds the inputs: {@code tribes}, {@code email-network}, and synthetic graphs named
+ * {@code random-<n>} (about 8n edges drawn uniformly) and {@code powerlaw-<n>} (preferential
+ * attachment, 4 edges per new node), written once to a temporary edge-list file so every input
+ * goes through the same loader. The data files are looked up in the directory given by the
+ * {@code bench.data} system property, or else in the working directory if it holds them and its
+ * parent if not, so the jar runs the same from the repository root or from {@code bench}.
+ */
+final class Project {
+    private Project() {}
+
+    static final long SEED = 42;
+
+    static final Class<?> GRAPH = load("Graph");
+    static final Class<?> CSR_GRAPH = load("CsrGraph");
+    static final Class<?> DIJKSTRA = load("Dijkstra");
+    static final Class<?> HEAP = load("BinaryMinHeapImpl");
+    static final Class<?> INT_HEAP = load("IndexedIntMinHeap");
+
+    //Graph
+    static final MethodHandle CREATE_GRAPH_FILE = method(GRAPH, "createGraphFile", File.class,
+            long.class);
+    static final MethodHandle GET_SIZE = method(GRAPH, "getSize");
+    static final MethodHandle OUT_NEIGHBORS = method(GRAPH, "outNeighbors", int.class);
+    static final MethodHandle POPULATE_BETWEENESS = method(GRAPH, "populateBetweeness", GRAPH,
+            int.class);
+    static final MethodHandle NEIGH_OVERLAP = method(GRAPH, "neighOverlap", GRAPH, Integer.class,
+            Integer.class);
+    static final MethodHandle AVG_NEIGH_OVERLAP = method(GRAPH, "avgNeighOverlap", GRAPH);
+    static final MethodHandle TRIADIC = method(GRAPH, "triadic", GRAPH);
+
+    //CsrGraph and Dijkstra
+    static final MethodHandle NEW_CSR_GRAPH = constructor(CSR_GRAPH, GRAPH);
+    static final MethodHandle TREE = method(DIJKSTRA, "shortestPathTree", GRAPH, int.class);
+    static final MethodHandle CSR_TREE = method(DIJKSTRA, "shortestPathTree", CSR_GRAPH,
+            int.class);
+
+    //BinaryMinHeapImpl
+    static final MethodHandle NEW_HEAP = constructor(HEAP);
+    static final MethodHandle HEAP_ADD = method(HEAP, "add", Comparable.class, Object.class);
+    static final MethodHandle HEAP_DECREASE_KEY = method(HEAP, "decreaseKey", Object.class,
+            Comparable.class);
+    static final MethodHandle HEAP_EXTRACT_MIN = method(HEAP, "extractMin");
+    static final MethodHandle HEAP_IS_EMPTY = method(HEAP, "isEmpty");
+
+    //IndexedIntMinHeap, through its int overloads
+    static final MethodHandle NEW_INT_HEAP = constructor(INT_HEAP, int.class);
+    static final MethodHandle INT_HEAP_ADD = method(INT_HEAP, "add", int.class, int.class);
+    static final MethodHandle INT_HEAP_DECREASE_KEY = method(INT_HEAP, "decreaseKey", int.class,
+            int.class);
+    static final MethodHandle INT_HEAP_EXTRACT_MIN = method(INT_HEAP, "extractMinValue");
+    static final MethodHandle INT_HEAP_IS_EMPTY = method(INT_HEAP, "isEmpty");
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("project class " + name + " is not on the classpath",
+                    e);
+        }
+    }
+
+    //a public method, static or not, with the receiver (if any) and every project type as Object
+    private static MethodHandle method(Class<?> owner, String name, Class<?>... params) {
+        try {
+            Method m = owner.getMethod(name, params);
+            MethodHandle h = MethodHandles.publicLookup().unreflect(m);
+            return h.asType(erase(h.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(owner.getName() + "." + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, Class<?>... params) {
+        try {
+            MethodHandle h = MethodHandles.publicLookup().unreflectConstructor(
+                    owner.getConstructor(params));
+            return h.asType(erase(h.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(owner.getName() + ".<init>", e);
+        }
+    }
+
+    //primitive types stay as they are, every reference type becomes Object, and so does a void
+    //return (the handle then returns null), so a benchmark keeps working if a method that only
+    //printed its result starts returning it
+    private static MethodType erase(MethodType type) {
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (!type.parameterType(i).isPrimitive()) {
+                type = type.changeParameterType(i, Object.class);
+            }
+        }
+        if (!type.returnType().isPrimitive() || type.returnType() == void.class) {
+            type = type.changeReturnType(Object.class);
+        }
+        return type;
+    }
+
+    /**
+     * @param graph the name of an input, see the class comment
+     * @return an edge-list file holding it
+     * @throws IOException if a synthetic graph cannot be written
+     */
+    static File file(String graph) throws IOException {
+        if (graph.equals("tribes") || graph.equals("email-network")) {
+            File data = new File(System.getProperty("bench.data",
+                    new File(graph + ".txt").isFile() ? "." : ".."));
+            File f = new File(data, graph + ".txt");
+            if (!f.isFile()) {
+                throw new IllegalArgumentException(f + " not found, set -Dbench.data");
+            }
+            return f;
+        }
+        int dash = graph.indexOf('-');
+        if (dash == -1) {
+            throw new IllegalArgumentException(graph);
+        }
+        String kind = graph.substring(0, dash);
+        int n = Integer.parseInt(graph.substring(dash + 1));
+        File f = File.createTempFile("bench-" + graph + "-", ".txt");
+        f.deleteOnExit();
+        BufferedWriter out = new BufferedWriter(new FileWriter(f));
+        try {
+            if (kind.equals("random")) {
+                writeRandom(out, n, new Random(SEED));
+            } else if (kind.equals("powerlaw")) {
+                writePowerLaw(out, n, new Random(SEED));
+            } else {
+                throw new IllegalArgumentException(graph);
+            }
+        } finally {
+            out.close();
+        }
+        return f;
+    }
+
+    /**
+     * @param graph the name of an input, see the class comment
+     * @return the input loaded as a Graph, with weights seeded by {@link #SEED}
+     * @throws IOException if the input cannot be read
+     */
+    static Object graph(String graph) throws IOException {
+        File f = file(graph);
+        try {
+            return (Object) CREATE_GRAPH_FILE.invokeExact((Object) f, SEED);
+        } catch (IOException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    //8n edges with uniform endpoints, self loops skipped and repeats left to the loader
+    private static void writeRandom(BufferedWriter out, int n, Random rnd) throws IOException {
+        for (long i = 0; i < 8L * n; i++) {
+            int u = rnd.nextInt(n);
+            int v = rnd.nextInt(n);
+            if (u != v) {
+                edge(out, u, v, rnd);
+            }
+        }
+    }
+
+    //every new node links to 4 earlier ones picked in proportion to their degree (the endpoint
+    //of a uniformly chosen earlier edge), and half of the links also get the reverse edge
+    private static void writePowerLaw(BufferedWriter out, int n, Random rnd) throws IOException {
+        int[] ends = new int[2 * 4 * n + 2];
+        int count = 0;
+        ends[count++] = 0;
+        ends[count++] = 1;
+        edge(out, 0, 1, rnd);
+        for (int u = 2; u < n; u++) {
+            int earlier = count; //only the ends of earlier edges, so u never picks itself
+            for (int j = 0; j < 4; j++) {
+                int v = ends[rnd.nextInt(earlier)];
+                edge(out, u, v, rnd);
+                if (rnd.nextBoolean()) {
+                    edge(out, v, u, rnd);
+                }
+                ends[count++] = u;
+                ends[count++] = v;
+            }
+        }
+    }
+
+    private static void edge(BufferedWriter out, int u, int v, Random rnd) throws IOException {
+        out.write(u + " " + v + " " + rnd.nextInt(100));
+        out.newLine();
+    }
+
+    //rethrows whatever a handle threw, unchecked
+    static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of a long betweeness or Girvan-Newman run: how many sources are done out of how many,
+ * how much work they did, where the time went, and when the run should finish.
+ * <p>
+ * Pass one to {@link Brandes#edgeBetweeness(CsrGraph, int[], int, Brandes.Mode,
+ * BetweenessMetrics)} or the other methods that take one. Workers count on plain fields and add
+ * their counts here once per source, so watching a run costs a few atomic adds per source and
+ * nothing per edge. A {@link Listener} is called from whichever worker finishes a source once
+ * the reporting interval has passed. The same metrics can be reused across runs, the counters and
+ * phase times keep adding up.
+ */
+public class BetweenessMetrics {
+
+    /**
+     * Told about progress while a run is going.
+     */
+    public interface Listener {
+        /**
+         * Called at most once per reporting interval, from a worker thread, so it should return
+         * quickly.
+         *
+         * @param metrics the metrics of the run
+         */
+        void progress(BetweenessMetrics metrics);
+    }
+
+    private final LongAdder sources = new LongAdder();
+    private final LongAdder edgesRelaxed = new LongAdder();
+    private final LongAdder heapOperations = new LongAdder();
+    private final LongAdder decreaseKeys = new LongAdder();
+    private final AtomicLong expectedSources = new AtomicLong();
+    private final Map<String, Long> phases = new LinkedHashMap<String, Long>(); //name to nanos
+    private final long start = System.nanoTime();
+    private final Listener listener;
+    private final long interval; //nanos between listener calls
+    private final AtomicLong nextReport;
+
+    /**
+     * Metrics without a listener, read them whenever you like.
+     */
+    public BetweenessMetrics() {
+        this(null, 0);
+    }
+
+    /**
+     * @param listener       told about progress, or null
+     * @param intervalMillis the least time between two calls to {@code listener}
+     * @throws IllegalArgumentException if {@code intervalMillis} is negative
+     */
+    public BetweenessMetrics(Listener listener, long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.listener = listener;
+        interval = intervalMillis * 1000000L;
+        nextReport = new AtomicLong(start + interval);
+    }
+
+    /**
+     * @return the number of single-source searches done
+     */
+    public long getSources() {
+        return sources.sum();
+    }
+
+    /**
+     * @return the number of sources the runs so far have announced, done or not
+     */
+    public long getExpectedSources() {
+        return expectedSources.get();
+    }
+
+    /**
+     * @return the number of edges the searches scanned from a settled or dequeued node
+     */
+    public long getEdgesRelaxed() {
+        return edgesRelaxed.sum();
+    }
+
+    /**
+     * @return the number of heap adds, extractions and decrease-keys, 0 for the breadth first
+     * modes
+     */
+    public long getHeapOperations() {
+        return heapOperations.sum();
+    }
+
+    /**
+     * @return the number of decrease-keys, also counted in {@link #getHeapOperations()}
+     */
+    public long getDecreaseKeys() {
+        return decreaseKeys.sum();
+    }
+
+    /**
+     * @return nanoseconds since these metrics were created
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * @return sources done per second since these metrics were created
+     */
+    public double getSourcesPerSecond() {
+        long elapsed = getElapsedNanos();
+        return elapsed == 0 ? 0.0 : getSources() * 1e9 / elapsed;
+    }
+
+    /**
+     * Estimates the time left from the sources still expected and the rate so far.
+     *
+     * @return the estimated nanoseconds until every expected source is done, 0 if they all are,
+     * or -1 if nothing is done yet to estimate from
+     */
+    public long getEtaNanos() {
+        long done = getSources();
+        long left = getExpectedSources() - done;
+        if (left <= 0) {
+            return 0;
+        }
+        if (done == 0) {
+            return -1;
+        }
+        return (long) ((double) getElapsedNanos() / done * left);
+    }
+
+    /**
+     * @return the nanoseconds spent in every phase so far, in the order the phases first ran
+     */
+    public Map<String, Long> getPhaseNanos() {
+        synchronized (phases) {
+            return new LinkedHashMap<String, Long>(phases);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("sources ").append(getSources()).append('/').append(getExpectedSources());
+        sb.append(", edges relaxed ").append(getEdgesRelaxed());
+        sb.append(", heap ops ").append(getHeapOperations());
+        sb.append(" (decrease-keys ").append(getDecreaseKeys()).append(')');
+        sb.append(String.format(", %.1f sources/s", getSourcesPerSecond()));
+        long eta = getEtaNanos();
+        if (eta >= 0) {
+            sb.append(String.format(", eta %.1f s", eta / 1e9));
+        }
+        for (Map.Entry<String, Long> phase : getPhaseNanos().entrySet()) {
+            sb.append(String.format(", %s %.1f ms", phase.getKey(), phase.getValue() / 1e6));
+        }
+        return sb.toString();
+    }
+
+    //a run is about to do this many more sources
+    void expect(long count) {
+        expectedSources.addAndGet(count);
+    }
+
+    //one source is done, after doing this much work
+    void sourceDone(long relaxed, long heapOps, long decreases) {
+        sources.increment();
+        edgesRelaxed.add(relaxed);
+        heapOperations.add(heapOps);
+        decreaseKeys.add(decreases);
+        if (listener != null) {
+            long now = System.nanoTime();
+            long due = nextReport.get();
+            //only the thread that moves the deadline reports
+            if (now - due >= 0 && nextReport.compareAndSet(due, now + interval)) {
+                listener.progress(this);
+            }
+        }
+    }
+
+    //adds the time since begin, a System.nanoTime() reading, to the phase
+    void phase(String name, long begin) {
+        long spent = System.nanoTime() - begin;
+        synchronized (phases) {
+            Long before = phases.get(name);
+            phases.put(name, before == null ? spent : before + spent);
+        }
+    }
+}
@@ -199,7 +199,7 @@ public class BinaryMinHeapImpl<Key extends Comparable<Key>, V> implements Binary
         } 
         if (smallest != heap.get(index)) {
             switchPair(smallest, heap.get(index));
-            minHeapify(heap.indexOf(oldSmall));
+            minHeapify(pairs.get(oldSmall.value)); //its new index, without scanning the heap
         }
     }
 
@@ -214,6 +214,7 @@ public class BinaryMinHeapImpl<Key extends Comparable<Key>, V> implements Binary
             throw new NoSuchElementException();
         }
         if (heap.size() == 1) {
+            pairs.remove(heap.get(0).value); //or the value would still look present
             return heap.remove(0);
         }
         Entry<Key, V> min = heap.get(0);
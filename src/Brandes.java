@@ -0,0 +1,829 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes edge betweeness for a weighted graph with Brandes' algorithm.
+ * <p>
+ * Rather than running Dijkstra once for every ordered pair of vertices, each source vertex builds a
+ * single shortest-path DAG, counts the number of shortest paths (sigma) reaching every vertex, and
+ * then pushes the dependencies back up the DAG in reverse settle order. When several shortest paths
+ * tie, each one receives its fractional share, so every shortest path is counted instead of only
+ * the one a parent array happens to remember. A zero-weight edge between two vertices at the same
+ * distance is only followed in the order Dijkstra settles them, like the parent array did.
+ * <p>
+ * The work for one source never touches the work for another, so sources can also be split across
+ * a fork-join pool. Every worker thread accumulates into its own primitive array and the arrays are
+ * summed once all sources are done.
+ * <p>
+ * A shortest path never leaves the weakly connected component it starts in, so the sources are
+ * grouped by component first and run as separate tasks, biggest component first. A source only
+ * ever touches its own component, isolated nodes are skipped, and the edges of a component that
+ * one task ran alone are written straight into the result, so only the big components that were
+ * split across threads need summing. A checkpointed run hands its chunks of sources to the same
+ * pool and workers, see {@link Checkpoint}.
+ * <p>
+ * Runtime: O(n * m * lg n) overall, using O(n + m) extra space per worker.
+ */
+final public class Brandes {
+    private Brandes() {}
+
+    /**
+     * How the length of a path is measured.
+     */
+    public enum Mode {
+        /** Sum of the edge weights, shortest paths found with Dijkstra. */
+        WEIGHTED,
+        /** Number of edges, weights are ignored and breadth first search finds shortest paths. */
+        UNWEIGHTED,
+        /** Same as UNWEIGHTED, but big frontiers are expanded bottom-up from their in neighbors. */
+        DIRECTION_OPTIMIZING
+    }
+
+    /**
+     * Computes the betweeness of every edge in the graph on the calling thread.
+     *
+     * @param g the weighted graph to compute betweeness on
+     * @return an adjacency list mirroring {@code g} where the value of every edge is its betweeness
+     * @see #edgeBetweeness(Graph, int)
+     */
+    public static ArrayList<HashMap<Integer, Double>> edgeBetweeness(Graph g) {
+        return edgeBetweeness(g, 1);
+    }
+
+    /**
+     * Computes the betweeness of every edge in the graph. The betweeness of an edge {@code u-v} is
+     * the sum, over all ordered pairs {@code (s, t)} with {@code s != t}, of the fraction of the
+     * shortest {@code s-t} paths that use the edge. Input graph must have no negative-weighted
+     * edges.
+     *
+     * @param g           the weighted graph to compute betweeness on
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @return an adjacency list mirroring {@code g} where the value of every edge is its betweeness
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative, or some edge
+     *                                  weight is negative
+     */
+    public static ArrayList<HashMap<Integer, Double>> edgeBetweeness(Graph g, int parallelism) {
+        CsrGraph csr = new CsrGraph(g);
+        double[] score = edgeBetweeness(csr, parallelism);
+        ArrayList<HashMap<Integer, Double>> result =
+                new ArrayList<HashMap<Integer, Double>>(csr.getSize());
+        for (int v = 0; v < csr.getSize(); v++) {
+            HashMap<Integer, Double> edges = new HashMap<Integer, Double>();
+            for (int e = csr.offsets[v]; e < csr.offsets[v + 1]; e++) {
+                edges.put(csr.targets[e], score[e]);
+            }
+            result.add(edges);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the betweeness of every edge of a CSR snapshot, see
+     * {@link #edgeBetweeness(Graph, int)}.
+     *
+     * @param g           the weighted graph to compute betweeness on
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @return the betweeness of every edge, indexed by edge id
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative, or some edge
+     *                                  weight is negative
+     */
+    public static double[] edgeBetweeness(CsrGraph g, int parallelism) {
+        return edgeBetweeness(g, null, parallelism);
+    }
+
+    /**
+     * Sums the dependencies of every edge over the given sources only, that is the betweeness
+     * counting only the shortest paths that start at one of {@code sources}. A source listed twice
+     * is counted twice.
+     *
+     * @param g           the weighted graph to compute betweeness on
+     * @param sources     the source nodes, or null for every node, run component by component
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @return the partial betweeness of every edge, indexed by edge id
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative, a source does
+     *                                  not exist, or some edge weight is negative and paths are
+     *                                  weighted
+     */
+    public static double[] edgeBetweeness(CsrGraph g, int[] sources, int parallelism) {
+        return edgeBetweeness(g, sources, parallelism, Mode.WEIGHTED);
+    }
+
+    /**
+     * Same as {@link #edgeBetweeness(CsrGraph, int[], int)}, measuring paths as {@code mode} says.
+     * The breadth first modes skip the heap entirely, O(n + m) per source instead of
+     * O(m lg n), which is the usual Girvan-Newman setting.
+     *
+     * @param g           the graph to compute betweeness on
+     * @param sources     the source nodes, or null for every node, run component by component
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @param mode        how the length of a path is measured
+     * @return the partial betweeness of every edge, indexed by edge id
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative, a source does
+     *                                  not exist, or some edge weight is negative and paths are
+     *                                  weighted
+     */
+    public static double[] edgeBetweeness(CsrGraph g, int[] sources, int parallelism, Mode mode) {
+        return edgeBetweeness(g, sources, parallelism, mode, null);
+    }
+
+    /**
+     * Same as {@link #edgeBetweeness(CsrGraph, int[], int, Mode)}, counting the work and timing
+     * the phases of the run in {@code metrics}: {@code components} (finding them, when every node
+     * is a source), {@code searches} and {@code reduce}.
+     *
+     * @param g           the graph to compute betweeness on
+     * @param sources     the source nodes, or null for every node, run component by component
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @param mode        how the length of a path is measured
+     * @param metrics     where to count progress, or null
+     * @return the partial betweeness of every edge, indexed by edge id
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative, a source does
+     *                                  not exist, or some edge weight is negative and paths are
+     *                                  weighted
+     */
+    public static double[] edgeBetweeness(CsrGraph g, int[] sources, int parallelism, Mode mode,
+            BetweenessMetrics metrics) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException();
+        }
+        checkWeights(g, mode);
+        if (sources != null) {
+            for (int s : sources) {
+                g.checkVertex(s);
+            }
+        }
+        Part[] parts = parts(g, sources, metrics);
+        Scheduler scheduler = new Scheduler(g, parallelism, mode, metrics);
+        try {
+            double[] score = new double[g.getEdgeCount()];
+            scheduler.addScores(parts, score);
+            return score;
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    /**
+     * Estimated edge betweeness from a random sample of sources, with the error bound it carries.
+     */
+    public static class Sample {
+        public final double[] scores; //estimated betweeness, indexed by edge id
+        public final int sources; //number of sources sampled
+        //with probability at least 1 - delta, every estimate is within epsilon * n * (n - 1) of
+        //the exact betweeness
+        public final double epsilon;
+        public final double delta;
+
+        Sample(double[] scores, int sources, double epsilon, double delta) {
+            this.scores = scores;
+            this.sources = sources;
+            this.epsilon = epsilon;
+            this.delta = delta;
+        }
+    }
+
+    /**
+     * Estimates the betweeness of every edge from {@code k} sources drawn uniformly at random,
+     * scaling their dependencies by {@code n / k}. One source's dependency on an edge is at most
+     * n - 1, so Hoeffding's inequality and a union bound over the m edges give, with probability at
+     * least {@code 1 - delta}, an error of at most {@code epsilon * n * (n - 1)} on every edge,
+     * where {@code epsilon = sqrt(ln(2m / delta) / (2k))}. If {@code k >= n} every source is used
+     * once and the result is exact.
+     * <p>
+     * Runtime: O(k * m * lg n / parallelism)
+     *
+     * @param g           the weighted graph to compute betweeness on
+     * @param k           the number of sources to sample
+     * @param delta       the allowed probability that the error bound does not hold
+     * @param seed        the seed for choosing sources, the same seed picks the same sources
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @return the estimates and their error bound
+     * @throws IllegalArgumentException if {@code k} or {@code parallelism} is not positive, or
+     *                                  {@code delta} is not in (0, 1)
+     */
+    public static Sample sampledEdgeBetweeness(CsrGraph g, int k, double delta, long seed,
+            int parallelism) {
+        if (k <= 0 || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException();
+        }
+        int n = g.getSize();
+        if (k >= n) {
+            return new Sample(edgeBetweeness(g, parallelism), n, 0.0, delta);
+        }
+        Random rnd = new Random(seed);
+        int[] sources = new int[k];
+        for (int i = 0; i < k; i++) {
+            sources[i] = rnd.nextInt(n);
+        }
+        double[] scores = edgeBetweeness(g, sources, parallelism);
+        double scale = (double) n / k;
+        for (int e = 0; e < scores.length; e++) {
+            scores[e] *= scale;
+        }
+        double epsilon = Math.sqrt(Math.log(2.0 * Math.max(1, scores.length) / delta) / (2.0 * k));
+        return new Sample(scores, k, epsilon, delta);
+    }
+
+    /**
+     * Estimates the betweeness of every edge, sampling just enough sources that with probability
+     * at least {@code 1 - delta} every estimate is within {@code epsilon * n * (n - 1)} of the
+     * exact value, that is {@code k = ceil(ln(2m / delta) / (2 epsilon^2))} sources. See
+     * {@link #sampledEdgeBetweeness(CsrGraph, int, double, long, int)}.
+     *
+     * @param g           the weighted graph to compute betweeness on
+     * @param epsilon     the target error, as a fraction of n * (n - 1)
+     * @param delta       the allowed probability that the error bound does not hold
+     * @param seed        the seed for choosing sources, the same seed picks the same sources
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @return the estimates and the error bound they reached
+     * @throws IllegalArgumentException if {@code epsilon} or {@code parallelism} is not positive,
+     *                                  or {@code delta} is not in (0, 1)
+     */
+    public static Sample sampledEdgeBetweeness(CsrGraph g, double epsilon, double delta,
+            long seed, int parallelism) {
+        if (!(epsilon > 0) || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException();
+        }
+        double k = Math.ceil(Math.log(2.0 * Math.max(1, g.getEdgeCount()) / delta)
+                / (2.0 * epsilon * epsilon));
+        return sampledEdgeBetweeness(g, (int) Math.min(k, g.getSize()), delta, seed, parallelism);
+    }
+
+    //sources that all lie in one weakly connected component, with the nodes of that component,
+    //which is all a search from them can touch
+    static final class Part {
+        final int[] sources;
+        final int[] component;
+        final long edges; //number of edges leaving the nodes of component
+
+        Part(CsrGraph g, int[] sources, int[] component) {
+            this.sources = sources;
+            this.component = component;
+            edges = edgeCount(g, component);
+        }
+    }
+
+    //the weakly connected components with more than one node, biggest first (smallest number on
+    //ties), each as its nodes in increasing order
+    static int[][] components(CsrGraph g) {
+        Components components = new Components(g);
+        int n = g.getSize();
+        long[] keys = new long[components.getCount()];
+        int k = 0;
+        for (int c = 0; c < components.getCount(); c++) {
+            if (components.size(c) > 1) {
+                keys[k++] = ((long) (n - components.size(c)) << 32) | c;
+            }
+        }
+        Arrays.sort(keys, 0, k);
+        int[][] comps = new int[k][];
+        for (int i = 0; i < k; i++) {
+            comps[i] = components.members((int) keys[i]);
+        }
+        return comps;
+    }
+
+    //the sources grouped by component, in the order of components(g), keeping their order within
+    //a component. Every node is a source if sources is null, and isolated nodes are dropped
+    static Part[] parts(CsrGraph g, int[] sources, BetweenessMetrics metrics) {
+        long begin = System.nanoTime();
+        int[][] comps = components(g);
+        Part[] parts;
+        if (sources == null) {
+            parts = new Part[comps.length];
+            for (int i = 0; i < comps.length; i++) {
+                parts[i] = new Part(g, comps[i], comps[i]);
+            }
+        } else {
+            int[] rank = new int[g.getSize()]; //index in comps of every node's component, or -1
+            Arrays.fill(rank, -1);
+            for (int i = 0; i < comps.length; i++) {
+                for (int v : comps[i]) {
+                    rank[v] = i;
+                }
+            }
+            int[] start = new int[comps.length + 1]; //counting sort by rank
+            for (int s : sources) {
+                if (rank[s] != -1) {
+                    start[rank[s] + 1]++;
+                }
+            }
+            int k = 0;
+            for (int i = 0; i < comps.length; i++) {
+                if (start[i + 1] > 0) {
+                    k++;
+                }
+                start[i + 1] += start[i];
+            }
+            int[] sorted = new int[start[comps.length]];
+            int[] at = Arrays.copyOf(start, comps.length);
+            for (int s : sources) {
+                if (rank[s] != -1) {
+                    sorted[at[rank[s]]++] = s;
+                }
+            }
+            parts = new Part[k];
+            k = 0;
+            for (int i = 0; i < comps.length; i++) {
+                if (start[i + 1] > start[i]) {
+                    parts[k++] = new Part(g, Arrays.copyOfRange(sorted, start[i], start[i + 1]),
+                            comps[i]);
+                }
+            }
+        }
+        if (metrics != null) {
+            metrics.phase("components", begin);
+        }
+        return parts;
+    }
+
+    /**
+     * Runs the sources of {@link Part}s on the same workers, and the same pool if there is more
+     * than one thread, for as long as it is open, so a run made of many chunks (see
+     * {@link Checkpoint}) starts its threads and allocates its buffers once.
+     */
+    static final class Scheduler {
+        private final CsrGraph g;
+        private final int parallelism;
+        private final BetweenessMetrics metrics;
+        private final Worker single; //the only worker with one thread, else null
+        private final ForkJoinPool pool; //null with one thread
+        private final ConcurrentLinkedQueue<Worker> workers;
+        private final ThreadLocal<Worker> local;
+
+        Scheduler(final CsrGraph g, int parallelism, final Mode mode,
+                final BetweenessMetrics metrics) {
+            this.g = g;
+            this.parallelism = parallelism;
+            this.metrics = metrics;
+            workers = new ConcurrentLinkedQueue<Worker>();
+            if (parallelism == 1) {
+                single = new Worker(g, mode);
+                single.metrics = metrics;
+                pool = null;
+                local = null;
+                return;
+            }
+            single = null;
+            //each pool thread lazily creates and keeps one worker
+            local = new ThreadLocal<Worker>() {
+                @Override
+                protected Worker initialValue() {
+                    Worker worker = new Worker(g, mode);
+                    worker.metrics = metrics;
+                    workers.add(worker);
+                    return worker;
+                }
+            };
+            pool = new ForkJoinPool(parallelism);
+        }
+
+        //adds what the sources of parts contribute to score. No two parts may share a component
+        void addScores(Part[] parts, double[] score) {
+            long count = 0;
+            for (Part part : parts) {
+                count += part.sources.length;
+            }
+            if (metrics != null) {
+                metrics.expect(count);
+            }
+            long begin = System.nanoTime();
+            if (pool == null) {
+                for (Part part : parts) {
+                    single.scope = part.component;
+                    single.scopeEdges = part.edges;
+                    for (int s : part.sources) {
+                        single.accumulate(s);
+                    }
+                    move(single, part.component, score);
+                }
+                if (metrics != null) {
+                    metrics.phase("searches", begin);
+                }
+                return;
+            }
+
+            //parts up to grain sources run whole on one thread, bigger ones are split by source
+            int grain = (int) Math.max(1, count / (parallelism * 8));
+            final List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+            List<Part> big = new ArrayList<Part>();
+            List<Part> small = new ArrayList<Part>();
+            for (Part part : parts) {
+                if (part.sources.length > grain) {
+                    big.add(part);
+                    tasks.add(new SourceRange(part, 0, part.sources.length, grain, local));
+                } else {
+                    small.add(part);
+                }
+            }
+            if (!small.isEmpty()) {
+                Part[] rest = small.toArray(new Part[small.size()]);
+                long[] sourcesBefore = new long[rest.length + 1];
+                for (int i = 0; i < rest.length; i++) {
+                    sourcesBefore[i + 1] = sourcesBefore[i] + rest[i].sources.length;
+                }
+                tasks.add(new ComponentRange(g, rest, sourcesBefore, 0, rest.length, grain, local,
+                        score));
+            }
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+            if (metrics != null) {
+                metrics.phase("searches", begin);
+            }
+
+            //reduce the split parts, O(edges of their components) per worker
+            begin = System.nanoTime();
+            for (Part part : big) {
+                for (Worker worker : workers) {
+                    move(worker, part.component, score);
+                }
+            }
+            if (metrics != null) {
+                metrics.phase("reduce", begin);
+            }
+        }
+
+        //lets the pool threads go, the scheduler cannot be used after
+        void close() {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    //adds the worker's betweeness of the edges leaving nodes to score and clears it in the worker
+    static void move(Worker worker, int[] nodes, double[] score) {
+        for (int v : nodes) {
+            for (int e = worker.offsets[v]; e < worker.offsets[v + 1]; e++) {
+                score[e] += worker.score[e];
+                worker.score[e] = 0.0;
+            }
+        }
+    }
+
+    //runs the sources lo to hi - 1 of one part, halving the range until it is no bigger than
+    //grain
+    static class SourceRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Part part;
+        private final int lo;
+        private final int hi;
+        private final int grain;
+        private final ThreadLocal<Worker> local;
+
+        SourceRange(Part part, int lo, int hi, int grain, ThreadLocal<Worker> local) {
+            this.part = part;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+            this.local = local;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= grain) {
+                Worker worker = local.get();
+                worker.scope = part.component;
+                worker.scopeEdges = part.edges;
+                for (int i = lo; i < hi; i++) {
+                    worker.accumulate(part.sources[i]);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SourceRange(part, lo, mid, grain, local),
+                    new SourceRange(part, mid, hi, grain, local));
+        }
+    }
+
+    //runs every source of parts[lo, hi) and moves their edges' betweeness from the worker to
+    //score, halving the range while it holds more than grain sources. No other task touches
+    //these edges, so the writes need no locking
+    static class ComponentRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final CsrGraph g;
+        private final Part[] parts;
+        private final long[] sourcesBefore; //sourcesBefore[i] counts the sources of parts[0, i)
+        private final int lo;
+        private final int hi;
+        private final int grain;
+        private final ThreadLocal<Worker> local;
+        private final double[] score;
+
+        ComponentRange(CsrGraph g, Part[] parts, long[] sourcesBefore, int lo, int hi, int grain,
+                ThreadLocal<Worker> local, double[] score) {
+            this.g = g;
+            this.parts = parts;
+            this.sourcesBefore = sourcesBefore;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+            this.local = local;
+            this.score = score;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= 1 || sourcesBefore[hi] - sourcesBefore[lo] <= grain) {
+                Worker worker = local.get();
+                for (int i = lo; i < hi; i++) {
+                    worker.scope = parts[i].component;
+                    worker.scopeEdges = parts[i].edges;
+                    for (int s : parts[i].sources) {
+                        worker.accumulate(s);
+                    }
+                    move(worker, parts[i].component, score);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ComponentRange(g, parts, sourcesBefore, lo, mid, grain, local, score),
+                    new ComponentRange(g, parts, sourcesBefore, mid, hi, grain, local, score));
+        }
+    }
+
+    //the weighted mode runs Dijkstra, which cannot handle negative lengths
+    static void checkWeights(CsrGraph g, Mode mode) {
+        if (mode == Mode.WEIGHTED && g.hasNegativeWeights()) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    //number of edges leaving the given nodes
+    static long edgeCount(CsrGraph g, int[] nodes) {
+        long edges = 0;
+        for (int v : nodes) {
+            edges += g.offsets[v + 1] - g.offsets[v];
+        }
+        return edges;
+    }
+
+    //edge ratio and frontier ratio for switching direction, from Beamer et al.
+    static final int ALPHA = 14;
+    static final int BETA = 24;
+
+    /**
+     * Buffers and the betweeness accumulator for one thread. The buffers are shared by every
+     * source the worker runs, each run only resets them.
+     */
+    static class Worker {
+        final Mode mode;
+        final int[] offsets;
+        final int[] targets;
+        final int[] weights;
+        final int[] inOffsets; //reverse index, only for DIRECTION_OPTIMIZING
+        final int[] inSources;
+        final int[] inEdges;
+        final double[] score; //betweeness accumulated so far, indexed like targets
+        final int[] distance;
+        final int[] order; //vertices in the order they were settled
+        final int[] settledAt; //position of each vertex in order, -1 if not settled
+        final double[] sigma;
+        final double[] delta;
+        final IndexedIntMinHeap priQ;
+        int reached; //how many vertices the last run put in order, the only ones to reset
+        boolean[] removed; //edges to treat as deleted, null if every edge is present
+        BitSet[] usedBy; //if not null, usedBy[e] tracks the sources whose DAG contains edge e
+        int[] scope; //the component of the sources being run, null if it may be the whole graph
+        long scopeEdges; //number of edges leaving the nodes of scope
+        BetweenessMetrics metrics; //told about every source, null if nobody is watching
+        //work done by the current source, counted here and handed to metrics once it is done
+        long relaxed;
+        long heapOps;
+        long decreaseKeys;
+
+        Worker(CsrGraph g) {
+            this(g, Mode.WEIGHTED);
+        }
+
+        Worker(CsrGraph g, Mode mode) {
+            int n = g.getSize();
+            this.mode = mode;
+            offsets = g.offsets;
+            targets = g.targets;
+            weights = g.weights;
+            if (mode == Mode.DIRECTION_OPTIMIZING) {
+                g.buildReverse();
+                inOffsets = g.inOffsets;
+                inSources = g.inSources;
+                inEdges = g.inEdges;
+            } else {
+                inOffsets = null;
+                inSources = null;
+                inEdges = null;
+            }
+            score = new double[targets.length];
+            distance = new int[n];
+            order = new int[n];
+            settledAt = new int[n];
+            sigma = new double[n];
+            delta = new double[n];
+            priQ = mode == Mode.WEIGHTED ? new IndexedIntMinHeap(n, 4) : null;
+            Arrays.fill(distance, Integer.MAX_VALUE);
+            Arrays.fill(settledAt, -1);
+        }
+
+        void accumulate(int src) {
+            accumulate(src, 1.0);
+        }
+
+        //single source step: a search that also counts shortest paths, then back-propagates.
+        //sign -1 takes back a contribution added earlier, as long as the graph is the same
+        void accumulate(int src, double sign) {
+            //every vertex the last run touched ended up in order, so resetting those is enough
+            //and a source that reaches little of the graph costs little
+            for (int i = 0; i < reached; i++) {
+                int v = order[i];
+                distance[v] = Integer.MAX_VALUE;
+                settledAt[v] = -1;
+                sigma[v] = 0.0;
+                delta[v] = 0.0;
+            }
+            distance[src] = 0;
+            sigma[src] = 1.0;
+
+            int settled;
+            if (mode == Mode.WEIGHTED) {
+                settled = dijkstra(src);
+            } else if (mode == Mode.UNWEIGHTED) {
+                settled = bfs(src);
+            } else {
+                settled = directionOptimizingBfs(src);
+            }
+            reached = settled;
+            boolean unweighted = mode != Mode.WEIGHTED;
+
+            //walk the DAG backwards so every successor's dependency is final before it is used
+            for (int i = settled - 1; i >= 0; i--) {
+                int v = order[i];
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int w = targets[e];
+                    int length = unweighted ? 1 : weights[e];
+                    //v-w is a DAG edge iff w was still open when v settled and distances line up
+                    if (settledAt[w] > i && distance[v] + length == distance[w]
+                            && (removed == null || !removed[e])) {
+                        double share = sigma[v] / sigma[w] * (1.0 + delta[w]);
+                        score[e] += sign * share;
+                        delta[v] += share;
+                        if (usedBy != null) {
+                            usedBy[e].set(src, sign > 0);
+                        }
+                    }
+                }
+            }
+            if (metrics != null) {
+                metrics.sourceDone(relaxed, heapOps, decreaseKeys);
+            }
+            relaxed = 0;
+            heapOps = 0;
+            decreaseKeys = 0;
+        }
+
+        //Dijkstra from src filling distance, sigma and order, returns the number settled
+        int dijkstra(int src) {
+            priQ.add(0, src); //priQ is always left empty by the previous run
+            int settled = 0;
+            int adds = 1;
+            int decreases = 0;
+            while (!priQ.isEmpty()) {
+                int v = priQ.extractMinValue();
+                settledAt[v] = settled;
+                order[settled++] = v;
+                relaxed += offsets[v + 1] - offsets[v];
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int w = targets[e];
+                    if (settledAt[w] != -1 || (removed != null && removed[e])) {
+                        continue; //already final, v cannot be on a shortest path to it
+                    }
+                    int newDist = distance[v] + weights[e];
+                    if (newDist < distance[w]) {
+                        if (priQ.containsValue(w)) {
+                            priQ.decreaseKey(w, newDist);
+                            decreases++;
+                        } else {
+                            priQ.add(newDist, w);
+                            adds++;
+                        }
+                        distance[w] = newDist;
+                        sigma[w] = sigma[v]; //found a strictly shorter route, forget the old ones
+                    } else if (newDist == distance[w]) {
+                        sigma[w] += sigma[v]; //another shortest route of the same length
+                    }
+                }
+            }
+            heapOps += adds + settled + decreases; //every add is extracted once
+            decreaseKeys += decreases;
+            return settled;
+        }
+
+        //breadth first search from src, order doubles as the queue, returns the number reached
+        int bfs(int src) {
+            order[0] = src;
+            settledAt[src] = 0;
+            int head = 0;
+            int tail = 1;
+            while (head < tail) {
+                int v = order[head++];
+                relaxed += offsets[v + 1] - offsets[v];
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    if (removed != null && removed[e]) {
+                        continue;
+                    }
+                    int w = targets[e];
+                    if (distance[w] == Integer.MAX_VALUE) {
+                        distance[w] = distance[v] + 1;
+                        settledAt[w] = tail;
+                        order[tail++] = w;
+                    }
+                    if (distance[w] == distance[v] + 1) {
+                        sigma[w] += sigma[v];
+                    }
+                }
+            }
+            return tail;
+        }
+
+        //breadth first search that switches a level to bottom-up (every unreached node looks for
+        //a parent among its in neighbors) once the frontier's edges outnumber the unexplored
+        //edges / ALPHA, and back to top-down once the frontier is smaller than n / BETA. Both
+        //counts, and the bottom-up scan, only cover scope when it is set
+        int directionOptimizingBfs(int src) {
+            int n = scope == null ? distance.length : scope.length;
+            order[0] = src;
+            settledAt[src] = 0;
+            int levelStart = 0;
+            int tail = 1;
+            long frontierEdges = offsets[src + 1] - offsets[src];
+            long unexploredEdges = (scope == null ? targets.length : scopeEdges) - frontierEdges;
+            boolean bottomUp = false;
+            for (int level = 0; levelStart < tail; level++) {
+                int levelEnd = tail;
+                if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                    bottomUp = true;
+                } else if (bottomUp && levelEnd - levelStart < n / BETA) {
+                    bottomUp = false;
+                }
+                long nextEdges = 0;
+                if (bottomUp) {
+                    for (int j = 0; j < n; j++) {
+                        int w = scope == null ? j : scope[j];
+                        if (distance[w] != Integer.MAX_VALUE) {
+                            continue;
+                        }
+                        //no early exit: sigma needs every parent, not just the first one
+                        relaxed += inOffsets[w + 1] - inOffsets[w];
+                        for (int f = inOffsets[w]; f < inOffsets[w + 1]; f++) {
+                            int u = inSources[f];
+                            if (distance[u] == level && (removed == null || !removed[inEdges[f]])) {
+                                sigma[w] += sigma[u];
+                            }
+                        }
+                        if (sigma[w] > 0) {
+                            distance[w] = level + 1;
+                            settledAt[w] = tail;
+                            order[tail++] = w;
+                            nextEdges += offsets[w + 1] - offsets[w];
+                        }
+                    }
+                } else {
+                    for (int i = levelStart; i < levelEnd; i++) {
+                        int v = order[i];
+                        relaxed += offsets[v + 1] - offsets[v];
+                        for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                            if (removed != null && removed[e]) {
+                                continue;
+                            }
+                            int w = targets[e];
+                            if (distance[w] == Integer.MAX_VALUE) {
+                                distance[w] = level + 1;
+                                settledAt[w] = tail;
+                                order[tail++] = w;
+                                nextEdges += offsets[w + 1] - offsets[w];
+                            }
+                            if (distance[w] == level + 1) {
+                                sigma[w] += sigma[v];
+                            }
+                        }
+                    }
+                }
+                levelStart = levelEnd;
+                frontierEdges = nextEdges;
+                unexploredEdges -= nextEdges;
+            }
+            return tail;
+        }
+    }
+}
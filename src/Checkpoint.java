@@ -0,0 +1,411 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The saved state of a long betweeness or Girvan-Newman run, so a run that dies can start again
+ * where the last checkpoint left it instead of from scratch.
+ * <p>
+ * A checkpoint holds the weight seed the graph was loaded with (see
+ * {@link Graph#createGraphFile(java.io.File, long)}), a fingerprint of the graph so it is never
+ * resumed on a different one, the sources whose contributions are already summed, the partial
+ * betweeness of every edge, and the edges removed so far with the betweeness they had. The file
+ * is written with {@link DataOutputStream}, so big-endian:
+ * <pre>
+ *   int    magic        0x42544350 ("BTCP")
+ *   int    version      1
+ *   int    flags        bit 0 set if the scores are present
+ *   int    mode         Brandes.Mode ordinal
+ *   int    n            number of nodes
+ *   int    m            number of edges
+ *   long   seed         weight seed
+ *   long   fingerprint  hash of the CSR arrays, see {@link #fingerprint(CsrGraph)}
+ *   int    words        length of the completed sources bitset, in longs
+ *   long   completed[words]
+ *   double scores[m]    (only if flag bit 0 is set)
+ *   int    removed      number of removed edges
+ *   (int u, int v, double betweeness)[removed]
+ *   long   crc32        of everything before it
+ * </pre>
+ * A checkpoint is written to a temporary file next to the target and then renamed over it, so a
+ * crash while writing leaves the previous checkpoint in place.
+ */
+public class Checkpoint {
+    static final int MAGIC = 0x42544350;
+    static final int VERSION = 1;
+    static final int FLAG_SCORES = 1;
+
+    private final long seed;
+    private final Brandes.Mode mode;
+    private final int n;
+    private final int m;
+    private final long fingerprint;
+    private final BitSet completed;
+    private final double[] scores; //null if the run keeps no partial betweeness
+    private final List<int[]> removedEdges; //{u, v} of every removed edge, in order
+    private final List<Double> removedBetweeness;
+
+    private Checkpoint(long seed, Brandes.Mode mode, int n, int m, long fingerprint,
+            BitSet completed, double[] scores) {
+        this.seed = seed;
+        this.mode = mode;
+        this.n = n;
+        this.m = m;
+        this.fingerprint = fingerprint;
+        this.completed = completed;
+        this.scores = scores;
+        removedEdges = new ArrayList<int[]>();
+        removedBetweeness = new ArrayList<Double>();
+    }
+
+    /**
+     * An empty checkpoint for a run on {@code g}.
+     *
+     * @param g          the graph of the run, before any edge is removed
+     * @param seed       the seed its weights were drawn with
+     * @param mode       how the run measures paths
+     * @param withScores whether the checkpoint keeps partial betweeness
+     */
+    Checkpoint(CsrGraph g, long seed, Brandes.Mode mode, boolean withScores) {
+        this(seed, mode, g.getSize(), g.getEdgeCount(), fingerprint(g), new BitSet(),
+                withScores ? new double[g.getEdgeCount()] : null);
+    }
+
+    /**
+     * Computes the betweeness of every edge like
+     * {@link Brandes#edgeBetweeness(CsrGraph, int[], int, Brandes.Mode, BetweenessMetrics)} with
+     * every node as a source, saving a checkpoint to {@code file} at most every
+     * {@code intervalMillis} and once more at the end. If {@code file} already holds a checkpoint
+     * of this graph, the sources it has finished are not run again.
+     * <p>
+     * Sources run in chunks, component by component, on one pool for the whole run, and a
+     * checkpoint always falls between two chunks. With one thread a resumed run sums in the same
+     * order as one that never stopped, so the result is the same to the last bit. With more
+     * threads it can differ in rounding, as any two parallel runs can.
+     *
+     * @param g              the graph, with weights drawn from {@code seed}
+     * @param seed           the weight seed, saved so the graph can be loaded the same way again
+     * @param parallelism    the number of worker threads, 1 runs on the calling thread
+     * @param mode           how the length of a path is measured
+     * @param file           where the checkpoint is kept
+     * @param intervalMillis the least time between two checkpoints
+     * @param metrics        where to count progress, or null
+     * @return the betweeness of every edge, indexed by edge id
+     * @throws IOException              if the checkpoint cannot be read or written
+     * @throws IllegalArgumentException if {@code parallelism} is not positive,
+     *                                  {@code intervalMillis} is negative, some edge weight is
+     *                                  negative and paths are weighted, or {@code file} holds a
+     *                                  checkpoint of another graph, seed or mode
+     */
+    public static double[] edgeBetweeness(CsrGraph g, long seed, int parallelism,
+            Brandes.Mode mode, File file, long intervalMillis, BetweenessMetrics metrics)
+            throws IOException {
+        if (parallelism <= 0 || intervalMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+        Brandes.checkWeights(g, mode);
+        Checkpoint cp;
+        if (file.exists()) {
+            cp = read(file);
+            cp.checkGraph(g, seed, mode);
+            if (cp.scores == null) {
+                throw new IllegalArgumentException();
+            }
+        } else {
+            cp = new Checkpoint(g, seed, mode, true);
+        }
+
+        int n = g.getSize();
+        //enough chunks that a checkpoint never waits long, few enough that the reduction stays
+        //small next to the searches
+        int chunk = Math.max(parallelism * 8, (n + 99) / 100);
+        if (metrics != null) {
+            int left = 0;
+            for (int v = 0; v < n; v++) {
+                if (!cp.completed.get(v) && g.offsets[v + 1] > g.offsets[v]) {
+                    left++;
+                }
+            }
+            metrics.expect(left); //announced up front for the ETA, each chunk takes its share back
+        }
+        //the sources go in component order, biggest first, so a chunk is a few whole components
+        //or a slice of a big one, and holds at most one part of each
+        int[][] comps = Brandes.components(g);
+        int[] sources = new int[chunk];
+        long interval = intervalMillis * 1000000L;
+        long lastWrite = System.nanoTime();
+        Brandes.Scheduler scheduler = new Brandes.Scheduler(g, parallelism, mode, metrics);
+        try {
+            int c = 0;
+            int at = 0; //next node of comps[c]
+            while (true) {
+                List<Brandes.Part> parts = new ArrayList<Brandes.Part>();
+                int k = 0;
+                while (c < comps.length && k < chunk) {
+                    int first = k;
+                    for (; at < comps[c].length && k < chunk; at++) {
+                        int v = comps[c][at];
+                        //a node with no out edges is the start of no path, so it adds nothing
+                        if (!cp.completed.get(v) && g.offsets[v + 1] > g.offsets[v]) {
+                            sources[k++] = v;
+                        }
+                    }
+                    if (k > first) {
+                        parts.add(new Brandes.Part(g, Arrays.copyOfRange(sources, first, k),
+                                comps[c]));
+                    }
+                    if (at == comps[c].length) {
+                        c++;
+                        at = 0;
+                    }
+                }
+                if (k == 0) {
+                    break;
+                }
+                if (metrics != null) {
+                    metrics.expect(-k); //the chunk announces its own sources again
+                }
+                scheduler.addScores(parts.toArray(new Brandes.Part[parts.size()]), cp.scores);
+                for (int i = 0; i < k; i++) {
+                    cp.completed.set(sources[i]);
+                }
+                if (System.nanoTime() - lastWrite >= interval) {
+                    cp.write(file);
+                    lastWrite = System.nanoTime();
+                }
+            }
+        } finally {
+            scheduler.close();
+        }
+        cp.write(file);
+        return cp.scores.clone();
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the structure and weights of {@code g}.
+     *
+     * @param g the graph
+     * @return its fingerprint
+     */
+    public static long fingerprint(CsrGraph g) {
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, g.getSize());
+        for (int x : g.offsets) {
+            h = mix(h, x);
+        }
+        for (int x : g.targets) {
+            h = mix(h, x);
+        }
+        for (int x : g.weights) {
+            h = mix(h, x);
+        }
+        return h;
+    }
+
+    private static long mix(long h, int x) {
+        for (int i = 0; i < 4; i++) {
+            h ^= (x >>> (8 * i)) & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    //throws if this checkpoint was not taken on g, with these weights, measuring paths this way
+    void checkGraph(CsrGraph g, long seed, Brandes.Mode mode) {
+        if (this.seed != seed || this.mode != mode || n != g.getSize() || m != g.getEdgeCount()
+                || fingerprint != fingerprint(g)) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * @return the seed the weights of the graph were drawn with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return how the run measures paths
+     */
+    public Brandes.Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the fingerprint of the graph the run started on
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return a copy of the sources whose contributions are summed in {@link #getScores()}
+     */
+    public BitSet getCompleted() {
+        return (BitSet) completed.clone();
+    }
+
+    /**
+     * @return a copy of the partial betweeness of every edge, or null if the run keeps none
+     */
+    public double[] getScores() {
+        return scores == null ? null : scores.clone();
+    }
+
+    /**
+     * @return {u, v} of every removed edge, in the order they were removed
+     */
+    public List<int[]> getRemovedEdges() {
+        List<int[]> copy = new ArrayList<int[]>(removedEdges.size());
+        for (int[] edge : removedEdges) {
+            copy.add(edge.clone());
+        }
+        return copy;
+    }
+
+    /**
+     * @param i the index of a removed edge
+     * @return its betweeness when it was removed
+     * @throws IndexOutOfBoundsException if fewer than {@code i + 1} edges were removed
+     */
+    public double getRemovedBetweeness(int i) {
+        return removedBetweeness.get(i);
+    }
+
+    //records the next removed edge
+    void addRemoved(int u, int v, double betweeness) {
+        removedEdges.add(new int[] {u, v});
+        removedBetweeness.add(betweeness);
+    }
+
+    /**
+     * Saves the checkpoint, replacing {@code out} only once the new file is complete.
+     *
+     * @param out the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File out) throws IOException {
+        File tmp = new File(out.getPath() + ".tmp");
+        CRC32 crc = new CRC32();
+        DataOutputStream data = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16), crc));
+        try {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(scores != null ? FLAG_SCORES : 0);
+            data.writeInt(mode.ordinal());
+            data.writeInt(n);
+            data.writeInt(m);
+            data.writeLong(seed);
+            data.writeLong(fingerprint);
+            long[] words = completed.toLongArray();
+            data.writeInt(words.length);
+            for (long w : words) {
+                data.writeLong(w);
+            }
+            if (scores != null) {
+                for (double s : scores) {
+                    data.writeDouble(s);
+                }
+            }
+            data.writeInt(removedEdges.size());
+            for (int i = 0; i < removedEdges.size(); i++) {
+                data.writeInt(removedEdges.get(i)[0]);
+                data.writeInt(removedEdges.get(i)[1]);
+                data.writeDouble(removedBetweeness.get(i));
+            }
+            data.flush();
+            data.writeLong(crc.getValue()); //not part of its own checksum
+        } finally {
+            data.close();
+        }
+        try {
+            Files.move(tmp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Loads a checkpoint.
+     *
+     * @param in the file to read
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read, is not a checkpoint, is truncated, or
+     *                     fails its checksum
+     */
+    public static Checkpoint read(File in) throws IOException {
+        CRC32 crc = new CRC32();
+        DataInputStream data = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(new FileInputStream(in), 1 << 16), crc));
+        try {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("not a checkpoint: " + in);
+            }
+            int version = data.readInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported checkpoint version " + version + ": " + in);
+            }
+            int flags = data.readInt();
+            int modeOrdinal = data.readInt();
+            int n = data.readInt();
+            int m = data.readInt();
+            long seed = data.readLong();
+            long fingerprint = data.readLong();
+            int words = data.readInt();
+            if (modeOrdinal < 0 || modeOrdinal >= Brandes.Mode.values().length || n < 0 || m < 0
+                    || words < 0 || words > (n + 63) / 64) {
+                throw new IOException("corrupt checkpoint header: " + in);
+            }
+            long[] bits = new long[words];
+            for (int i = 0; i < words; i++) {
+                bits[i] = data.readLong();
+            }
+            double[] scores = null;
+            if ((flags & FLAG_SCORES) != 0) {
+                scores = new double[m];
+                for (int e = 0; e < m; e++) {
+                    scores[e] = data.readDouble();
+                }
+            }
+            Checkpoint cp = new Checkpoint(seed, Brandes.Mode.values()[modeOrdinal], n, m,
+                    fingerprint, BitSet.valueOf(bits), scores);
+            int removed = data.readInt();
+            if (removed < 0 || removed > m) {
+                throw new IOException("corrupt checkpoint: " + in);
+            }
+            for (int i = 0; i < removed; i++) {
+                int u = data.readInt();
+                int v = data.readInt();
+                cp.addRemoved(u, v, data.readDouble());
+            }
+            long expected = crc.getValue();
+            if (data.readLong() != expected) {
+                throw new IOException("checkpoint fails its checksum: " + in);
+            }
+            return cp;
+        } catch (EOFException e) {
+            throw new IOException("truncated checkpoint: " + in, e);
+        } finally {
+            data.close();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+import java.util.Arrays;
+
+/**
+ * The weakly connected components of a {@link CsrGraph}, kept up to date as edges are removed.
+ * <p>
+ * The first labelling is one union-find pass over the edges, with union by size and path halving,
+ * so it costs O(m alpha(n)) with no queue or recursion. When an edge {@code u-v} is removed, two
+ * breadth first searches over the remaining edges (in both directions) start from {@code u} and
+ * {@code v} and take turns expanding one node each. If they meet, nothing split. If one runs out
+ * first it has found the whole of its side, and only that side is relabelled, so a split costs
+ * about twice the size of the smaller part rather than O(n + m).
+ * <p>
+ * Shortest paths never leave a component, so after a split only the sources in the two parts can
+ * see different betweeness: pass {@link #members(int)} as the sources to
+ * {@link Brandes#edgeBetweeness(CsrGraph, int[], int)} on a snapshot of the current graph to
+ * recompute just those.
+ */
+public class Components {
+    private final CsrGraph g;
+    private final boolean[] removed; //by edge id
+    private final int[] label; //component of every node
+    private final int[] size; //number of nodes of every component
+    private final int[] first; //one node of every component, the start of its member list
+    private final int[] next; //circular doubly linked member list of every component
+    private final int[] prev;
+    private int count;
+
+    //buffers of the two searches
+    private final int[][] queue;
+    private final int[][] seen; //seen[side][x] == stamp if that side reached x
+    private int stamp;
+
+    /**
+     * Labels the components of {@code g} with every edge present.
+     * <p>
+     * Runtime: O(n + m alpha(n)), plus O(n + m) if the reverse index is not built yet
+     *
+     * @param g the graph
+     */
+    public Components(CsrGraph g) {
+        this.g = g;
+        int n = g.getSize();
+        g.buildReverse();
+        removed = new boolean[g.getEdgeCount()];
+        label = new int[n];
+        size = new int[n];
+        first = new int[n];
+        next = new int[n];
+        prev = new int[n];
+        queue = new int[][] {new int[n], new int[n]};
+        seen = new int[][] {new int[n], new int[n]};
+
+        int[] parent = new int[n];
+        int[] rootSize = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+            rootSize[v] = 1;
+        }
+        for (int u = 0; u < n; u++) {
+            for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+                int a = find(parent, u);
+                int b = find(parent, g.targets[e]);
+                if (a != b) {
+                    if (rootSize[a] < rootSize[b]) {
+                        int tmp = a;
+                        a = b;
+                        b = tmp;
+                    }
+                    parent[b] = a;
+                    rootSize[a] += rootSize[b];
+                }
+            }
+        }
+
+        //number the components in order of their smallest node, and thread the member lists
+        int[] rootLabel = new int[n];
+        Arrays.fill(rootLabel, -1);
+        for (int v = 0; v < n; v++) {
+            int r = find(parent, v);
+            if (rootLabel[r] == -1) {
+                rootLabel[r] = count;
+                first[count] = v;
+                next[v] = v;
+                prev[v] = v;
+                count++;
+            } else {
+                link(rootLabel[r], v);
+            }
+            label[v] = rootLabel[r];
+            size[label[v]]++;
+        }
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]]; //path halving
+            v = parent[v];
+        }
+        return v;
+    }
+
+    //adds v to the member list of component c, just before its first node
+    private void link(int c, int v) {
+        int head = first[c];
+        int tail = prev[head];
+        next[tail] = v;
+        prev[v] = tail;
+        next[v] = head;
+        prev[head] = v;
+    }
+
+    //takes v out of the member list it is in, which must not end up empty
+    private void unlink(int v) {
+        next[prev[v]] = next[v];
+        prev[next[v]] = prev[v];
+    }
+
+    /**
+     * @return the number of components
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param v a node
+     * @return the component of {@code v}, in {@code [0, getCount())}
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public int component(int v) {
+        g.checkVertex(v);
+        return label[v];
+    }
+
+    /**
+     * @param c a component
+     * @return the number of nodes in {@code c}
+     * @throws IllegalArgumentException if the component does not exist
+     */
+    public int size(int c) {
+        checkComponent(c);
+        return size[c];
+    }
+
+    /**
+     * Runtime: O(size(c) lg size(c))
+     *
+     * @param c a component
+     * @return the nodes of {@code c}, in increasing order
+     * @throws IllegalArgumentException if the component does not exist
+     */
+    public int[] members(int c) {
+        checkComponent(c);
+        int[] nodes = new int[size[c]];
+        int v = first[c];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = v;
+            v = next[v];
+        }
+        Arrays.sort(nodes);
+        return nodes;
+    }
+
+    /**
+     * @return the component of every node
+     */
+    public int[] labels() {
+        return label.clone();
+    }
+
+    /**
+     * @param e an edge id
+     * @return true if edge {@code e} has been removed
+     * @throws IllegalArgumentException if the edge does not exist
+     */
+    public boolean isRemoved(int e) {
+        g.checkEdge(e);
+        return removed[e];
+    }
+
+    /**
+     * Removes edge {@code e} and finds out whether that split its component. If it did, the
+     * smaller of the two parts becomes a new component, numbered {@code getCount() - 1}, and the
+     * larger part keeps the old number.
+     * <p>
+     * Runtime: O(size of the smaller part, counting its edges) if the component split. If it did
+     * not, O(the edges both searches scanned before meeting), which is small when the endpoints
+     * are still close.
+     *
+     * @param e the id of the edge to remove
+     * @return the number of the new component, or -1 if nothing split or {@code e} was already
+     * removed
+     * @throws IllegalArgumentException if the edge does not exist
+     */
+    public int removeEdge(int e) {
+        g.checkEdge(e);
+        if (removed[e]) {
+            return -1;
+        }
+        removed[e] = true;
+        int u = g.source(e);
+        int v = g.targets[e];
+        stamp++;
+        int[] head = {0, 0};
+        int[] tail = {1, 1};
+        queue[0][0] = u;
+        queue[1][0] = v;
+        seen[0][u] = stamp;
+        seen[1][v] = stamp;
+        while (true) {
+            for (int side = 0; side < 2; side++) {
+                if (head[side] == tail[side]) {
+                    return split(label[u], queue[side], tail[side], queue[1 - side][0]);
+                }
+                int x = queue[side][head[side]++];
+                int[] q = queue[side];
+                int[] mine = seen[side];
+                int[] theirs = seen[1 - side];
+                for (int f = g.offsets[x]; f < g.offsets[x + 1]; f++) {
+                    int y = g.targets[f];
+                    if (!removed[f] && mine[y] != stamp) {
+                        if (theirs[y] == stamp) {
+                            return -1; //the two sides still touch
+                        }
+                        mine[y] = stamp;
+                        q[tail[side]++] = y;
+                    }
+                }
+                for (int f = g.inOffsets[x]; f < g.inOffsets[x + 1]; f++) {
+                    int y = g.inSources[f];
+                    if (!removed[g.inEdges[f]] && mine[y] != stamp) {
+                        if (theirs[y] == stamp) {
+                            return -1;
+                        }
+                        mine[y] = stamp;
+                        q[tail[side]++] = y;
+                    }
+                }
+            }
+        }
+    }
+
+    //moves the nodes[0, k) of component c to a new component, keep is a node that stays in c
+    private int split(int c, int[] nodes, int k, int keep) {
+        int child = count++;
+        for (int i = 0; i < k; i++) {
+            unlink(nodes[i]);
+        }
+        first[c] = keep;
+        first[child] = nodes[0];
+        next[nodes[0]] = nodes[0];
+        prev[nodes[0]] = nodes[0];
+        label[nodes[0]] = child;
+        for (int i = 1; i < k; i++) {
+            link(child, nodes[i]);
+            label[nodes[i]] = child;
+        }
+        size[child] = k;
+        size[c] -= k;
+        return child;
+    }
+
+    private void checkComponent(int c) {
+        if (c < 0 || c >= count) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
@@ -0,0 +1,541 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A directed, weighted graph that many threads can query while one or more threads add and delete
+ * edges, with the same edge rules as {@link Graph}.
+ * <p>
+ * The graph is a chain of immutable {@link Epoch}s behind one volatile reference. An epoch is a
+ * {@link CsrGraph} base plus a small delta of edges added and base edges deleted since it was
+ * built. A writer copies the delta, changes the copy and publishes a new epoch; once the delta
+ * grows past about sqrt(m) edges it is merged into a fresh base. Readers take the current epoch
+ * with one volatile read and never lock, wait or retry, and everything they ask one epoch sees
+ * the same graph, however many writes land meanwhile. Writers are serialized among themselves.
+ * <p>
+ * A write costs O(d lg d) for a delta of d edges, plus the O(n + m) merge once every sqrt(m)
+ * writes or so. Reads cost what they cost on a {@link CsrGraph} plus O(lg d) for the delta, and
+ * walk the base and the delta side by side rather than merging them first.
+ * Many changes at once are cheaper as one {@link #apply(EdgeBatch)}, which is a single write.
+ */
+public class ConcurrentGraph {
+    static final int MIN_DELTA = 64; //merge threshold for small graphs
+
+    private volatile Epoch current;
+
+    /**
+     * One immutable state of a {@link ConcurrentGraph}. Hold on to it to ask several questions of
+     * the same graph.
+     */
+    public static final class Epoch {
+        final long version;
+        final CsrGraph base;
+        //edges not in the base (or in it but deleted, with maybe another weight), keyed by
+        //(long) u << 32 | v so the edges of u are one sorted sub map
+        final TreeMap<Long, Integer> added;
+        final HashSet<Integer> deleted; //ids of base edges no longer in the graph
+        final int edgeCount;
+        final int negativeEdges; //edges with a negative weight, which Dijkstra cannot handle
+        //base with the delta applied, built by toCsrGraph or when the delta is merged
+        private volatile CsrGraph merged;
+
+        Epoch(long version, CsrGraph base, TreeMap<Long, Integer> added, HashSet<Integer> deleted,
+                int edgeCount, int negativeEdges) {
+            this.version = version;
+            this.base = base;
+            this.added = added;
+            this.deleted = deleted;
+            this.edgeCount = edgeCount;
+            this.negativeEdges = negativeEdges;
+            if (added.isEmpty() && deleted.isEmpty()) {
+                merged = base;
+            }
+        }
+
+        /**
+         * @return how many writes changed the graph before this epoch
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the number of vertices in the graph
+         */
+        public int getSize() {
+            return base.getSize();
+        }
+
+        /**
+         * @return the number of directed edges in the graph
+         */
+        public int getEdgeCount() {
+            return edgeCount;
+        }
+
+        /**
+         * Runtime: O(lg(outdeg(u)) + lg(d))
+         *
+         * @param u a vertex
+         * @param v a vertex
+         * @return {@code true} if the {@code u-v} edge is in this epoch
+         * @throws IllegalArgumentException if a specified vertex does not exist
+         */
+        public boolean hasEdge(int u, int v) {
+            int e = base.edgeId(u, v);
+            return added.containsKey(key(u, v)) || (e != -1 && !deleted.contains(e));
+        }
+
+        /**
+         * Runtime: O(lg(outdeg(u)) + lg(d))
+         *
+         * @param u source vertex
+         * @param v target vertex
+         * @return the weight of the {@code u-v} edge
+         * @throws IllegalArgumentException if a specified vertex does not exist
+         * @throws NoSuchElementException   if the {@code u-v} edge does not exist
+         */
+        public int getWeight(int u, int v) {
+            int e = base.edgeId(u, v); //checks both vertices
+            Integer w = added.get(key(u, v));
+            if (w != null) {
+                return w;
+            }
+            if (e == -1 || deleted.contains(e)) {
+                throw new NoSuchElementException();
+            }
+            return base.weights[e];
+        }
+
+        /**
+         * Runtime: O(outdeg(v) + lg(d))
+         *
+         * @param v the vertex
+         * @return the out neighbors of {@code v}, in increasing order, in a new array
+         * @throws IllegalArgumentException if the specified vertex does not exist
+         */
+        public int[] outNeighbors(int v) {
+            base.checkVertex(v);
+            CsrGraph g = merged;
+            if (g != null) {
+                return Arrays.copyOfRange(g.targets, g.offsets[v], g.offsets[v + 1]);
+            }
+            SortedMap<Long, Integer> extra = added.subMap(key(v, 0), key(v + 1, 0));
+            int[] out = new int[base.offsets[v + 1] - base.offsets[v] + extra.size()];
+            return Arrays.copyOf(out, merge(v, extra, out, null, 0));
+        }
+
+        /**
+         * Computes the neighborhood overlap of {@code a} and {@code b} like
+         * {@link CsrGraph#neighOverlap(int, int)}.
+         * <p>
+         * Runtime: O(outdeg(a) + outdeg(b) + lg(d))
+         *
+         * @param a a vertex
+         * @param b a vertex
+         * @return the neighborhood overlap of {@code a} and {@code b}
+         * @throws IllegalArgumentException if a specified vertex does not exist
+         */
+        public double neighOverlap(int a, int b) {
+            CsrGraph g = merged;
+            if (g != null) {
+                return g.neighOverlap(a, b);
+            }
+            int[] na = outNeighbors(a);
+            int[] nb = outNeighbors(b);
+            int shared = NeighborhoodOverlap.intersectionSize(na, 0, na.length, nb, 0, nb.length);
+            int only = na.length + nb.length - 2 * shared;
+            return (double) shared / (double) only;
+        }
+
+        /**
+         * Finds a shortest path in this epoch, see {@link Dijkstra#getShortestPath(CsrGraph, int,
+         * int)}. The search reads the live base edges and the delta of every node it settles, so
+         * it never waits for the two to be merged.
+         * <p>
+         * Runtime: O(m lg n + n lg d)
+         *
+         * @param src the starting vertex
+         * @param tgt the vertex to reach
+         * @return the vertices of a shortest path from {@code src} to {@code tgt}, or an empty
+         * list if there is none
+         * @throws IllegalArgumentException if a specified vertex does not exist or some edge
+         *                                  weight is negative
+         */
+        public List<Integer> getShortestPath(int src, int tgt) {
+            CsrGraph g = merged;
+            if (g != null) {
+                return Dijkstra.getShortestPath(g, src, tgt);
+            }
+            base.checkVertex(src);
+            base.checkVertex(tgt);
+            if (negativeEdges > 0) {
+                throw new IllegalArgumentException();
+            }
+            DijkstraWorkspace ws = DijkstraWorkspace.get(base.getSize(), 0);
+            ws.label(src, 0, -1);
+            ws.priQ.add(0, src);
+            while (!ws.priQ.isEmpty()) {
+                int smallest = ws.priQ.extractMinValue();
+                ws.settle(smallest);
+                if (smallest == tgt) {
+                    break;
+                }
+                int dist = ws.distance(smallest);
+                //an edge of the base that was deleted and added again is in deleted, so every
+                //edge is seen once, from the base or from the delta
+                for (int e = base.offsets[smallest]; e < base.offsets[smallest + 1]; e++) {
+                    if (!deleted.contains(e)) {
+                        relax(ws, smallest, base.targets[e], dist + base.weights[e]);
+                    }
+                }
+                for (Map.Entry<Long, Integer> edge
+                        : added.subMap(key(smallest, 0), key(smallest + 1, 0)).entrySet()) {
+                    relax(ws, smallest, (int) (long) edge.getKey(), dist + edge.getValue());
+                }
+            }
+            int[] path = ws.isSettled(tgt) ? ws.pathTo(tgt) : new int[0];
+            List<Integer> list = new ArrayList<Integer>(path.length);
+            for (int v : path) {
+                list.add(v);
+            }
+            return list;
+        }
+
+        private static void relax(DijkstraWorkspace ws, int from, int to, int dist) {
+            if (!ws.isSettled(to)) {
+                ws.relax(to, dist, from, dist);
+            }
+        }
+
+        /**
+         * Returns this epoch as one {@link CsrGraph}, for the algorithms that take one. The first
+         * call on an epoch with a delta builds it, later calls share it, so treat it as read only:
+         * use methods that return their results rather than the ones that fill its betweeness.
+         * <p>
+         * Runtime: O(n + m + d) the first time, O(1) after
+         *
+         * @return the graph of this epoch
+         */
+        public CsrGraph toCsrGraph() {
+            CsrGraph g = merged;
+            if (g == null) {
+                //two readers may both build it, they build the same graph
+                int n = base.getSize();
+                int[] offsets = new int[n + 1];
+                int[] targets = new int[edgeCount];
+                int[] weights = new int[edgeCount];
+                for (int v = 0; v < n; v++) {
+                    SortedMap<Long, Integer> extra = added.subMap(key(v, 0), key(v + 1, 0));
+                    offsets[v + 1] = offsets[v] + merge(v, extra, targets, weights, offsets[v]);
+                }
+                g = new CsrGraph(offsets, targets, weights);
+                merged = g;
+            }
+            return g;
+        }
+
+        //writes the live base edges of v merged with extra into targets (and weights unless
+        //null) from position at on, returns how many
+        private int merge(int v, SortedMap<Long, Integer> extra, int[] targets, int[] weights,
+                int at) {
+            int start = at;
+            int e = base.offsets[v];
+            int end = base.offsets[v + 1];
+            for (Map.Entry<Long, Integer> edge : extra.entrySet()) {
+                int t = (int) (long) edge.getKey();
+                for (; e < end && base.targets[e] < t; e++) {
+                    at = copyBase(e, targets, weights, at);
+                }
+                if (e < end && base.targets[e] == t) {
+                    e++; //deleted from the base and added again, the delta has the weight
+                }
+                targets[at] = t;
+                if (weights != null) {
+                    weights[at] = edge.getValue();
+                }
+                at++;
+            }
+            for (; e < end; e++) {
+                at = copyBase(e, targets, weights, at);
+            }
+            return at - start;
+        }
+
+        private int copyBase(int e, int[] targets, int[] weights, int at) {
+            if (deleted.contains(e)) {
+                return at;
+            }
+            targets[at] = base.targets[e];
+            if (weights != null) {
+                weights[at] = base.weights[e];
+            }
+            return at + 1;
+        }
+    }
+
+    /**
+     * Creates a graph of {@code n} vertices and no edges.
+     *
+     * @param n the number of vertices in the graph
+     * @throws IllegalArgumentException if {@code n} is zero or negative
+     */
+    public ConcurrentGraph(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException();
+        }
+        current = new Epoch(0, new CsrGraph(new int[n + 1], new int[0], new int[0]),
+                new TreeMap<Long, Integer>(), new HashSet<Integer>(), 0, 0);
+    }
+
+    /**
+     * Starts from a copy of {@code g}. Later changes to {@code g} are not reflected.
+     * <p>
+     * Runtime: O(n + m lg(maxdeg))
+     *
+     * @param g the graph to copy
+     */
+    public ConcurrentGraph(Graph g) {
+        this(new CsrGraph(g));
+    }
+
+    /**
+     * Starts from {@code g}, which is shared, not copied: its structure never changes, but do not
+     * populate its betweeness while readers may be using it.
+     *
+     * @param g the graph to start from
+     */
+    public ConcurrentGraph(CsrGraph g) {
+        int negative = 0;
+        for (int e = 0; e < g.getEdgeCount(); e++) {
+            if (g.weights[e] < 0) {
+                negative++;
+            }
+        }
+        current = new Epoch(0, g, new TreeMap<Long, Integer>(), new HashSet<Integer>(),
+                g.getEdgeCount(), negative);
+    }
+
+    /**
+     * Returns the current state of the graph. Never blocks.
+     *
+     * @return the current epoch
+     */
+    public Epoch snapshot() {
+        return current;
+    }
+
+    /**
+     * @return the number of vertices in the graph
+     */
+    public int getSize() {
+        return current.getSize();
+    }
+
+    /**
+     * Creates an edge from {@code u} to {@code v} if it does not already exist, like
+     * {@link Graph#addEdge(int, int, int)}. Readers see it in the epochs published after this
+     * returns.
+     * <p>
+     * Runtime: O(d lg d) amortized, plus O(n + m) on the writes that merge the delta
+     *
+     * @param u      the source vertex to connect
+     * @param v      the target vertex to connect
+     * @param weight the edge weight
+     * @return {@code true} if the graph changed as a result of this call, false otherwise (i.e.,
+     * if the edge is already present)
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public synchronized boolean addEdge(int u, int v, int weight) {
+        Epoch cur = current;
+        if (cur.hasEdge(u, v)) { //checks both vertices
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        TreeMap<Long, Integer> added = (TreeMap<Long, Integer>) cur.added.clone();
+        added.put(key(u, v), weight);
+        publish(cur, added, cur.deleted, cur.edgeCount + 1,
+                cur.negativeEdges + (weight < 0 ? 1 : 0));
+        return true;
+    }
+
+    /**
+     * Deletes the edge from {@code u} to {@code v} if it exists, like
+     * {@link Graph#deleteEdge(int, int)}. Readers holding an older epoch still see it.
+     * <p>
+     * Runtime: O(d lg d) amortized, plus O(n + m) on the writes that merge the delta
+     *
+     * @param u the source vertex
+     * @param v the target vertex
+     * @return {@code true} if the graph changed as a result of this call, false otherwise (i.e.,
+     * if the edge is not present)
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public synchronized boolean deleteEdge(int u, int v) {
+        Epoch cur = current;
+        if (!cur.hasEdge(u, v)) {
+            return false;
+        }
+        int negative = cur.negativeEdges - (cur.getWeight(u, v) < 0 ? 1 : 0);
+        TreeMap<Long, Integer> added = cur.added;
+        HashSet<Integer> deleted = cur.deleted;
+        if (added.containsKey(key(u, v))) {
+            @SuppressWarnings("unchecked")
+            TreeMap<Long, Integer> copy = (TreeMap<Long, Integer>) added.clone();
+            copy.remove(key(u, v));
+            added = copy;
+        } else {
+            deleted = new HashSet<Integer>(deleted);
+            deleted.add(cur.base.edgeId(u, v));
+        }
+        publish(cur, added, deleted, cur.edgeCount - 1, negative);
+        return true;
+    }
+
+    /**
+     * Applies every insertion and deletion of {@code batch} as one write, with the same result as
+     * calling {@link #addEdge(int, int, int)} and {@link #deleteEdge(int, int)} for them in batch
+     * order. Readers see either none of the batch or all of it. The delta is copied once for the
+     * whole batch and merged into a new base at most once.
+     * <p>
+     * Runtime: O(n + d + k lg(d + k)) for k changes, plus O(n + m) if the delta is merged
+     *
+     * @param batch the changes to apply
+     * @return the number of changes that changed the graph
+     * @throws IllegalArgumentException if a change names a vertex that does not exist, in which
+     *                                  case nothing is applied
+     */
+    public synchronized int apply(EdgeBatch batch) {
+        Epoch cur = current;
+        int n = cur.getSize();
+        batch.check(n);
+        @SuppressWarnings("unchecked")
+        TreeMap<Long, Integer> added = (TreeMap<Long, Integer>) cur.added.clone();
+        HashSet<Integer> deleted = new HashSet<Integer>(cur.deleted);
+        int edgeCount = cur.edgeCount;
+        int negative = cur.negativeEdges;
+        int changed = 0;
+        for (int i : batch.order(n)) {
+            int u = batch.source(i);
+            int v = batch.target(i);
+            long key = key(u, v);
+            int e = cur.base.edgeId(u, v);
+            boolean inBase = e != -1 && !deleted.contains(e);
+            if (batch.isDelete(i)) {
+                int weight;
+                if (inBase) {
+                    deleted.add(e);
+                    weight = cur.base.weights[e];
+                } else {
+                    Integer w = added.remove(key);
+                    if (w == null) {
+                        continue;
+                    }
+                    weight = w;
+                }
+                edgeCount--;
+                if (weight < 0) {
+                    negative--;
+                }
+            } else {
+                if (inBase || added.containsKey(key)) {
+                    continue;
+                }
+                added.put(key, batch.weight(i));
+                edgeCount++;
+                if (batch.weight(i) < 0) {
+                    negative++;
+                }
+            }
+            changed++;
+        }
+        if (changed > 0) {
+            publish(cur, added, deleted, edgeCount, negative);
+        }
+        return changed;
+    }
+
+    /**
+     * Checks the current epoch, see {@link Epoch#hasEdge(int, int)}.
+     *
+     * @param u a vertex
+     * @param v a vertex
+     * @return {@code true} if the {@code u-v} edge is in the graph
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public boolean hasEdge(int u, int v) {
+        return current.hasEdge(u, v);
+    }
+
+    /**
+     * Reads the current epoch, see {@link Epoch#getWeight(int, int)}.
+     *
+     * @param u source vertex
+     * @param v target vertex
+     * @return the weight of the {@code u-v} edge
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     * @throws NoSuchElementException   if the {@code u-v} edge does not exist
+     */
+    public int getWeight(int u, int v) {
+        return current.getWeight(u, v);
+    }
+
+    /**
+     * Reads the current epoch, see {@link Epoch#outNeighbors(int)}.
+     *
+     * @param v the vertex
+     * @return the out neighbors of {@code v}, in increasing order, in a new array
+     * @throws IllegalArgumentException if the specified vertex does not exist
+     */
+    public int[] outNeighbors(int v) {
+        return current.outNeighbors(v);
+    }
+
+    /**
+     * Reads the current epoch, see {@link Epoch#neighOverlap(int, int)}.
+     *
+     * @param a a vertex
+     * @param b a vertex
+     * @return the neighborhood overlap of {@code a} and {@code b}
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public double neighOverlap(int a, int b) {
+        return current.neighOverlap(a, b);
+    }
+
+    /**
+     * Reads the current epoch, see {@link Epoch#getShortestPath(int, int)}.
+     *
+     * @param src the starting vertex
+     * @param tgt the vertex to reach
+     * @return the vertices of a shortest path from {@code src} to {@code tgt}, or an empty list
+     * if there is none
+     * @throws IllegalArgumentException if a specified vertex does not exist or some edge weight
+     *                                  is negative
+     */
+    public List<Integer> getShortestPath(int src, int tgt) {
+        return current.getShortestPath(src, tgt);
+    }
+
+    //publishes the next epoch, merging the delta into a new base once it is big enough that
+    //copying it on every write costs more than the merge spread over the writes until the next
+    private void publish(Epoch cur, TreeMap<Long, Integer> added, HashSet<Integer> deleted,
+            int edgeCount, int negativeEdges) {
+        Epoch next = new Epoch(cur.version + 1, cur.base, added, deleted, edgeCount,
+                negativeEdges);
+        if (added.size() + deleted.size() > Math.max(MIN_DELTA, (int) Math.sqrt(edgeCount))) {
+            next = new Epoch(next.version, next.toCsrGraph(), new TreeMap<Long, Integer>(),
+                    new HashSet<Integer>(), edgeCount, negativeEdges);
+        }
+        current = next;
+    }
+
+    static long key(int u, int v) {
+        return (long) u << 32 | v;
+    }
+}
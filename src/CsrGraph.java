@@ -0,0 +1,386 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of a {@link Graph} in compressed sparse row (CSR) form.
+ * <p>
+ * Every directed edge gets an id in {@code [0, m)}. The edges leaving vertex {@code v} are the ids
+ * {@code offsets[v]} up to (but not including) {@code offsets[v + 1]}, their targets sorted in
+ * increasing order. The target, weight and betweeness of edge {@code e} are {@code targets[e]},
+ * {@code weights[e]} and {@code betweeness[e]}. This takes 12 bytes per edge (plus 4 per vertex)
+ * instead of the boxed keys, values and map nodes of the adjacency list in {@link Graph}, and a
+ * neighbor scan is a walk over contiguous memory.
+ * <p>
+ * The structure of the snapshot never changes. Only the betweeness column is written, by
+ * {@link #populateBetweeness(int)}.
+ */
+public class CsrGraph {
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+    final double[] betweeness;
+    //reverse index, null until buildReverse() is called: the edges entering v are inEdges[f] for
+    //f in [inOffsets[v], inOffsets[v + 1]), their sources inSources[f] in increasing order
+    int[] inOffsets;
+    int[] inSources;
+    int[] inEdges;
+    private volatile int negative = -1; //1 if some weight is negative, 0 if none, -1 until known
+
+    /**
+     * Takes a snapshot of {@code g}. Later changes to {@code g} are not reflected.
+     * <p>
+     * Runtime: O(n + m lg(maxdeg))
+     *
+     * @param g the graph to copy
+     */
+    public CsrGraph(Graph g) {
+        int n = g.getSize();
+        offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + g.outNeighbors(v).size();
+        }
+        targets = new int[offsets[n]];
+        weights = new int[offsets[n]];
+        betweeness = new double[offsets[n]];
+        for (int v = 0; v < n; v++) {
+            Iterator<Integer> neighIt = g.outNeighbors(v).iterator();
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                targets[e] = neighIt.next();
+            }
+            Arrays.sort(targets, offsets[v], offsets[v + 1]); //sorted so lookups can binary search
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                weights[e] = g.getWeight(v, targets[e]);
+            }
+        }
+    }
+
+    //wraps already built arrays, targets of every vertex must be sorted and free of duplicates
+    CsrGraph(int[] offsets, int[] targets, int[] weights) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.betweeness = new double[targets.length];
+    }
+
+    /**
+     * @return the number of vertices in the graph
+     */
+    public int getSize() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return the number of directed edges in the graph
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Runtime: O(1)
+     *
+     * @param v the vertex
+     * @return the number of edges leaving {@code v}
+     * @throws IllegalArgumentException if the specified vertex does not exist
+     */
+    public int outDegree(int v) {
+        checkVertex(v);
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * Runtime: O(outdeg(v))
+     *
+     * @param v the vertex
+     * @return a copy of the out neighbors of {@code v}, in increasing order
+     * @throws IllegalArgumentException if the specified vertex does not exist
+     */
+    public int[] outNeighbors(int v) {
+        checkVertex(v);
+        return Arrays.copyOfRange(targets, offsets[v], offsets[v + 1]);
+    }
+
+    /**
+     * Runtime: O(lg(outdeg(u)))
+     *
+     * @param u source vertex
+     * @param v target vertex
+     * @return the id of the {@code u-v} edge, or -1 if it does not exist
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public int edgeId(int u, int v) {
+        checkVertex(u);
+        checkVertex(v);
+        int e = Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v);
+        return e < 0 ? -1 : e;
+    }
+
+    /**
+     * Runtime: O(lg(outdeg(u)))
+     *
+     * @param u a vertex
+     * @param v a vertex
+     * @return {@code true} if the {@code u-v} edge is in this graph
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public boolean hasEdge(int u, int v) {
+        return edgeId(u, v) != -1;
+    }
+
+    /**
+     * Runtime: O(lg(outdeg(u)))
+     *
+     * @param u source vertex
+     * @param v target vertex
+     * @return the edge weight of {@code u-v}
+     * @throws NoSuchElementException   if the {@code u-v} edge does not exist
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public int getWeight(int u, int v) {
+        int e = edgeId(u, v);
+        if (e == -1) {
+            throw new NoSuchElementException();
+        }
+        return weights[e];
+    }
+
+    /**
+     * Runtime: O(lg(outdeg(u)))
+     *
+     * @param u source vertex
+     * @param v target vertex
+     * @return the betweeness of {@code u-v} as last computed by {@link #populateBetweeness(int)}
+     * @throws NoSuchElementException   if the {@code u-v} edge does not exist
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public double getBetweeness(int u, int v) {
+        int e = edgeId(u, v);
+        if (e == -1) {
+            throw new NoSuchElementException();
+        }
+        return betweeness[e];
+    }
+
+    /**
+     * @param e an edge id
+     * @return the source vertex of edge {@code e}
+     * @throws IllegalArgumentException if the edge does not exist
+     */
+    public int source(int e) {
+        checkEdge(e);
+        //the last vertex whose first edge id is <= e
+        int lo = 0;
+        int hi = getSize() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= e) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @param e an edge id
+     * @return the target vertex of edge {@code e}
+     * @throws IllegalArgumentException if the edge does not exist
+     */
+    public int target(int e) {
+        checkEdge(e);
+        return targets[e];
+    }
+
+    /**
+     * @param e an edge id
+     * @return the weight of edge {@code e}
+     * @throws IllegalArgumentException if the edge does not exist
+     */
+    public int weight(int e) {
+        checkEdge(e);
+        return weights[e];
+    }
+
+    /**
+     * @param e an edge id
+     * @return the betweeness of edge {@code e}
+     * @throws IllegalArgumentException if the edge does not exist
+     */
+    public double getBetweeness(int e) {
+        checkEdge(e);
+        return betweeness[e];
+    }
+
+    /**
+     * Computes the betweeness of every edge with Brandes' algorithm and stores it in the
+     * betweeness column.
+     *
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @return the id of the edge with the highest betweeness (the smallest id on ties), or -1 if
+     * the graph has no edges
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative
+     */
+    public int populateBetweeness(int parallelism) {
+        return populateBetweeness(parallelism, Brandes.Mode.WEIGHTED);
+    }
+
+    /**
+     * Same as {@link #populateBetweeness(int)}, measuring paths as {@code mode} says.
+     *
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @param mode        how the length of a path is measured
+     * @return the id of the edge with the highest betweeness (the smallest id on ties), or -1 if
+     * the graph has no edges
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative
+     */
+    public int populateBetweeness(int parallelism, Brandes.Mode mode) {
+        return populateBetweeness(parallelism, mode, null);
+    }
+
+    /**
+     * Same as {@link #populateBetweeness(int, Brandes.Mode)}, counting progress in
+     * {@code metrics}, see {@link BetweenessMetrics}.
+     *
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @param mode        how the length of a path is measured
+     * @param metrics     where to count progress, or null
+     * @return the id of the edge with the highest betweeness (the smallest id on ties), or -1 if
+     * the graph has no edges
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative
+     */
+    public int populateBetweeness(int parallelism, Brandes.Mode mode, BetweenessMetrics metrics) {
+        double[] score = Brandes.edgeBetweeness(this, null, parallelism, mode, metrics);
+        System.arraycopy(score, 0, betweeness, 0, score.length);
+        int[] top = topEdges(1);
+        return top.length == 0 ? -1 : top[0];
+    }
+
+    /**
+     * Runtime: O(m + t lg k), see {@link TopEdges}
+     *
+     * @param k how many edges to return
+     * @return the ids of the (at most) k edges with the highest betweeness, best first
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public int[] topEdges(int k) {
+        return TopEdges.of(betweeness, k);
+    }
+
+    /**
+     * Calculates the neighborhood overlap of two nodes, the number of out neighbors they share over
+     * the number of out neighbors only one of them has. Same as {@link Graph#neighOverlap}, but
+     * intersects the two sorted neighbor runs, see {@link NeighborhoodOverlap}.
+     * <p>
+     * Runtime: O(outdeg(a) + outdeg(b))
+     *
+     * @param a a vertex
+     * @param b a vertex
+     * @return the neighborhood overlap of {@code a} and {@code b}
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public double neighOverlap(int a, int b) {
+        checkVertex(a);
+        checkVertex(b);
+        int shared = NeighborhoodOverlap.intersectionSize(targets, offsets[a], offsets[a + 1],
+                offsets[b], offsets[b + 1]);
+        int only = (offsets[a + 1] - offsets[a]) + (offsets[b + 1] - offsets[b]) - 2 * shared;
+        return (double) shared / (double) only;
+    }
+
+    /**
+     * Sums the neighborhood overlap of the endpoints of every edge and averages it over the number
+     * of nodes, like {@link Graph#avgNeighOverlap}.
+     * <p>
+     * Runtime: O(sum over edges u-v of min(outdeg(u), outdeg(v)) lg(maxdeg))
+     *
+     * @return the average neighborhood overlap
+     */
+    public double avgNeighOverlap() {
+        return NeighborhoodOverlap.average(this, 1);
+    }
+
+    /**
+     * Finds the nodes that violate triadic closure, like {@link Graph#triadic}: a node violates it
+     * if two of its strong ties (out edges with weight above 50) are not adjacent in either
+     * direction. See {@link Triangles} for the full counts.
+     * <p>
+     * Runtime: O(m^1.5 + n lg n)
+     *
+     * @return the nodes that violate triadic closure
+     */
+    public Set<Integer> triadic() {
+        return Triangles.of(this, 50, 1).violators();
+    }
+
+    /**
+     * Runtime: O(indeg(v)), plus O(n + m) the first time the reverse index is needed
+     *
+     * @param v the vertex
+     * @return the in neighbors of {@code v}, in increasing order
+     * @throws IllegalArgumentException if the specified vertex does not exist
+     */
+    public int[] inNeighbors(int v) {
+        checkVertex(v);
+        buildReverse();
+        return Arrays.copyOfRange(inSources, inOffsets[v], inOffsets[v + 1]);
+    }
+
+    //counting sort of the edge ids by target, O(n + m) and only done once
+    synchronized void buildReverse() {
+        if (inOffsets != null) {
+            return;
+        }
+        int n = getSize();
+        int[] offs = new int[n + 1];
+        for (int e = 0; e < targets.length; e++) {
+            offs[targets[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offs[v + 1] += offs[v];
+        }
+        int[] next = Arrays.copyOf(offs, n);
+        int[] sources = new int[targets.length];
+        int[] edges = new int[targets.length];
+        for (int u = 0; u < n; u++) { //sources come out in increasing order
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int f = next[targets[e]]++;
+                sources[f] = u;
+                edges[f] = e;
+            }
+        }
+        inSources = sources;
+        inEdges = edges;
+        inOffsets = offs;
+    }
+
+    //true if some edge has a negative weight, which the shortest path algorithms reject; the
+    //weights are scanned on the first call only
+    boolean hasNegativeWeights() {
+        if (negative == -1) {
+            int found = 0;
+            for (int w : weights) {
+                if (w < 0) {
+                    found = 1;
+                    break;
+                }
+            }
+            negative = found;
+        }
+        return negative == 1;
+    }
+
+    void checkVertex(int v) {
+        if (v < 0 || v >= getSize()) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    void checkEdge(int e) {
+        if (e < 0 || e >= targets.length) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
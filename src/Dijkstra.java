@@ -1,6 +1,5 @@
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -20,39 +19,96 @@ final public class Dijkstra {
      * @return an empty list if there is no path from {@param src} to {@param tgt}, otherwise an
      * ordered list of vertices in the shortest path from {@param src} to {@param tgt},
      * with the first element being {@param src} and the last element being {@param tgt}.
+     * @throws IllegalArgumentException if a node does not exist or some edge weight is negative
      */
     public static List<Integer> getShortestPath(Graph g, int src, int tgt) {
-        int[] parent = dijkstraParent(g, src); //parent pointers to backtrack
-        List<Integer> shortestPath = new ArrayList<Integer>(); //path to update
-        backtrack(src, parent,tgt,shortestPath); //backtrack from src
-        return shortestPath;
+        checkNodes(g.getSize(), src, tgt);
+        checkWeights(g);
+        //pooled buffers, so a query only pays for the nodes it reaches
+        DijkstraWorkspace ws = DijkstraWorkspace.get(g.getSize(), 0);
+        ws.label(src, 0, -1);
+        ws.priQ.add(0, src);
+        while (!ws.priQ.isEmpty()) {
+            int smallest = ws.priQ.extractMinValue();
+            ws.settle(smallest);
+            if (smallest == tgt) {
+                break; //tgt is final, nothing further out matters
+            }
+            for (int adjNext : g.outNeighbors(smallest)) {
+                if (!ws.isSettled(adjNext)) {
+                    int newDist = ws.distance(smallest) + g.getWeight(smallest, adjNext);
+                    ws.relax(adjNext, newDist, smallest, newDist);
+                }
+            }
+        }
+        return toList(ws.isSettled(tgt) ? ws.pathTo(tgt) : new int[0]);
     }
-    
-    static int[] dijkstraParent(Graph g, int src) {
-        int[] parent = new int[g.getSize()]; //parent pointers
-        int[] distance = new int[g.getSize()]; //distance estimate
-        boolean[] done = new boolean[g.getSize()]; //finish vertices to not visit again
+
+    /**
+     * Runs Dijkstra's algorithm once from a source to every node. Any number of shortest paths can
+     * then be read off the tree, see {@link ShortestPathTree#pathTo(int)}.
+     * <p>
+     * Runtime: O(m lg n)
+     *
+     * @param g   the weighted graph, must have no negative-weighted edges
+     * @param src the source node
+     * @return the shortest path tree rooted at {@code src}
+     * @throws IllegalArgumentException if {@code src} does not exist or some edge weight is
+     *                                  negative
+     */
+    public static ShortestPathTree shortestPathTree(Graph g, int src) {
+        return shortestPathTree(g, src, (int[]) null);
+    }
+
+    /**
+     * Same as {@link #shortestPathTree(Graph, int)}, but stops as soon as every one of
+     * {@code targets} has been settled. Only settled nodes have answers in the returned tree, so
+     * nodes further away than the last target read as unreachable. The source is always settled,
+     * so with no targets the run stops right after it.
+     *
+     * @param g       the weighted graph, must have no negative-weighted edges
+     * @param src     the source node
+     * @param targets the nodes whose paths are wanted
+     * @return the (partial) shortest path tree rooted at {@code src}
+     * @throws IllegalArgumentException if {@code src} or one of {@code targets} does not exist,
+     *                                  or some edge weight is negative
+     */
+    public static ShortestPathTree shortestPathTree(Graph g, int src, int... targets) {
+        checkWeights(g);
+        int n = g.getSize();
+        int[] parent = new int[n]; //parent pointers
+        int[] distance = new int[n]; //distance estimate
+        double[] pathCount = new double[n]; //number of shortest paths found so far
+        boolean[] done = new boolean[n]; //finish vertices to not visit again
+        boolean[] wanted = wanted(n, src, targets);
+        int remaining = countWanted(wanted);
         Arrays.fill(parent, -1); //initialize all parents to -1, takes O(n)
         Arrays.fill(distance, Integer.MAX_VALUE); //initialize all dis estimate to max, takes O(n)
         
         distance[src] = 0; //start with start at 0
+        pathCount[src] = 1;
         
-        //make priQ and add start with distance estimate as key
-        BinaryMinHeap<Integer, Integer> priQ = new BinaryMinHeapImpl<Integer, Integer>();
+        //the tree keeps its arrays, but the heap is the thread's pooled one
+        IndexedIntMinHeap priQ = DijkstraWorkspace.get(n, 0).priQ;
         priQ.add(0, src);
         
         //Dijkstra's part, takes O(mlgn) as at most m decrease keys
         while (!priQ.isEmpty()) {
-            int smallest = priQ.extractMin().value;
+            int smallest = priQ.extractMinValue();
             done[smallest] = true; //update the min vertex is done
-            Set<Integer> adjOfSmall = g.outNeighbors(smallest); //get adj nodes
-            Iterator<Integer> adjIt = adjOfSmall.iterator();
-            //for each adj, make sure not done and new distance is smaller than old dis estimate
-            while (adjIt.hasNext()) {
-                int adjNext = adjIt.next();
-                if (!done[adjNext] && distance[adjNext] > (distance[smallest] + 
-                        g.getWeight(smallest, adjNext))) {
-                    int newDist = distance[smallest] + g.getWeight(smallest, adjNext);
+            if (wanted != null && wanted[smallest]) {
+                remaining--;
+            }
+            if (remaining == 0) {
+                break; //every target is settled, src always is even if there are none
+            }
+            //for each adj not done, take the new distance if smaller, count the path if equal
+            for (int adjNext : g.outNeighbors(smallest)) {
+                if (done[adjNext]) {
+                    continue;
+                }
+                int newDist = distance[smallest] + g.getWeight(smallest, adjNext);
+                if (distance[adjNext] > newDist) {
                     if (priQ.containsValue(adjNext)) { //if already in priQ, update O(lgn)
                         priQ.decreaseKey(adjNext, newDist);
                     } else {
@@ -60,23 +116,391 @@ final public class Dijkstra {
                     }
                     distance[adjNext] = newDist;
                     parent[adjNext] = smallest;
+                    pathCount[adjNext] = pathCount[smallest];
+                } else if (distance[adjNext] == newDist) {
+                    pathCount[adjNext] += pathCount[smallest];
+                }
+            }
+        }
+        return new ShortestPathTree(src, parent, distance, pathCount, done);
+    }
+    
+    /**
+     * Computes the shortest path between two nodes of a CSR snapshot, see
+     * {@link #getShortestPath(Graph, int, int)}.
+     *
+     * @param g   the weighted graph to compute the shortest path on
+     * @param src the source node
+     * @param tgt the target node
+     * @return an empty list if there is no path from {@param src} to {@param tgt}, otherwise an
+     * ordered list of vertices in the shortest path from {@param src} to {@param tgt}
+     * @throws IllegalArgumentException if a node does not exist or some edge weight is negative
+     */
+    public static List<Integer> getShortestPath(CsrGraph g, int src, int tgt) {
+        checkNodes(g.getSize(), src, tgt);
+        checkWeights(g);
+        DijkstraWorkspace ws = DijkstraWorkspace.get(g.getSize(), 0);
+        ws.label(src, 0, -1);
+        ws.priQ.add(0, src);
+        while (!ws.priQ.isEmpty()) {
+            int smallest = ws.priQ.extractMinValue();
+            ws.settle(smallest);
+            if (smallest == tgt) {
+                break;
+            }
+            for (int e = g.offsets[smallest]; e < g.offsets[smallest + 1]; e++) {
+                int adjNext = g.targets[e];
+                if (!ws.isSettled(adjNext)) {
+                    int newDist = ws.distance(smallest) + g.weights[e];
+                    ws.relax(adjNext, newDist, smallest, newDist);
+                }
+            }
+        }
+        return toList(ws.isSettled(tgt) ? ws.pathTo(tgt) : new int[0]);
+    }
+
+    /**
+     * Same as {@link #shortestPathTree(Graph, int)} on a CSR snapshot.
+     *
+     * @param g   the weighted graph, must have no negative-weighted edges
+     * @param src the source node
+     * @return the shortest path tree rooted at {@code src}
+     * @throws IllegalArgumentException if {@code src} does not exist or some edge weight is
+     *                                  negative
+     */
+    public static ShortestPathTree shortestPathTree(CsrGraph g, int src) {
+        return shortestPathTree(g, src, (int[]) null);
+    }
+
+    /**
+     * Same as {@link #shortestPathTree(Graph, int, int...)} on a CSR snapshot.
+     *
+     * @param g       the weighted graph, must have no negative-weighted edges
+     * @param src     the source node
+     * @param targets the nodes whose paths are wanted
+     * @return the (partial) shortest path tree rooted at {@code src}
+     * @throws IllegalArgumentException if {@code src} or one of {@code targets} does not exist,
+     *                                  or some edge weight is negative
+     */
+    public static ShortestPathTree shortestPathTree(CsrGraph g, int src, int... targets) {
+        checkWeights(g);
+        int n = g.getSize();
+        int[] parent = new int[n];
+        int[] distance = new int[n];
+        double[] pathCount = new double[n];
+        boolean[] done = new boolean[n];
+        boolean[] wanted = wanted(n, src, targets);
+        int remaining = countWanted(wanted);
+        Arrays.fill(parent, -1);
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        distance[src] = 0;
+        pathCount[src] = 1;
+        
+        IndexedIntMinHeap priQ = DijkstraWorkspace.get(n, 0).priQ;
+        priQ.add(0, src);
+        while (!priQ.isEmpty()) {
+            int smallest = priQ.extractMinValue();
+            done[smallest] = true;
+            if (wanted != null && wanted[smallest]) {
+                remaining--;
+            }
+            if (remaining == 0) {
+                break;
+            }
+            //scan the adjacency run by edge id
+            for (int e = g.offsets[smallest]; e < g.offsets[smallest + 1]; e++) {
+                int adjNext = g.targets[e];
+                if (done[adjNext]) {
+                    continue;
+                }
+                int newDist = distance[smallest] + g.weights[e];
+                if (distance[adjNext] > newDist) {
+                    if (priQ.containsValue(adjNext)) {
+                        priQ.decreaseKey(adjNext, newDist);
+                    } else {
+                        priQ.add(newDist, adjNext);
+                    }
+                    distance[adjNext] = newDist;
+                    parent[adjNext] = smallest;
+                    pathCount[adjNext] = pathCount[smallest];
+                } else if (distance[adjNext] == newDist) {
+                    pathCount[adjNext] += pathCount[smallest];
+                }
+            }
+        }
+        return new ShortestPathTree(src, parent, distance, pathCount, done);
+    }
+
+    /**
+     * Computes one shortest path between two nodes with a bidirectional search: Dijkstra runs
+     * forward from {@code src} and backward from {@code tgt} over the in-neighbors, always growing
+     * the frontier with the smaller distance, and stops once the two frontiers together cannot
+     * beat the best meeting point found. Only the nodes closer to either end than about half the
+     * path length are settled, instead of everything reachable from {@code src}.
+     * <p>
+     * Runtime: O(m lg n) in the worst case, usually far less when the nodes are close
+     *
+     * @param g   the weighted graph, must have no negative-weighted edges
+     * @param src the source node
+     * @param tgt the target node
+     * @return an empty list if there is no path from {@param src} to {@param tgt}, otherwise an
+     * ordered list of vertices in a shortest path from {@param src} to {@param tgt}
+     * @throws IllegalArgumentException if a node does not exist or some edge weight is negative
+     */
+    public static List<Integer> getShortestPathBidirectional(Graph g, int src, int tgt) {
+        int n = g.getSize();
+        checkNodes(n, src, tgt);
+        checkWeights(g);
+        //[0] searches forward from src, [1] backward from tgt
+        DijkstraWorkspace[] ws = {DijkstraWorkspace.get(n, 0), DijkstraWorkspace.get(n, 1)};
+        ws[0].label(src, 0, -1);
+        ws[1].label(tgt, 0, -1);
+        ws[0].priQ.add(0, src);
+        ws[1].priQ.add(0, tgt);
+        long best = src == tgt ? 0 : Long.MAX_VALUE; //length of the shortest path found so far
+        int meet = src == tgt ? src : -1;
+        
+        while (!ws[0].priQ.isEmpty() && !ws[1].priQ.isEmpty()
+                && (long) ws[0].priQ.peekKey() + ws[1].priQ.peekKey() < best) {
+            int side = ws[0].priQ.peekKey() <= ws[1].priQ.peekKey() ? 0 : 1;
+            DijkstraWorkspace cur = ws[side];
+            DijkstraWorkspace other = ws[1 - side];
+            int smallest = cur.priQ.extractMinValue();
+            Set<Integer> adj = side == 0 ? g.outNeighbors(smallest) : g.inNeighbors(smallest);
+            for (int adjNext : adj) {
+                int weight = side == 0 ? g.getWeight(smallest, adjNext)
+                        : g.getWeight(adjNext, smallest);
+                int newDist = cur.distance(smallest) + weight;
+                //if the other search got here too, there is a path through adjNext
+                if (cur.relax(adjNext, newDist, smallest, newDist)
+                        && other.distance(adjNext) != Integer.MAX_VALUE
+                        && (long) newDist + other.distance(adjNext) < best) {
+                    best = (long) newDist + other.distance(adjNext);
+                    meet = adjNext;
                 }
             }
         }
-        return parent;
+        return joinPath(ws, meet);
+    }
+    
+    /**
+     * Same as {@link #getShortestPathBidirectional(Graph, int, int)} on a CSR snapshot.
+     *
+     * @param g   the weighted graph, must have no negative-weighted edges
+     * @param src the source node
+     * @param tgt the target node
+     * @return an empty list if there is no path from {@param src} to {@param tgt}, otherwise an
+     * ordered list of vertices in a shortest path from {@param src} to {@param tgt}
+     * @throws IllegalArgumentException if a node does not exist or some edge weight is negative
+     */
+    public static List<Integer> getShortestPathBidirectional(CsrGraph g, int src, int tgt) {
+        return getShortestPathBidirectional(g, src, tgt, null);
+    }
+    
+    /**
+     * Same as {@link #getShortestPathBidirectional(CsrGraph, int, int)}, but with ALT landmark
+     * lower bounds steering both searches. The forward search orders nodes by
+     * {@code d(src, v) + p(v)} and the backward search by {@code d(v, tgt) - p(v)}, where
+     * {@code p(v)} is half the difference of the landmark bounds on {@code d(v, tgt)} and
+     * {@code d(src, v)}. This keeps both searches on the same reduced edge lengths, so the usual
+     * stopping rule stays exact. Nodes the landmarks prove to be on no {@code src-tgt} path are
+     * never expanded. Path lengths up to a third of {@code Integer.MAX_VALUE} are supported.
+     *
+     * @param g         the weighted graph, must have no negative-weighted edges
+     * @param src       the source node
+     * @param tgt       the target node
+     * @param landmarks landmarks built on {@code g}, or null to search without them
+     * @return an empty list if there is no path from {@param src} to {@param tgt}, otherwise an
+     * ordered list of vertices in a shortest path from {@param src} to {@param tgt}
+     * @throws IllegalArgumentException if a node does not exist, some edge weight is negative, or
+     *                                  the landmarks were built on a graph of a different size
+     */
+    public static List<Integer> getShortestPathBidirectional(CsrGraph g, int src, int tgt,
+            Landmarks landmarks) {
+        int n = g.getSize();
+        checkNodes(n, src, tgt);
+        checkWeights(g);
+        if (landmarks != null && landmarks.getSize() != n) {
+            throw new IllegalArgumentException();
+        }
+        if (landmarks != null && (potential(landmarks, src, src, tgt) == PRUNED
+                || potential(landmarks, tgt, src, tgt) == PRUNED)) {
+            return new ArrayList<Integer>(); //the landmarks prove tgt is out of reach
+        }
+        g.buildReverse();
+        //[0] searches forward from src, [1] backward from tgt
+        DijkstraWorkspace[] ws = {DijkstraWorkspace.get(n, 0), DijkstraWorkspace.get(n, 1)};
+        ws[0].label(src, 0, -1);
+        ws[1].label(tgt, 0, -1);
+        ws[0].priQ.add(key(landmarks, 0, src, 0, src, tgt), src);
+        ws[1].priQ.add(key(landmarks, 1, tgt, 0, src, tgt), tgt);
+        long best = src == tgt ? 0 : Long.MAX_VALUE; //length of the shortest path found so far
+        int meet = src == tgt ? src : -1;
+        
+        //with landmarks the keys are doubled, and so is the bound the frontiers must stay under
+        int scale = landmarks == null ? 1 : 2;
+        while (!ws[0].priQ.isEmpty() && !ws[1].priQ.isEmpty()
+                && (best == Long.MAX_VALUE
+                        || (long) ws[0].priQ.peekKey() + ws[1].priQ.peekKey() < scale * best)) {
+            int side = ws[0].priQ.peekKey() <= ws[1].priQ.peekKey() ? 0 : 1;
+            DijkstraWorkspace cur = ws[side];
+            DijkstraWorkspace other = ws[1 - side];
+            int smallest = cur.priQ.extractMinValue();
+            int from = side == 0 ? g.offsets[smallest] : g.inOffsets[smallest];
+            int to = side == 0 ? g.offsets[smallest + 1] : g.inOffsets[smallest + 1];
+            for (int f = from; f < to; f++) {
+                int adjNext = side == 0 ? g.targets[f] : g.inSources[f];
+                int e = side == 0 ? f : g.inEdges[f];
+                int newDist = cur.distance(smallest) + g.weights[e];
+                if (cur.distance(adjNext) <= newDist) {
+                    continue;
+                }
+                int key = key(landmarks, side, adjNext, newDist, src, tgt);
+                if (key == PRUNED) {
+                    continue; //on no src-tgt path
+                }
+                cur.relax(adjNext, newDist, smallest, key);
+                //if the other search got here too, there is a path through adjNext
+                long through = (long) newDist + other.distance(adjNext);
+                if (other.distance(adjNext) != Integer.MAX_VALUE && through < best) {
+                    best = through;
+                    meet = adjNext;
+                }
+            }
+        }
+        return joinPath(ws, meet);
+    }
+    
+    private static final int PRUNED = Integer.MIN_VALUE;
+    
+    //twice the potential of v, PRUNED if the landmarks prove v is on no src-tgt path. Not
+    //cached: the O(k) bound is cheap next to a heap operation, and a cache would cost O(n)
+    private static int potential(Landmarks landmarks, int v, int src, int tgt) {
+        int toTgt = landmarks.lowerBound(v, tgt);
+        int fromSrc = landmarks.lowerBound(src, v);
+        if (toTgt == Landmarks.INF || fromSrc == Landmarks.INF) {
+            return PRUNED;
+        }
+        return toTgt - fromSrc;
+    }
+    
+    //heap key of a node: the distance, or with landmarks twice the distance plus or minus twice
+    //the potential. PRUNED if the node can be skipped
+    private static int key(Landmarks landmarks, int side, int v, int dist, int src, int tgt) {
+        if (landmarks == null) {
+            return dist;
+        }
+        int potential = potential(landmarks, v, src, tgt);
+        if (potential == PRUNED) {
+            return PRUNED;
+        }
+        return 2 * dist + (side == 0 ? potential : -potential);
     }
     
-    //backtrack, stop when reach start. Empty if doesn't have parent, else recurse until reaches end
-    static void backtrack(int src, int[] parents, int cur, List<Integer> shortestPath) {
-        if (cur == src) {
-            shortestPath.add(0,src);
-            return;
-        } else if (parents[cur] == -1) {
-            shortestPath = new ArrayList<Integer>();
-            return;
-        } else {
-            shortestPath.add(0,cur);
-            backtrack(src, parents, parents[cur], shortestPath);
+    //the forward parents from the source to meet, then the backward parents on to the target
+    private static List<Integer> joinPath(DijkstraWorkspace[] ws, int meet) {
+        List<Integer> path = new ArrayList<Integer>();
+        if (meet == -1) {
+            return path;
+        }
+        for (int v : ws[0].pathTo(meet)) {
+            path.add(v);
+        }
+        for (int v = ws[1].parent(meet); v != -1; v = ws[1].parent(v)) {
+            path.add(v);
+        }
+        return path;
+    }
+    
+    //the nodes of a path as a list
+    private static List<Integer> toList(int[] path) {
+        List<Integer> list = new ArrayList<Integer>(path.length);
+        for (int v : path) {
+            list.add(v);
+        }
+        return list;
+    }
+    
+    private static void checkNodes(int n, int src, int tgt) {
+        if (src < 0 || src >= n || tgt < 0 || tgt >= n) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    //Dijkstra settles a node for good once it is the closest open one, which a negative edge
+    //found later could undercut
+    private static void checkWeights(Graph g) {
+        if (g.hasNegativeWeights()) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private static void checkWeights(CsrGraph g) {
+        if (g.hasNegativeWeights()) {
+            throw new IllegalArgumentException();
+        }
+    }
+    
+    //distances from src to every node, or from every node to src if reverse is set.
+    //Integer.MAX_VALUE if there is no path
+    static int[] distances(CsrGraph g, int src, boolean reverse) {
+        checkWeights(g);
+        int n = g.getSize();
+        if (reverse) {
+            g.buildReverse();
+        }
+        DijkstraWorkspace ws = DijkstraWorkspace.get(n, 0);
+        ws.label(src, 0, -1);
+        ws.priQ.add(0, src);
+        while (!ws.priQ.isEmpty()) {
+            int smallest = ws.priQ.extractMinValue();
+            ws.settle(smallest);
+            int from = reverse ? g.inOffsets[smallest] : g.offsets[smallest];
+            int to = reverse ? g.inOffsets[smallest + 1] : g.offsets[smallest + 1];
+            for (int f = from; f < to; f++) {
+                int adjNext = reverse ? g.inSources[f] : g.targets[f];
+                if (!ws.isSettled(adjNext)) {
+                    int newDist = ws.distance(smallest) + g.weights[reverse ? g.inEdges[f] : f];
+                    ws.relax(adjNext, newDist, smallest, newDist);
+                }
+            }
+        }
+        int[] distance = new int[n];
+        for (int v = 0; v < n; v++) {
+            distance[v] = ws.distance(v);
+        }
+        return distance;
+    }
+
+    //marks the targets of an early exit run, null if the run should settle every node
+    private static boolean[] wanted(int n, int src, int[] targets) {
+        if (src < 0 || src >= n) {
+            throw new IllegalArgumentException();
+        }
+        if (targets == null) {
+            return null;
+        }
+        boolean[] wanted = new boolean[n];
+        for (int t : targets) {
+            if (t < 0 || t >= n) {
+                throw new IllegalArgumentException();
+            }
+            wanted[t] = true;
+        }
+        return wanted;
+    }
+
+    //how many distinct targets are left to settle, -1 (never reached) if there is no early exit
+    private static int countWanted(boolean[] wanted) {
+        if (wanted == null) {
+            return -1;
+        }
+        int count = 0;
+        for (boolean w : wanted) {
+            if (w) {
+                count++;
+            }
         }
+        return count;
     }
 }
@@ -0,0 +1,124 @@
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+
+/**
+ * The buffers of one Dijkstra search (distance, parent, settled flag and the heap), kept per
+ * thread and reused from one search to the next.
+ * <p>
+ * Nothing is cleared between searches. Every search gets a new generation number, and a node's
+ * distance and parent only count if the node was stamped with the current generation, so starting
+ * a search is O(1) and the search itself costs O(touched) however large the graph is. The heap is
+ * emptied in O(entries left), which is only more than zero after an early exit.
+ * <p>
+ * A workspace is sized to the largest graph its thread has searched, so the pool only holds it
+ * softly: a long-lived thread that once searched a big graph does not pin its buffers after memory
+ * runs short, and simply allocates new ones on its next search.
+ */
+final class DijkstraWorkspace {
+    //two per thread, so a bidirectional search can keep one for each direction
+    private static final ThreadLocal<SoftReference<DijkstraWorkspace>[]> POOL =
+            new ThreadLocal<SoftReference<DijkstraWorkspace>[]>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                protected SoftReference<DijkstraWorkspace>[] initialValue() {
+                    return new SoftReference[2];
+                }
+            };
+
+    final IndexedIntMinHeap priQ;
+    private final int[] distance;
+    private final int[] parent;
+    private final int[] reached; //reached[v] == generation if v has a distance in this search
+    private final int[] settled; //settled[v] == generation if v is final in this search
+    int generation; //not private, so a test can wind it up to the wrap-around
+
+    private DijkstraWorkspace(int capacity) {
+        priQ = new IndexedIntMinHeap(capacity, 4);
+        distance = new int[capacity];
+        parent = new int[capacity];
+        reached = new int[capacity];
+        settled = new int[capacity];
+    }
+
+    /**
+     * Hands out one of the calling thread's workspaces, ready for a new search. It is only
+     * reallocated when a graph with more nodes than it can hold comes along, or after the garbage
+     * collector reclaimed it.
+     *
+     * @param n    the number of nodes of the graph to search
+     * @param slot 0 or 1, which of the thread's two workspaces to use
+     * @return the workspace, every node unreached
+     */
+    static DijkstraWorkspace get(int n, int slot) {
+        SoftReference<DijkstraWorkspace>[] pool = POOL.get();
+        DijkstraWorkspace ws = pool[slot] == null ? null : pool[slot].get();
+        if (ws == null || ws.distance.length < n) {
+            ws = new DijkstraWorkspace(n);
+            pool[slot] = new SoftReference<DijkstraWorkspace>(ws);
+        }
+        ws.begin();
+        return ws;
+    }
+
+    private void begin() {
+        priQ.clear();
+        generation++;
+        if (generation == 0) { //wrapped around, stamps from long ago could look current
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            generation = 1;
+        }
+    }
+
+    //Integer.MAX_VALUE if v has not been reached in this search
+    int distance(int v) {
+        return reached[v] == generation ? distance[v] : Integer.MAX_VALUE;
+    }
+
+    //-1 if v has not been reached in this search or is the source
+    int parent(int v) {
+        return reached[v] == generation ? parent[v] : -1;
+    }
+
+    void label(int v, int dist, int par) {
+        distance[v] = dist;
+        parent[v] = par;
+        reached[v] = generation;
+    }
+
+    boolean isSettled(int v) {
+        return settled[v] == generation;
+    }
+
+    void settle(int v) {
+        settled[v] = generation;
+    }
+
+    //takes dist as v's distance if it is shorter than the one v has, queueing v under key.
+    //Returns whether v's distance changed
+    boolean relax(int v, int dist, int par, int key) {
+        if (distance(v) <= dist) {
+            return false;
+        }
+        if (priQ.containsValue(v)) {
+            priQ.decreaseKey(v, key);
+        } else {
+            priQ.add(key, v);
+        }
+        label(v, dist, par);
+        return true;
+    }
+
+    //the nodes from the root of the parent pointers to v, in order
+    int[] pathTo(int v) {
+        int length = 0;
+        for (int x = v; x != -1; x = parent(x)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int x = v, i = length - 1; x != -1; x = parent(x), i--) {
+            path[i] = x;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,308 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The edges of a text edge-list file, one {@code u v} or {@code u v weight} line per edge, held in
+ * growable primitive arrays.
+ * <p>
+ * {@link #read(File)} makes a single pass over the file through a large buffer and parses
+ * the integers byte by byte, so no String or boxed Integer is made per line. Tokens can be
+ * separated by spaces or tabs, lines ending in {@code \n} or {@code \r\n}, and lines starting with
+ * {@code #} (the header of SNAP files) are skipped.
+ * <p>
+ * The third column is a path length, so it must not be negative, with one exception: a column of
+ * only 1 and -1, with at least one -1, is the sign of the edges of a signed network (like
+ * {@code tribes.txt}, friend or enemy). It is kept apart as {@link #getSign(int)}, and the file is
+ * treated as unweighted.
+ */
+public class EdgeList {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    int count; //number of edges read
+    int[] sources = new int[1024];
+    int[] targets = new int[1024];
+    int[] weights = new int[1024];
+    boolean weighted; //true if every line had a weight column
+    int[] signs; //sign of every edge of a signed network, null if the file is not one
+    int maxNode = -1; //largest node id seen
+
+    /**
+     * @return the number of edges in the file
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of nodes needed to hold every id seen, the largest id plus one
+     */
+    public int getSize() {
+        return maxNode + 1;
+    }
+
+    /**
+     * @return true if every line of the file had a weight column
+     */
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    /**
+     * @return true if the third column was the sign of every edge rather than its weight
+     */
+    public boolean isSigned() {
+        return signs != null;
+    }
+
+    /**
+     * @param i the line of the edge, counting edge lines only, from 0
+     * @return the sign of the edge on that line, 1 or -1
+     * @throws IllegalArgumentException if the file is not signed or {@code i} is out of range
+     */
+    public int getSign(int i) {
+        if (signs == null || i < 0 || i >= count) {
+            throw new IllegalArgumentException();
+        }
+        return signs[i];
+    }
+
+    /**
+     * Replaces every weight with a random weight 0 <= weight < 100.
+     *
+     * @param rnd where the weights come from, seed it to get the same weights every run
+     */
+    public void randomizeWeights(Random rnd) {
+        for (int i = 0; i < count; i++) {
+            weights[i] = rnd.nextInt(100);
+        }
+    }
+
+    /**
+     * Adds every edge to a new graph with {@link #getSize()} nodes. Like
+     * {@link Graph#addEdge(int, int, int)}, only the first of several {@code u-v} lines is kept.
+     *
+     * @return the graph
+     * @throws IllegalArgumentException if no edges were read, or some weight is negative
+     */
+    public Graph toGraph() {
+        checkWeights();
+        Graph g = new Graph(getSize());
+        for (int i = 0; i < count; i++) {
+            g.addEdge(sources[i], targets[i], weights[i]);
+        }
+        return g;
+    }
+
+    /**
+     * Builds a CSR snapshot straight from the edges, without going through {@link Graph}. Only the
+     * first of several {@code u-v} lines is kept.
+     * <p>
+     * Runtime: O(n + m lg(maxdeg))
+     *
+     * @return the snapshot
+     * @throws IllegalArgumentException if some weight is negative
+     */
+    public CsrGraph toCsrGraph() {
+        checkWeights();
+        int n = getSize();
+        //counting sort by source, stable so the first line of every u-v comes first
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[sources[i] + 1]++;
+        }
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++) {
+            maxDegree = Math.max(maxDegree, offsets[v + 1]);
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[next[sources[i]]++] = i;
+        }
+
+        //sort each run by (target, line) and keep the first line of every target
+        long[] keys = new long[maxDegree];
+        int[] outOffsets = new int[n + 1];
+        int[] outTargets = new int[count];
+        int[] outWeights = new int[count];
+        int m = 0;
+        for (int v = 0; v < n; v++) {
+            int deg = offsets[v + 1] - offsets[v];
+            for (int k = 0; k < deg; k++) {
+                keys[k] = ((long) targets[order[offsets[v] + k]] << 32) | k;
+            }
+            Arrays.sort(keys, 0, deg);
+            for (int k = 0; k < deg; k++) {
+                int t = (int) (keys[k] >>> 32);
+                if (m > outOffsets[v] && outTargets[m - 1] == t) {
+                    continue; //a later line for the same edge
+                }
+                outTargets[m] = t;
+                outWeights[m] = weights[order[offsets[v] + (int) keys[k]]];
+                m++;
+            }
+            outOffsets[v + 1] = m;
+        }
+        return new CsrGraph(outOffsets, Arrays.copyOf(outTargets, m),
+                Arrays.copyOf(outWeights, m));
+    }
+
+    /**
+     * Reads an edge-list file in one pass.
+     *
+     * @param in the file to read
+     * @return the edges of the file
+     * @throws IOException if the file cannot be read, has a line with other than two or three
+     *                     integers, a negative node id or weight, a node id of
+     *                     {@code Integer.MAX_VALUE}, or mixes lines with and without weights
+     */
+    public static EdgeList read(File in) throws IOException {
+        EdgeList edges = new EdgeList();
+        FileInputStream stream = new FileInputStream(in);
+        try {
+            FileChannel channel = stream.getChannel();
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] bytes = buf.array(); //scanned directly, no per-byte buffer calls
+            int[] line = new int[3]; //integers of the current line
+            int columns = 0; //integers finished on the current line
+            long value = 0; //integer being parsed
+            boolean negative = false;
+            boolean inNumber = false;
+            boolean digits = false; //the integer being parsed has a digit, not just a '-'
+            boolean comment = false;
+            int lineNo = 1;
+            int sawWeights = -1; //-1 until the first line, then 0 or 1
+            int firstNegative = -1; //line of the first negative weight
+            boolean onlySigns = true; //every weight so far is 1 or -1
+            boolean eof = false;
+            while (!eof) {
+                buf.clear();
+                eof = channel.read(buf) == -1;
+                buf.flip();
+                int limit = eof ? buf.limit() + 1 : buf.limit(); //one extra '\n' ends the last line
+                for (int i = 0; i < limit; i++) {
+                    byte b = i < buf.limit() ? bytes[i] : (byte) '\n';
+                    if (b == '\n') {
+                        if (inNumber) {
+                            columns = finish(line, columns, value, negative, digits, lineNo);
+                            inNumber = false;
+                        }
+                        if (columns != 0) {
+                            sawWeights = edges.add(line, columns, sawWeights, lineNo);
+                            if (columns == 3) {
+                                if (line[2] < 0 && firstNegative == -1) {
+                                    firstNegative = lineNo;
+                                }
+                                onlySigns &= line[2] == 1 || line[2] == -1;
+                            }
+                        }
+                        columns = 0;
+                        comment = false;
+                        lineNo++;
+                    } else if (comment) {
+                        continue;
+                    } else if (b >= '0' && b <= '9') {
+                        if (!inNumber) {
+                            inNumber = true;
+                            value = 0;
+                            negative = false;
+                        }
+                        digits = true;
+                        value = value * 10 + (b - '0');
+                        if (value > Integer.MAX_VALUE + 1L) {
+                            throw new IOException("line " + lineNo + ": integer too large");
+                        }
+                    } else if (b == '-' && !inNumber) {
+                        inNumber = true;
+                        value = 0;
+                        negative = true;
+                        digits = false;
+                    } else if (b == ' ' || b == '\t' || b == '\r' || b == ',') {
+                        if (inNumber) {
+                            columns = finish(line, columns, value, negative, digits, lineNo);
+                            inNumber = false;
+                        }
+                    } else if (b == '#' && columns == 0 && !inNumber) {
+                        comment = true;
+                    } else {
+                        throw new IOException("line " + lineNo + ": unexpected '" + (char) b + "'");
+                    }
+                }
+            }
+            edges.weighted = sawWeights == 1;
+            if (firstNegative != -1) {
+                if (!onlySigns) {
+                    throw new IOException("line " + firstNegative + ": negative weight");
+                }
+                //a sign column, not a length: keep it apart and let the caller draw weights
+                edges.signs = Arrays.copyOf(edges.weights, edges.count);
+                Arrays.fill(edges.weights, 0, edges.count, 0);
+                edges.weighted = false;
+            }
+        } finally {
+            stream.close();
+        }
+        return edges;
+    }
+
+    //weights are path lengths, shortest path algorithms cannot handle negative ones
+    private void checkWeights() {
+        for (int i = 0; i < count; i++) {
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException();
+            }
+        }
+    }
+
+    //stores the integer just parsed as the next column of the line
+    private static int finish(int[] line, int columns, long value, boolean negative,
+            boolean digits, int lineNo) throws IOException {
+        if (!digits) {
+            throw new IOException("line " + lineNo + ": '-' without a number");
+        }
+        if (columns == 3) {
+            throw new IOException("line " + lineNo + ": more than three columns");
+        }
+        long signed = negative ? -value : value;
+        if (signed > Integer.MAX_VALUE) {
+            throw new IOException("line " + lineNo + ": integer too large");
+        }
+        line[columns] = (int) signed;
+        return columns + 1;
+    }
+
+    //appends the edge of a finished line, returns whether lines so far have had weights
+    private int add(int[] line, int columns, int sawWeights, int lineNo) throws IOException {
+        if (columns < 2) {
+            throw new IOException("line " + lineNo + ": expected two or three columns");
+        }
+        int hasWeight = columns == 3 ? 1 : 0;
+        if (sawWeights != -1 && sawWeights != hasWeight) {
+            throw new IOException("line " + lineNo + ": some lines have weights and some do not");
+        }
+        if (line[0] < 0 || line[1] < 0) {
+            throw new IOException("line " + lineNo + ": negative node id");
+        }
+        if (line[0] == Integer.MAX_VALUE || line[1] == Integer.MAX_VALUE) {
+            //the graph would need one node more than an int can count
+            throw new IOException("line " + lineNo + ": node id too large");
+        }
+        if (count == sources.length) {
+            sources = Arrays.copyOf(sources, count * 2);
+            targets = Arrays.copyOf(targets, count * 2);
+            weights = Arrays.copyOf(weights, count * 2);
+        }
+        sources[count] = line[0];
+        targets[count] = line[1];
+        weights[count] = hasWeight == 1 ? line[2] : 0;
+        maxNode = Math.max(maxNode, Math.max(line[0], line[1]));
+        count++;
+        return hasWeight;
+    }
+}
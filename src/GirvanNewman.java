@@ -0,0 +1,374 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the Girvan-Newman community detection algorithm to completion in a single pass.
+ * <p>
+ * The edge with the highest betweeness is removed over and over, with the betweeness kept up to
+ * date by {@link IncrementalBetweeness}. Communities are the weakly connected components of what is
+ * left of the graph, tracked by the same {@link Components} the betweeness updates use, so a
+ * removal only searches near the removed edge once and only the smaller part of a split is
+ * relabelled. The modularity of the partition is
+ * measured against the original graph, and every split is recorded so the whole dendrogram can be
+ * read back at the end.
+ */
+final public class GirvanNewman {
+    private GirvanNewman() {}
+
+    /**
+     * One split of the dendrogram: removing an edge broke community {@code parent} in two, and the
+     * smaller part became the new community {@code child}.
+     */
+    public static class Split {
+        public final int removal; //how many edges had been removed, including this one
+        public final int u;
+        public final int v;
+        public final double betweeness; //betweeness of u-v when it was removed
+        public final int parent;
+        public final int child;
+        public final int communities; //number of communities after the split
+        public final double modularity; //modularity after the split
+
+        Split(int removal, int u, int v, double betweeness, int parent, int child, int communities,
+                double modularity) {
+            this.removal = removal;
+            this.u = u;
+            this.v = v;
+            this.betweeness = betweeness;
+            this.parent = parent;
+            this.child = child;
+            this.communities = communities;
+            this.modularity = modularity;
+        }
+    }
+
+    /**
+     * The outcome of a run.
+     */
+    public static class Result {
+        public final List<int[]> removedEdges; //{u, v} of every removed edge, in order
+        public final List<Split> dendrogram; //every split, in order
+        public final int[] bestPartition; //community of every node in the best partition
+        public final double bestModularity;
+
+        Result(List<int[]> removedEdges, List<Split> dendrogram, int[] bestPartition,
+                double bestModularity) {
+            this.removedEdges = removedEdges;
+            this.dendrogram = dendrogram;
+            this.bestPartition = bestPartition;
+            this.bestModularity = bestModularity;
+        }
+    }
+
+    /**
+     * Removes edges until none are left. Removed edges are deleted from {@code g}.
+     *
+     * @param g the graph to split, must have no negative-weighted edges
+     * @return the dendrogram and the partition with the highest modularity
+     * @throws IllegalArgumentException if some edge weight is negative
+     */
+    public static Result run(Graph g) {
+        return run(g, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes edges until none are left, {@code maxRemovals} edges have been removed, or there are
+     * {@code maxCommunities} communities. Removed edges are deleted from {@code g}.
+     * <p>
+     * Runtime: the cost of the incremental betweeness updates, plus the split detection of
+     * {@link Components#removeEdge(int)} per removal
+     *
+     * @param g              the graph to split, must have no negative-weighted edges
+     * @param maxRemovals    the most edges to remove
+     * @param maxCommunities stop as soon as there are this many communities
+     * @return the dendrogram and the partition with the highest modularity
+     * @throws IllegalArgumentException if some edge weight is negative
+     */
+    public static Result run(Graph g, int maxRemovals, int maxCommunities) {
+        return run(g, maxRemovals, maxCommunities, 1);
+    }
+
+    /**
+     * Same as {@link #run(Graph, int, int)}, but removes the {@code batch} edges with the highest
+     * betweeness in each round, see {@link IncrementalBetweeness#removeTopEdges(int)}. Bigger
+     * batches mean fewer betweeness updates but a coarser dendrogram. The last round may overshoot
+     * {@code maxCommunities}, but never {@code maxRemovals}.
+     *
+     * @param g              the graph to split, must have no negative-weighted edges
+     * @param maxRemovals    the most edges to remove
+     * @param maxCommunities stop as soon as there are this many communities
+     * @param batch          how many edges to remove per round
+     * @return the dendrogram and the partition with the highest modularity
+     * @throws IllegalArgumentException if {@code batch} is not positive, or some edge weight is
+     *                                  negative
+     */
+    public static Result run(Graph g, int maxRemovals, int maxCommunities, int batch) {
+        return run(g, maxRemovals, maxCommunities, batch, null);
+    }
+
+    /**
+     * Same as {@link #run(Graph, int, int, int)}, counting progress in {@code metrics}: every
+     * betweeness source run, see {@link IncrementalBetweeness}, and the time spent on the
+     * communities and their modularity as the {@code communities} phase. Finding out whether a
+     * removal split a community is part of the {@code updates} phase, which needs it too.
+     *
+     * @param g              the graph to split, must have no negative-weighted edges
+     * @param maxRemovals    the most edges to remove
+     * @param maxCommunities stop as soon as there are this many communities
+     * @param batch          how many edges to remove per round
+     * @param metrics        where to count progress, or null
+     * @return the dendrogram and the partition with the highest modularity
+     * @throws IllegalArgumentException if {@code batch} is not positive, or some edge weight is
+     *                                  negative
+     */
+    public static Result run(Graph g, int maxRemovals, int maxCommunities, int batch,
+            BetweenessMetrics metrics) {
+        if (batch <= 0 || g.hasNegativeWeights()) {
+            throw new IllegalArgumentException();
+        }
+        Run run = new Run(g, new CsrGraph(g), maxRemovals, maxCommunities, metrics, new int[0],
+                new double[0]);
+        while (run.round(batch).length > 0) {
+            //keep removing
+        }
+        return run.result();
+    }
+
+    /**
+     * Same as {@link #run(Graph, int, int, int, BetweenessMetrics)}, saving a {@link Checkpoint}
+     * with every removed edge to {@code checkpoint} after each round. If the file already holds a
+     * checkpoint of {@code g}, the run resumes from it: the saved removals are deleted from
+     * {@code g} and replayed into the dendrogram, the betweeness of what is left is computed once,
+     * and the run carries on from there. {@code maxRemovals} counts the replayed edges too.
+     * <p>
+     * The dendrogram, modularity and best partition of a resumed run are the same as if it had
+     * never stopped. The betweeness it goes on with is computed afresh rather than updated, so it
+     * can differ from the uninterrupted run in the last bits, which only matters for edges that
+     * tie.
+     *
+     * @param g              the graph to split, as loaded before any removal, must have no
+     *                       negative-weighted edges
+     * @param maxRemovals    the most edges to remove
+     * @param maxCommunities stop as soon as there are this many communities
+     * @param batch          how many edges to remove per round
+     * @param metrics        where to count progress, or null
+     * @param checkpoint     where the checkpoint is kept, or null for none
+     * @param seed           the seed the weights of {@code g} were drawn with, saved in the
+     *                       checkpoint
+     * @return the dendrogram and the partition with the highest modularity
+     * @throws IOException              if the checkpoint cannot be read or written
+     * @throws IllegalArgumentException if {@code batch} is not positive, some edge weight is
+     *                                  negative, or {@code checkpoint} holds a checkpoint of
+     *                                  another graph or seed
+     */
+    public static Result run(Graph g, int maxRemovals, int maxCommunities, int batch,
+            BetweenessMetrics metrics, File checkpoint, long seed) throws IOException {
+        if (batch <= 0 || g.hasNegativeWeights()) {
+            throw new IllegalArgumentException();
+        }
+        CsrGraph csr = new CsrGraph(g);
+        Checkpoint cp = null;
+        int[] replay = new int[0];
+        if (checkpoint != null) {
+            if (checkpoint.exists()) {
+                cp = Checkpoint.read(checkpoint);
+                cp.checkGraph(csr, seed, Brandes.Mode.WEIGHTED);
+                List<int[]> saved = cp.getRemovedEdges();
+                replay = new int[saved.size()];
+                for (int i = 0; i < replay.length; i++) {
+                    replay[i] = csr.edgeId(saved.get(i)[0], saved.get(i)[1]);
+                    if (replay[i] == -1) {
+                        throw new IOException("corrupt checkpoint: " + checkpoint);
+                    }
+                }
+            } else {
+                cp = new Checkpoint(csr, seed, Brandes.Mode.WEIGHTED, false);
+            }
+        }
+        double[] replayBetweeness = new double[replay.length];
+        for (int i = 0; i < replay.length; i++) {
+            replayBetweeness[i] = cp.getRemovedBetweeness(i);
+        }
+        Run run = new Run(g, csr, maxRemovals, maxCommunities, metrics, replay, replayBetweeness);
+        int[] round;
+        while ((round = run.round(batch)).length > 0) {
+            if (cp != null) {
+                for (int r = 0; r < round.length; r++) {
+                    cp.addRemoved(csr.source(round[r]), csr.target(round[r]), run.betweeness[r]);
+                }
+                cp.write(checkpoint);
+            }
+        }
+        return run.result();
+    }
+
+    //the state of one run: the betweeness being kept up to date and the communities, advanced a
+    //round at a time so the caller can save what each round removed. The communities hear of
+    //every split from the betweeness updates, which track the components for both
+    private static class Run implements IncrementalBetweeness.SplitListener {
+        final CsrGraph csr;
+        final IncrementalBetweeness inc;
+        final Partition p;
+        final int maxRemovals;
+        final int maxCommunities;
+        final BetweenessMetrics metrics;
+        double[] betweeness = new double[0]; //of the edges the last round removed
+        int heard; //how many of them the partition has been told about
+
+        //starts on snapshot csr of g with the replay edges, which had the given betweeness,
+        //already removed in that order
+        Run(Graph g, CsrGraph csr, int maxRemovals, int maxCommunities,
+                BetweenessMetrics metrics, int[] replay, double[] replayBetweeness) {
+            this.csr = csr;
+            this.maxRemovals = maxRemovals;
+            this.maxCommunities = maxCommunities;
+            this.metrics = metrics;
+            long begin = System.nanoTime();
+            Components components = new Components(csr);
+            p = new Partition(csr, components);
+            for (int i = 0; i < replay.length; i++) {
+                p.remove(replay[i], replayBetweeness[i]);
+            }
+            if (metrics != null) {
+                metrics.phase("communities", begin);
+            }
+            inc = new IncrementalBetweeness(g, csr, Brandes.Mode.WEIGHTED, metrics, replay,
+                    IncrementalBetweeness.MAX_TRACKED_BITS, components);
+            inc.splits = this;
+        }
+
+        //removes the next (at most) batch edges, returns their ids, none once the run is over
+        int[] round(int batch) {
+            if (p.removedEdges.size() >= maxRemovals || p.components.getCount() >= maxCommunities) {
+                return new int[0];
+            }
+            int[] round = inc.topEdgeIds(Math.min(batch, maxRemovals - p.removedEdges.size()));
+            betweeness = new double[round.length];
+            for (int i = 0; i < round.length; i++) {
+                betweeness[i] = inc.score(round[i]);
+            }
+            heard = 0;
+            inc.removeEdges(round); //every affected source is rerun once for the whole round
+            return round;
+        }
+
+        @Override
+        public void removed(int e, int parent, int child) {
+            long begin = System.nanoTime();
+            p.removed(e, parent, child, betweeness[heard++]);
+            if (metrics != null) {
+                metrics.phase("communities", begin);
+            }
+        }
+
+        Result result() {
+            return new Result(p.removedEdges, p.dendrogram, p.best, p.bestModularity);
+        }
+    }
+
+    //the communities of a run and their modularity, against the original graph, updated one
+    //removed edge at a time
+    private static class Partition {
+        final CsrGraph csr;
+        final Components components;
+        final double m;
+        //per community sums modularity needs: edges inside the community, and total out and in
+        //degree of its members
+        final long[] internal;
+        final long[] outDeg;
+        final long[] inDeg;
+        double modularity;
+        final List<int[]> removedEdges = new ArrayList<int[]>();
+        final List<Split> dendrogram = new ArrayList<Split>();
+        int[] best;
+        double bestModularity;
+
+        //starts from components, of csr with nothing removed yet
+        Partition(CsrGraph csr, Components components) {
+            this.csr = csr;
+            this.components = components;
+            int n = csr.getSize();
+            m = csr.getEdgeCount();
+            internal = new long[n];
+            outDeg = new long[n];
+            inDeg = new long[n];
+            int[] label = components.labels();
+            for (int x = 0; x < n; x++) {
+                outDeg[label[x]] += csr.offsets[x + 1] - csr.offsets[x];
+                inDeg[label[x]] += csr.inOffsets[x + 1] - csr.inOffsets[x];
+                for (int e = csr.offsets[x]; e < csr.offsets[x + 1]; e++) {
+                    if (label[csr.targets[e]] == label[x]) {
+                        internal[label[x]]++;
+                    }
+                }
+            }
+            for (int c = 0; c < components.getCount(); c++) {
+                modularity += term(internal[c], outDeg[c], inDeg[c], m);
+            }
+            best = label;
+            bestModularity = modularity;
+        }
+
+        //removes edge e, which had the given betweeness, from the components and records it
+        void remove(int e, double betweeness) {
+            int parent = components.component(csr.source(e));
+            removed(e, parent, components.removeEdge(e), betweeness);
+        }
+
+        //records the removal of edge e, which had the given betweeness and split component parent
+        //into it and child, or nothing if child is -1
+        void removed(int e, int parent, int child, double betweeness) {
+            int u = csr.source(e);
+            int v = csr.target(e);
+            removedEdges.add(new int[] {u, v});
+            if (child == -1) {
+                return; //u still reaches v, nothing split
+            }
+            //fix up both communities' sums from the nodes that moved to the new one
+            int[] moved = components.members(child);
+            long childInternal = 0;
+            long crossing = 0; //original edges between the two sides
+            for (int x : moved) {
+                outDeg[child] += csr.offsets[x + 1] - csr.offsets[x];
+                inDeg[child] += csr.inOffsets[x + 1] - csr.inOffsets[x];
+                for (int f = csr.offsets[x]; f < csr.offsets[x + 1]; f++) {
+                    int y = components.component(csr.targets[f]);
+                    if (y == child) {
+                        childInternal++;
+                    } else if (y == parent) {
+                        crossing++;
+                    }
+                }
+                for (int f = csr.inOffsets[x]; f < csr.inOffsets[x + 1]; f++) {
+                    if (components.component(csr.inSources[f]) == parent) {
+                        crossing++;
+                    }
+                }
+            }
+            modularity -= term(internal[parent], outDeg[parent], inDeg[parent], m);
+            internal[parent] -= childInternal + crossing;
+            outDeg[parent] -= outDeg[child];
+            inDeg[parent] -= inDeg[child];
+            internal[child] = childInternal;
+            modularity += term(internal[parent], outDeg[parent], inDeg[parent], m)
+                    + term(internal[child], outDeg[child], inDeg[child], m);
+
+            dendrogram.add(new Split(removedEdges.size(), u, v, betweeness, parent, child,
+                    components.getCount(), modularity));
+            if (modularity > bestModularity) {
+                bestModularity = modularity;
+                best = components.labels();
+            }
+        }
+    }
+
+    //directed modularity contribution of one community
+    static double term(long internal, long outDeg, long inDeg, double m) {
+        if (m == 0) {
+            return 0.0;
+        }
+        return internal / m - (outDeg * (double) inDeg) / (m * m);
+    }
+}
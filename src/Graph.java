@@ -1,13 +1,12 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.util.Random;
 import java.util.Set;
 
 /**
@@ -27,12 +26,19 @@ import java.util.Set;
  * Notice that this class also supports undirected graph. Which means you can implement an
  * undirected graph as each undirected edge between u and v being two directed edge from u to v and
  * from v to u.
+ * <p>
+ * A graph is not safe to change while other threads read it. For queries that run while edges are
+ * being added and deleted, use a {@link ConcurrentGraph}.
  */
 public class Graph {
     //list of nodes' hashMap adjacency lists
     private ArrayList<HashMap<Integer, Integer>> totList;
-    private ArrayList<HashMap<Integer, Integer>> betweeness;
-    private HashMap<Integer, ArrayList<Integer>> strongTies;
+    //reverse adjacency lists: inList.get(v) maps every u with a u-v edge to its weight
+    private ArrayList<HashMap<Integer, Integer>> inList;
+    private ArrayList<HashMap<Integer, Double>> betweeness;
+    private TieIndex ties; //strong ties, null until assignTies or buildTieIndex is called
+    private Triangles triangles; //counts triadic last found, null once an edge or the ties change
+    private int negativeEdges; //edges with a negative weight, which Dijkstra cannot handle
     
     /**
      * Initializes a graph of size {@code n}. All valid vertices in this graph thus have integer
@@ -49,12 +55,12 @@ public class Graph {
             throw new IllegalArgumentException();
         }
         totList = new ArrayList<HashMap<Integer,Integer>>(n); //size of adj list
-        betweeness = new ArrayList<HashMap<Integer,Integer>>(n); //size of adj list
-        strongTies = new HashMap<Integer, ArrayList<Integer>>(n);
+        inList = new ArrayList<HashMap<Integer,Integer>>(n);
+        betweeness = new ArrayList<HashMap<Integer,Double>>(n); //size of adj list
         for (int i = 0; i < n; i++) { //O(n) time to go through each of n nodes
             totList.add(new HashMap<Integer, Integer>()); //add adj list for each node
-            betweeness.add(new HashMap<Integer, Integer>()); //add adj list for each node
-//            strongTies.put(new HashMap<Integer, Integer>());
+            inList.add(new HashMap<Integer, Integer>());
+            betweeness.add(new HashMap<Integer, Double>()); //add adj list for each node
         }
     }
     
@@ -122,19 +128,23 @@ public class Graph {
         return (totList.get(u).get(v)); //constant to get weight
     }
     
+    //true if some edge has a negative weight, which the shortest path algorithms reject
+    boolean hasNegativeWeights() {
+        return negativeEdges > 0;
+    }
+
     /**
-     * Returns the weight of an the directed edge {@code u-v}.
-     * <p/>
-     * Do NOT modify this method header.
+     * Returns the betweeness of the directed edge {@code u-v}, as last computed by
+     * {@link #populateBetweeness(Graph)}. Ties between shortest paths are split fractionally.
      *
      * @param u source vertex
      * @param v target vertex
-     * @return the edge weight of {@code u-v}
+     * @return the edge betweeness of {@code u-v}
      * @throws NoSuchElementException   if the {@code u-v} edge does not exist
      * @throws IllegalArgumentException if a specified vertex does not exist
      * @implSpec This method should run in O(1) time.
      */
-    public int getBetweeness(int u, int v) {
+    public double getBetweeness(int u, int v) {
         //checks in constant time using hasEdge constant method
         if (!hasEdge(u,v)) {
             throw new NoSuchElementException();
@@ -171,11 +181,20 @@ public class Graph {
         if (totList.size() <= v || v < 0) {
             throw new IllegalArgumentException();
         }
-        if (hasEdge(u,v)) { //checks if edge exists in constant time then does not modify
+        HashMap<Integer, Integer> out = totList.get(u);
+        if (out.containsKey(v)) { //bounds already checked, so no second pass through hasEdge
             return false;
         } else { //constant time to add edge, and return true
-            totList.get(u).put(v, weight);
-            betweeness.get(u).put(v, 0);
+            out.put(v, weight);
+            inList.get(v).put(u, weight);
+            betweeness.get(u).put(v, 0.0);
+            if (weight < 0) {
+                negativeEdges++;
+            }
+            if (ties != null) {
+                ties.edgeAdded(u, v); //classifies just this edge
+            }
+            triangles = null;
             return true;
         }
     }
@@ -202,15 +221,107 @@ public class Graph {
         if (totList.size() <= v || v < 0) {
             throw new IllegalArgumentException();
         }
-        if (!hasEdge(u,v)) { //checks if edge exists in constant time then does not modify
+        Integer weight = totList.get(u).remove(v); //removes it if it is there, in one lookup
+        if (weight == null) {
             return false;
-        } else { //constant time to add edge, and return true
-            totList.get(u).remove(v);
+        } else {
+            if (weight < 0) {
+                negativeEdges--;
+            }
+            inList.get(v).remove(u);
             betweeness.get(u).remove(v);
+            if (ties != null) {
+                ties.edgeDeleted(u, v);
+            }
+            triangles = null;
             return true;
         }
     }
 
+    /**
+     * Applies every insertion and deletion of {@code batch}, leaving the edges and weights as
+     * calling {@link #addEdge(int, int, int)} and {@link #deleteEdge(int, int)} for them in batch
+     * order would. Every vertex is checked before anything changes, so a bad batch leaves the
+     * graph as it was. The changes are applied grouped by source vertex.
+     * <p>
+     * A tie index, if the graph has one, is updated once the whole batch is in: edge by edge, or
+     * by {@link TieIndex#rebuild()} if the batch changed so many edges that classifying them all
+     * again is cheaper, see {@link TieIndex#isRebuildCheaper(int)}. A classifier that looks at the
+     * rest of the graph, like neighborhood overlap, so judges the new edges against the graph after
+     * the batch, and after a rebuild every other edge too, where one call at a time would have
+     * judged each edge against the graph as it was then. Weight thresholds give the same ties
+     * either way.
+     * <p>
+     * Runtime: O(n + k) expected for k changes, plus the tie index updates
+     *
+     * @param batch the changes to apply
+     * @return the number of changes that changed the graph
+     * @throws IllegalArgumentException if a change names a vertex that does not exist
+     */
+    public int apply(EdgeBatch batch) {
+        int n = getSize();
+        batch.check(n);
+        int changed = 0;
+        int[] log = new int[batch.size()]; //the changes that changed the graph, in order
+        int[] order = batch.order(n);
+        int u = -1;
+        HashMap<Integer, Integer> out = null;
+        HashMap<Integer, Double> outBetweeness = null;
+        for (int i : order) {
+            if (batch.source(i) != u) { //order is grouped by source, look its maps up once
+                u = batch.source(i);
+                out = totList.get(u);
+                outBetweeness = betweeness.get(u);
+            }
+            int v = batch.target(i);
+            if (batch.isDelete(i)) {
+                Integer weight = out.remove(v);
+                if (weight != null) {
+                    if (weight < 0) {
+                        negativeEdges--;
+                    }
+                    inList.get(v).remove(u);
+                    outBetweeness.remove(v);
+                    log[changed++] = i;
+                }
+            } else if (!out.containsKey(v)) {
+                out.put(v, batch.weight(i));
+                inList.get(v).put(u, batch.weight(i));
+                if (batch.weight(i) < 0) {
+                    negativeEdges++;
+                }
+                outBetweeness.put(v, 0.0);
+                log[changed++] = i;
+            }
+        }
+        if (changed > 0) {
+            if (ties != null) {
+                updateTies(batch, log, changed);
+            }
+            triangles = null;
+        }
+        return changed;
+    }
+
+    //tells the tie index about the first count changes of log, once they are all applied. Every
+    //edge's changes are in batch order, since they share a source, and an edge added and deleted
+    //again within the batch is only deleted
+    private void updateTies(EdgeBatch batch, int[] log, int count) {
+        if (ties.isRebuildCheaper(count)) {
+            ties.rebuild();
+            return;
+        }
+        for (int k = 0; k < count; k++) {
+            int u = batch.source(log[k]);
+            int v = batch.target(log[k]);
+            if (batch.isDelete(log[k])) {
+                ties.edgeDeleted(u, v);
+            } else if (hasEdge(u, v)) {
+                ties.edgeAdded(u, v);
+            }
+        }
+    }
+
     /**
      * Returns the out-neighbors of the specified vertex.
      * <p/>
@@ -218,7 +329,7 @@ public class Graph {
      *
      * @param v the vertex
      * @return all out neighbors of the specified vertex or an empty set if there are no out
-     * neighbors
+     * neighbors, as a read-only view that follows later changes
      * @throws IllegalArgumentException if the specified vertex does not exist
      * @implSpec This method should run in O(outdeg(v)) time.
      */
@@ -227,157 +338,212 @@ public class Graph {
         if (totList.size() <= v || v < 0) {
             throw new IllegalArgumentException();
         }
-        return totList.get(v).keySet(); //O(outdeg(v)) to go through keys of v (v's adjacent nodes)
+        //O(outdeg(v)) to go through keys of v (v's adjacent nodes), read only so callers cannot
+        //desynchronize the adjacency, reverse and betweeness maps
+        return Collections.unmodifiableSet(totList.get(v).keySet());
     }
     
     /**
-     * Method called in constructor of graph that reads in a file and converts the lines into a 
-     * LinkedList of all the Nodes in (and not in) the file.
-     * 
-     * @param Takes in file
-     * @returns a linked list of all the nodes
-     * @throws IOException
+     * Returns the in-neighbors of the specified vertex, kept up to date by
+     * {@link #addEdge(int, int, int)} and {@link #deleteEdge(int, int)}.
+     *
+     * @param v the vertex
+     * @return all in neighbors of the specified vertex or an empty set if there are no in
+     * neighbors, as a read-only view that follows later changes
+     * @throws IllegalArgumentException if the specified vertex does not exist
+     * @implSpec This method should run in O(indeg(v)) time.
+     */
+    public Set<Integer> inNeighbors(int v) {
+        if (totList.size() <= v || v < 0) {
+            throw new IllegalArgumentException();
+        }
+        return Collections.unmodifiableSet(inList.get(v).keySet());
+    }
+    
+    /**
+     * Reads an edge-list file of {@code u v} or {@code u v weight} lines into a graph with one node
+     * for every id up to the largest one in the file. If the file has a weight column its weights
+     * are used, otherwise every edge gets a random weight 0 <= weight < 100. A third column of
+     * signs, like the friend or enemy column of {@code tribes.txt}, is not a weight, see
+     * {@link EdgeList}, and the edges get random weights too.
      * 
+     * @param in the file to read
+     * @return the graph
+     * @throws IOException if the file cannot be read, is malformed, or has a negative weight
+     * @see EdgeList#read(File)
      */
     public static Graph createGraphFile(File in) throws IOException {
-        int max = 0; //largest number in text file
-        Scanner read = new Scanner (in); //scanner to read in file
-        while (read.hasNext()) { //while there is another line to read in txtfile
-            String a = read.nextLine(); //a is the entire line in a text file
-            String[] cutoff = a.split(" "); //split the string into two strings at space
-            String numNode = cutoff[0]; //number for current node
-            String adjNum = cutoff[1]; //adjacent node to current node
-            if (max < Integer.parseInt(numNode)) { //set max to bigger 
-                max = Integer.parseInt(numNode);
-            }
-            if (max < Integer.parseInt(adjNum)) {  //set max to bigger 
-                max = Integer.parseInt(adjNum);
-            }
+        EdgeList edges = EdgeList.read(in); //single pass, no Strings per line
+        if (!edges.isWeighted()) {
+            edges.randomizeWeights(new Random());
         }
-        //add one as num of nods includes 0
-        Graph newGraph = new Graph(max + 1);
-        //use max to make graph
-        read = new Scanner (in); //scanner to read in file
-        while (read.hasNext()) { //while there is another line to read in txtfile
-            String a = read.nextLine(); //a is the entire line in a text file
-            String[] cutoff = a.split(" "); //split the string into two strings at space
-            Integer numNode = Integer.parseInt(cutoff[0]); //number for current node
-            Integer adjNum = Integer.parseInt(cutoff[1]); //adjacent node to current node
-            
-            //add edges to new graph, and assign each a random weight 0<= weight < 100
-            newGraph.addEdge(numNode, adjNum, (int) (100 * Math.random()));
+        return edges.toGraph();
+    }
+    
+    /**
+     * Same as {@link #createGraphFile(File)}, but missing weights come from a generator seeded
+     * with {@code seed}, so every run gets the same weights.
+     * 
+     * @param in   the file to read
+     * @param seed the seed for the random weights
+     * @return the graph
+     * @throws IOException if the file cannot be read, is malformed, or has a negative weight
+     */
+    public static Graph createGraphFile(File in, long seed) throws IOException {
+        EdgeList edges = EdgeList.read(in);
+        if (!edges.isWeighted()) {
+            edges.randomizeWeights(new Random(seed));
         }
-        return newGraph;
+        return edges.toGraph();
     }
     
+    /**
+     * Computes the betweeness of every edge with Brandes' algorithm and stores it in the graph.
+     *
+     * @param g the graph to populate
+     * @return {betweeness (rounded), u, v} of the edge with the highest betweeness, or
+     * {-1, -1, -1} if the graph has no edges
+     */
     public static int[] populateBetweeness(Graph g) {
-        int[] max = {-1, -1, -1};
+        return populateBetweeness(g, 1);
+    }
+    
+    /**
+     * Computes the betweeness of every edge with Brandes' algorithm and stores it in the graph,
+     * splitting the source vertices across {@code parallelism} threads.
+     *
+     * @param g           the graph to populate
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @return {betweeness (rounded), u, v} of the edge with the highest betweeness, or
+     * {-1, -1, -1} if the graph has no edges
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative, or some edge
+     *                                  weight is negative
+     */
+    public static int[] populateBetweeness(Graph g, int parallelism) {
+        return populateBetweeness(g, parallelism, Brandes.Mode.WEIGHTED);
+    }
+    
+    /**
+     * Same as {@link #populateBetweeness(Graph, int)}, measuring paths as {@code mode} says. Use
+     * {@link Brandes.Mode#UNWEIGHTED} to ignore the weights, like BFS would.
+     *
+     * @param g           the graph to populate
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @param mode        how the length of a path is measured
+     * @return {betweeness (rounded), u, v} of the edge with the highest betweeness, or
+     * {-1, -1, -1} if the graph has no edges
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative, or some edge
+     *                                  weight is negative and paths are weighted
+     */
+    public static int[] populateBetweeness(Graph g, int parallelism, Brandes.Mode mode) {
+        return populateBetweeness(g, parallelism, mode, null);
+    }
+    
+    /**
+     * Same as {@link #populateBetweeness(Graph, int, Brandes.Mode)}, counting progress in
+     * {@code metrics}, see {@link BetweenessMetrics}. Taking the snapshot is timed as the
+     * {@code snapshot} phase.
+     *
+     * @param g           the graph to populate
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @param mode        how the length of a path is measured
+     * @param metrics     where to count progress, or null
+     * @return {betweeness (rounded), u, v} of the edge with the highest betweeness, or
+     * {-1, -1, -1} if the graph has no edges
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative, or some edge
+     *                                  weight is negative and paths are weighted
+     */
+    public static int[] populateBetweeness(Graph g, int parallelism, Brandes.Mode mode,
+            BetweenessMetrics metrics) {
+        long begin = System.nanoTime();
+        CsrGraph csr = new CsrGraph(g);
+        if (metrics != null) {
+            metrics.phase("snapshot", begin);
+        }
+        int top = csr.populateBetweeness(parallelism, mode, metrics); //one DAG per source
+        g.betweeness = new ArrayList<HashMap<Integer,Double>>(g.getSize());
         for (int i = 0; i < g.getSize(); i++) {
-            for (int j = 0; j < g.getSize(); j++) {
-                if (i == j) {
-                    continue;
-                }
-                //Use Dijkstra to get all shortest paths
-                List<Integer> path = Dijkstra.getShortestPath(g, i, j);
-                for (int k = 0; k < path.size() - 1; k++) {
-                    
-                    int betw = g.getBetweeness(path.get(k), path.get(k + 1));
-                    betw++;
-                    //Get the max betweenness in the graph along with the edge
-                    if (betw > max[0]) {
-                        max[0] = betw;
-                        max[1] = path.get(k);
-                        max[2] = path.get(k + 1);
-                    }
-                    g.betweeness.get(path.get(k)).put(path.get(k + 1), betw);
-                }
+            HashMap<Integer, Double> edges = new HashMap<Integer, Double>();
+            for (int e = csr.offsets[i]; e < csr.offsets[i + 1]; e++) {
+                edges.put(csr.targets[e], csr.betweeness[e]);
             }
+            g.betweeness.add(edges);
+        }
+        //ties go to the smallest u, then the smallest v
+        int[] max = {-1, -1, -1};
+        if (top != -1) {
+            max[0] = (int) Math.round(csr.betweeness[top]);
+            max[1] = csr.source(top);
+            max[2] = csr.target(top);
         }
-        System.out.println("max " + max[0] + " " + max[1] + " " + max[2]);
         return max;
     }
     
-    //calculates neighborhood overlap of two nodes
+    //calculates neighborhood overlap of two nodes: shared out neighbors over the out neighbors
+    //only one of them has
     public double neighOverlap (Graph g, Integer nodeA, Integer nodeB) {
     	Set<Integer> neighborsA = outNeighbors(nodeA);
     	Set<Integer> neighborsB = outNeighbors(nodeB);
-    	HashSet<Integer> intersection = new HashSet<Integer>();
-    	HashSet<Integer> union = new HashSet<Integer>();
-    	double overlap = 0.0;
-    	
-    	for (Integer a : neighborsA) {
-    		for (Integer b : neighborsB) {
-    			if (a == b) {
-    				intersection.add(a);
-    			}
+    	if (neighborsA.size() > neighborsB.size()) { //probe the bigger set with the smaller one
+    		Set<Integer> tmp = neighborsA;
+    		neighborsA = neighborsB;
+    		neighborsB = tmp;
+    	}
+    	int shared = 0;
+    	for (int a : neighborsA) {
+    		if (neighborsB.contains(a)) { //hash lookup, not == on boxed Integers
+    			shared++;
     		}
     	}
-    	union.addAll(neighborsA);
-    	union.addAll(neighborsB);
-    	union.removeAll(intersection);
+    	int only = neighborsA.size() + neighborsB.size() - 2 * shared;
     	
     	//calculate neighborhood overlap
-    	overlap = (double) intersection.size() / (double) union.size();
-    	return overlap;
+    	return (double) shared / (double) only;
     }
     
-    //calculate average neighborhood overlap
+    //calculate average neighborhood overlap, visiting only the real edges
     public double avgNeighOverlap (Graph g) {
-    	double numNodes = (double) g.getSize();
-    	double sum = 0.0;
-    	for (int i = 0; i < g.getSize(); i++) {
-    		for (int j = 0; j < g.getSize(); j++) {
-	    		if (g.hasEdge(i, j)) {
-	    			sum = sum + neighOverlap(g, i, j);
-	    		}
-    		}
-    	}
-    	System.out.println(sum / numNodes);
-    	return sum / numNodes;
+    	return NeighborhoodOverlap.average(new CsrGraph(g), 1);
     }
     
-    //assigns strong and weak ties based on weight
-    public void assignTies (Graph g) {    	
-    	for (int i = 0; i < g.getSize(); i++) {
-    		ArrayList<Integer> arr = new ArrayList<Integer>();
-    		for (int j = 0; j < g.getSize(); j++) {
-    			if (i == j) {
-                    continue;
-                }
-    			if (hasEdge(i, j)) {
-    				if (getWeight(i, j) > 50) { //add edge to map of strong ties
-    					arr.add(j);
-    					g.strongTies.put(i, arr);
-    				} 
-    			}
-    		}		
+    //assigns strong and weak ties based on weight, once: later edge changes keep the index current
+    public void assignTies (Graph g) {
+    	if (g.ties == null) {
+    		g.buildTieIndex(TieIndex.byWeight(50)); //edges with weight above 50 are strong
     	}
     }
     
-    //finds violations to triadic closures
-    public void triadic (Graph g) {
-    	assignTies(g);
-    	
-    	//maps node that violates with pair of nodes it has strong ties with    	
-    	HashMap<Integer, ArrayList<Integer>> violations = new HashMap<Integer, ArrayList<Integer>>();
-    	
-    	for (Integer i : strongTies.keySet()) {
-    		if (strongTies.containsKey(i) && strongTies.get(i).size() >= 2) {
-	    		for (int k = 0; k < strongTies.get(i).size(); k++) {
-					for (int l = k + 1; l < strongTies.get(i).size(); l++) {						
-						if (!hasEdge(strongTies.get(i).get(k), strongTies.get(i).get(l))) {
-							ArrayList<Integer> pair = new ArrayList<Integer>();
-							pair.add(strongTies.get(i).get(k));
-							pair.add(strongTies.get(i).get(l));
-							violations.put(i, pair);
-							break;
-						} 
-					}
-				} 
-    		} 
+    /**
+     * Classifies every edge as a strong or weak tie and keeps the result, replacing any earlier
+     * index. From then on {@link #addEdge(int, int, int)} and {@link #deleteEdge(int, int)} update
+     * the index for the one edge they change, and {@link #triadic(Graph)} uses it.
+     *
+     * @param classifier decides which edges are strong, see {@link TieIndex#byWeight(int)}
+     * @return the index
+     */
+    public TieIndex buildTieIndex(TieIndex.Classifier classifier) {
+        ties = new TieIndex(this, classifier);
+        triangles = null;
+        return ties;
+    }
+    
+    /**
+     * @return the tie index built by {@link #buildTieIndex}, or null if there is none
+     */
+    public TieIndex getTieIndex() {
+        return ties;
+    }
+    
+    //finds violations to triadic closures: nodes with two strong ties that are not adjacent,
+    //counted exactly by one triangle pass instead of probing every pair of strong ties. The
+    //counts are kept, so calls with no edge change in between skip the snapshot and the pass
+    public Set<Integer> triadic (Graph g) {
+    	assignTies(g); //only classifies on the first call
+    	if (g.triangles == null) {
+    		CsrGraph csr = new CsrGraph(g);
+    		g.triangles = Triangles.of(csr, g.ties.strongEdges(csr), 1);
     	}
-    	System.out.println("number of violations: " + violations.size());
-		System.out.println(violations.keySet()); //prints nodes that have violations
+    	return g.triangles.violators();
     }
     
     
@@ -385,13 +551,41 @@ public class Graph {
     public static void girvNewman (Graph g) {
         int[] max = populateBetweeness(g);
         g.deleteEdge(max[1], max[2]);
-        g.betweeness = new ArrayList<HashMap<Integer,Integer>>(g.getSize()); //size of adj list
-        for (int i = 0; i < g.getSize(); i++) { //O(n) time to go through each of n nodes
-            g.betweeness.add(new HashMap<Integer, Integer>()); //add adj list for each node
-            Set<Integer> keys = g.totList.get(i).keySet();
+        g.resetBetweeness();
+    }
+    
+    /**
+     * Runs one Girvan-Newman round that removes the {@code batch} edges with the highest
+     * betweeness at once, so a run needs fewer betweeness computations. Ties go to the smallest
+     * {@code u}, then the smallest {@code v}.
+     * 
+     * @param g     the graph to remove edges from
+     * @param batch how many edges to remove
+     * @return {u, v} of every removed edge, highest betweeness first
+     * @throws IllegalArgumentException if {@code batch} is negative
+     */
+    public static int[][] girvNewman (Graph g, int batch) {
+        CsrGraph csr = new CsrGraph(g);
+        csr.populateBetweeness(1);
+        int[] top = csr.topEdges(batch); //bounded heap, no full sort
+        int[][] removed = new int[top.length][];
+        for (int i = 0; i < top.length; i++) {
+            removed[i] = new int[] {csr.source(top[i]), csr.target(top[i])};
+            g.deleteEdge(removed[i][0], removed[i][1]);
+        }
+        g.resetBetweeness();
+        return removed;
+    }
+    
+    //sets the betweeness of every edge back to 0
+    void resetBetweeness() {
+        betweeness = new ArrayList<HashMap<Integer,Double>>(getSize()); //size of adj list
+        for (int i = 0; i < getSize(); i++) { //O(n) time to go through each of n nodes
+            betweeness.add(new HashMap<Integer, Double>()); //add adj list for each node
+            Set<Integer> keys = totList.get(i).keySet();
             Iterator<Integer> keysIt = keys.iterator();
             for (int j = 0; j < keys.size(); j++) {
-                g.betweeness.get(i).put(keysIt.next(), 0);
+                betweeness.get(i).put(keysIt.next(), 0.0);
             }
         }
     }
@@ -400,16 +594,23 @@ public class Graph {
     public static void main(String args[]) throws IOException {
 //        Graph cur = createGraphFile(new File("tribe.txt"));
 //        Graph cur = createGraphFile(new File("email-network.txt"));
-//        girvNewman(cur);
-//        girvNewman(cur);
+//        BetweenessMetrics metrics = new BetweenessMetrics();
+//        int[] max = populateBetweeness(cur, 4, Brandes.Mode.WEIGHTED, metrics);
+//        System.out.println("max " + max[0] + " " + max[1] + " " + max[2]);
+//        System.out.println(metrics); //counts, phase times, throughput
+//        IncrementalBetweeness inc = new IncrementalBetweeness(cur); //later removals are cheap
+//        inc.removeMaxEdge();
+//        inc.removeMaxEdge();
 //        System.out.println(0 + " iter: ");
-//        cur.triadic(cur);
-//        cur.avgNeighOverlap(cur);
+//        Set<Integer> violations = cur.triadic(cur);
+//        System.out.println("number of violations: " + violations.size());
+//        System.out.println(violations); //nodes that have violations
+//        System.out.println(cur.avgNeighOverlap(cur));
 //        for (int i = 1; i < 40; i++) {
 //            System.out.println(i + " iter: ");
-//            girvNewman(cur);
-//            cur.triadic(cur);
-//            cur.avgNeighOverlap(cur);
+//            inc.removeMaxEdge();
+//            System.out.println(cur.triadic(cur));
+//            System.out.println(cur.avgNeighOverlap(cur));
 //        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,295 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only, memory-mapped view of a {@link CsrGraph} saved in a compact binary file.
+ * <p>
+ * The file is a 24 byte header followed by the CSR arrays, little-endian:
+ * <pre>
+ *   int    magic        0x4254574E ("BTWN")
+ *   int    version      1
+ *   int    flags        bit 0 set if the betweeness column is present
+ *   int    n            number of nodes
+ *   int    m            number of edges
+ *   int    reserved     0, keeps the sections 8 byte aligned
+ *   int    offsets[n + 1]
+ *   int    targets[m]
+ *   int    weights[m]
+ *   (4 bytes of padding if n + 1 + 2m is odd)
+ *   double betweeness[m]  (only if flag bit 0 is set)
+ * </pre>
+ * Opening a snapshot maps every section straight from the page cache and checks the arrays once,
+ * so the accessors of this class read the file without parsing or copying it, and several JVMs
+ * reading the same file share its pages. The algorithms work on the arrays of a
+ * {@link CsrGraph}, though, so running them means a {@link #toCsrGraph()} copy on the heap of each
+ * JVM; what the file saves them is parsing the edge list and building the arrays. Saving the
+ * weights also means a graph with random weights gives the same results every time it is loaded.
+ */
+public class GraphSnapshot {
+    static final int MAGIC = 0x4254574E;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int FLAG_BETWEENESS = 1;
+
+    private final int n;
+    private final int m;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+    private final DoubleBuffer betweeness; //null if the file has no betweeness column
+
+    private GraphSnapshot(int n, int m, IntBuffer offsets, IntBuffer targets, IntBuffer weights,
+            DoubleBuffer betweeness) {
+        this.n = n;
+        this.m = m;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.betweeness = betweeness;
+    }
+
+    /**
+     * Saves a snapshot to a file, replacing it if it exists.
+     *
+     * @param g              the graph to save
+     * @param out            the file to write
+     * @param withBetweeness whether to also save the betweeness column
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(CsrGraph g, File out, boolean withBetweeness) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(out, "rw");
+        try {
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+            ByteBuffer buf = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(withBetweeness ? FLAG_BETWEENESS : 0);
+            buf.putInt(g.getSize()).putInt(g.getEdgeCount()).putInt(0);
+            putInts(channel, buf, g.offsets);
+            putInts(channel, buf, g.targets);
+            putInts(channel, buf, g.weights);
+            if (withBetweeness) {
+                if ((g.offsets.length + 2L * g.targets.length) % 2 == 1) {
+                    buf.putInt(0);
+                }
+                for (double b : g.betweeness) {
+                    if (buf.remaining() < 8) {
+                        drain(channel, buf);
+                    }
+                    buf.putDouble(b);
+                }
+            }
+            drain(channel, buf);
+        } finally {
+            file.close();
+        }
+    }
+
+    private static void putInts(FileChannel channel, ByteBuffer buf, int[] values)
+            throws IOException {
+        for (int x : values) {
+            if (buf.remaining() < 4) {
+                drain(channel, buf);
+            }
+            buf.putInt(x);
+        }
+    }
+
+    //writes out whatever buf holds and empties it
+    private static void drain(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Memory-maps a snapshot file. The mapping stays valid after this returns, even though the
+     * file itself is closed.
+     * <p>
+     * Runtime: O(n + m), to check the arrays
+     *
+     * @param in the file to open
+     * @return a read-only view of the snapshot
+     * @throws IOException if the file cannot be read, is not a snapshot, is truncated, or its
+     *                     arrays are not a valid CSR graph
+     */
+    public static GraphSnapshot open(File in) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(in, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("not a graph snapshot: " + in);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a graph snapshot: " + in);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported snapshot version " + version + ": " + in);
+            }
+            int flags = header.getInt();
+            int n = header.getInt();
+            int m = header.getInt();
+            if (n < 0 || m < 0) {
+                throw new IOException("corrupt snapshot header: " + in);
+            }
+            boolean hasBetweeness = (flags & FLAG_BETWEENESS) != 0;
+            long position = HEADER_BYTES;
+            long intsEnd = position + 4L * (n + 1L + 2L * m);
+            long end = intsEnd;
+            if (hasBetweeness) {
+                end = intsEnd + (intsEnd % 8) + 8L * m;
+            }
+            if (channel.size() < end) {
+                throw new IOException("truncated snapshot: " + in);
+            }
+
+            //one mapping per section, so no single mapping has to cover more than 2 GB
+            IntBuffer offsets = mapInts(channel, position, n + 1L);
+            position += 4L * (n + 1L);
+            IntBuffer targets = mapInts(channel, position, m);
+            position += 4L * m;
+            IntBuffer weights = mapInts(channel, position, m);
+            position += 4L * m;
+            DoubleBuffer betweeness = null;
+            if (hasBetweeness) {
+                position += position % 8;
+                betweeness = channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * m)
+                        .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            }
+            check(in, n, m, offsets, targets);
+            return new GraphSnapshot(n, m, offsets, targets, weights, betweeness);
+        } finally {
+            file.close();
+        }
+    }
+
+    //throws unless the offsets run from 0 to m without decreasing and every target is a node, so a
+    //corrupt or mismatched file fails here rather than somewhere inside an algorithm
+    private static void check(File in, int n, int m, IntBuffer offsets, IntBuffer targets)
+            throws IOException {
+        if (offsets.get(0) != 0 || offsets.get(n) != m) {
+            throw new IOException("corrupt snapshot offsets: " + in);
+        }
+        for (int v = 0; v < n; v++) {
+            if (offsets.get(v) > offsets.get(v + 1)) {
+                throw new IOException("corrupt snapshot offsets at node " + v + ": " + in);
+            }
+        }
+        for (int e = 0; e < m; e++) {
+            int t = targets.get(e);
+            if (t < 0 || t >= n) {
+                throw new IOException("corrupt snapshot target of edge " + e + ": " + in);
+            }
+        }
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, long count)
+            throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * @return the number of edges
+     */
+    public int getEdgeCount() {
+        return m;
+    }
+
+    /**
+     * @return true if the file has a betweeness column
+     */
+    public boolean hasBetweeness() {
+        return betweeness != null;
+    }
+
+    /**
+     * @param v a node
+     * @return the id of the first edge leaving {@code v}, its edges end before
+     * {@code offset(v + 1)}
+     * @throws IllegalArgumentException if {@code v} is not in {@code [0, n]}
+     */
+    public int offset(int v) {
+        if (v < 0 || v > n) {
+            throw new IllegalArgumentException();
+        }
+        return offsets.get(v);
+    }
+
+    /**
+     * @param e an edge id
+     * @return the target of edge {@code e}
+     * @throws IllegalArgumentException if the edge does not exist
+     */
+    public int target(int e) {
+        checkEdge(e);
+        return targets.get(e);
+    }
+
+    /**
+     * @param e an edge id
+     * @return the weight of edge {@code e}
+     * @throws IllegalArgumentException if the edge does not exist
+     */
+    public int weight(int e) {
+        checkEdge(e);
+        return weights.get(e);
+    }
+
+    /**
+     * @param e an edge id
+     * @return the saved betweeness of edge {@code e}
+     * @throws IllegalArgumentException if the edge does not exist
+     * @throws IllegalStateException    if the file has no betweeness column
+     */
+    public double getBetweeness(int e) {
+        checkEdge(e);
+        if (betweeness == null) {
+            throw new IllegalStateException();
+        }
+        return betweeness.get(e);
+    }
+
+    /**
+     * Copies the snapshot onto the heap, for algorithms that work on a {@link CsrGraph}. Every
+     * section is one bulk copy.
+     *
+     * @return the graph, with the saved betweeness if the file has any
+     */
+    public CsrGraph toCsrGraph() {
+        int[] offs = new int[n + 1];
+        int[] targs = new int[m];
+        int[] wts = new int[m];
+        offsets.duplicate().get(offs);
+        targets.duplicate().get(targs);
+        weights.duplicate().get(wts);
+        CsrGraph g = new CsrGraph(offs, targs, wts);
+        if (betweeness != null) {
+            betweeness.duplicate().get(g.betweeness);
+        }
+        return g;
+    }
+
+    private void checkEdge(int e) {
+        if (e < 0 || e >= m) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
@@ -0,0 +1,364 @@
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+
+/**
+ * Keeps the edge betweeness of a graph up to date while Girvan-Newman removes edges from it.
+ * <p>
+ * The first pass runs Brandes' algorithm from every source and remembers, for every edge, which
+ * sources' shortest-path DAGs used it. Removing an edge can only change the shortest paths of those
+ * sources, so each of them is run twice: once on the graph before the removal to subtract its old
+ * contribution, and once after to add the new one. Every other source keeps its contribution as
+ * is, which makes later iterations much cheaper than a full recompute.
+ * <p>
+ * Shortest paths never leave a weakly connected component, tracked by {@link Components}, so
+ * only sources in the component of a removed edge can be affected. When the affected sources are
+ * at least half of that component, running each of them twice would cost more than starting the
+ * component over, so its edges are zeroed and every source in it is run once instead.
+ * <p>
+ * Remembering the DAGs takes one bit per (edge, source) pair, O(n * m / 8) bytes in total. When
+ * that is more than {@link #MAX_TRACKED_BITS} bits nothing is remembered, and every removal reruns
+ * the whole component of the removed edge once. The graph passed in must only be changed through
+ * {@link #removeEdge} while this is in use.
+ */
+public class IncrementalBetweeness {
+    /**
+     * The most (edge, source) bits the DAGs of the sources may take to remember, 256 MB.
+     */
+    public static final long MAX_TRACKED_BITS = 1L << 31;
+
+    //told about every edge removeEdges takes out, right after the components were updated for it
+    interface SplitListener {
+        //removing edge e split component parent, the smaller part is now component child, -1 if
+        //nothing split
+        void removed(int e, int parent, int child);
+    }
+
+    private final Graph g;
+    private final CsrGraph csr;
+    private final boolean[] removed; //edges deleted so far, by edge id
+    //usedBy[e] is the set of sources whose DAG contains edge e, null if that would not fit
+    private final BitSet[] usedBy;
+    private final Components components; //of the edges not removed yet
+    private final Brandes.Worker worker;
+    private int recomputed; //sources rerun by the last removal
+    SplitListener splits; //or null
+
+    /**
+     * Computes the betweeness of every edge of {@code g} and remembers which sources used each
+     * edge.
+     * <p>
+     * Runtime: O(n * m * lg n)
+     *
+     * @param g the graph to track, must have no negative-weighted edges
+     * @throws IllegalArgumentException if some edge weight is negative
+     */
+    public IncrementalBetweeness(Graph g) {
+        this(g, Brandes.Mode.WEIGHTED);
+    }
+
+    /**
+     * Same as {@link #IncrementalBetweeness(Graph)}, measuring paths as {@code mode} says.
+     *
+     * @param g    the graph to track
+     * @param mode how the length of a path is measured
+     * @throws IllegalArgumentException if some edge weight is negative and paths are weighted
+     */
+    public IncrementalBetweeness(Graph g, Brandes.Mode mode) {
+        this(g, mode, null);
+    }
+
+    /**
+     * Same as {@link #IncrementalBetweeness(Graph, Brandes.Mode)}, counting every source run, by
+     * the first pass and by every later removal, in {@code metrics}. The phases are
+     * {@code initial} and {@code updates}.
+     *
+     * @param g       the graph to track
+     * @param mode    how the length of a path is measured
+     * @param metrics where to count progress, or null
+     * @throws IllegalArgumentException if some edge weight is negative and paths are weighted
+     */
+    public IncrementalBetweeness(Graph g, Brandes.Mode mode, BetweenessMetrics metrics) {
+        this(g, new CsrGraph(g), mode, metrics, new int[0]);
+    }
+
+    //starts on snapshot csr of g with the given edges of it already removed, deleting them from g,
+    //so a resumed run keeps the edge ids of the graph it started on
+    IncrementalBetweeness(Graph g, CsrGraph csr, Brandes.Mode mode, BetweenessMetrics metrics,
+            int[] removedEdges) {
+        this(g, csr, mode, metrics, removedEdges, MAX_TRACKED_BITS);
+    }
+
+    //same, remembering the DAGs only if that takes at most maxTrackedBits bits
+    IncrementalBetweeness(Graph g, CsrGraph csr, Brandes.Mode mode, BetweenessMetrics metrics,
+            int[] removedEdges, long maxTrackedBits) {
+        this(g, csr, mode, metrics, removedEdges, maxTrackedBits, new Components(csr));
+    }
+
+    //same, keeping components, of csr with none or some of removedEdges already removed from it,
+    //up to date instead of a components of its own
+    IncrementalBetweeness(Graph g, CsrGraph csr, Brandes.Mode mode, BetweenessMetrics metrics,
+            int[] removedEdges, long maxTrackedBits, Components components) {
+        Brandes.checkWeights(csr, mode);
+        long begin = System.nanoTime();
+        this.g = g;
+        this.csr = csr;
+        removed = new boolean[csr.getEdgeCount()];
+        this.components = components;
+        for (int e : removedEdges) {
+            removed[e] = true;
+            components.removeEdge(e);
+            g.deleteEdge(csr.source(e), csr.target(e));
+        }
+        if ((long) csr.getSize() * csr.getEdgeCount() <= maxTrackedBits) {
+            usedBy = new BitSet[csr.getEdgeCount()];
+            for (int e = 0; e < usedBy.length; e++) {
+                usedBy[e] = new BitSet();
+            }
+        } else {
+            usedBy = null;
+        }
+        worker = new Brandes.Worker(csr, mode);
+        worker.removed = removed;
+        worker.usedBy = usedBy;
+        worker.metrics = metrics;
+        if (metrics != null) {
+            metrics.expect(csr.getSize());
+        }
+        for (int s = 0; s < csr.getSize(); s++) {
+            worker.accumulate(s);
+        }
+        if (metrics != null) {
+            metrics.phase("initial", begin);
+        }
+    }
+
+    /**
+     * @param u source vertex
+     * @param v target vertex
+     * @return the current betweeness of the {@code u-v} edge
+     * @throws NoSuchElementException   if the {@code u-v} edge does not exist
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public double getBetweeness(int u, int v) {
+        int e = csr.edgeId(u, v);
+        if (e == -1 || removed[e]) {
+            throw new NoSuchElementException();
+        }
+        return worker.score[e];
+    }
+
+    /**
+     * @return the number of sources that were recomputed by the last removal, each counted once
+     * whether it ran once or twice
+     */
+    public int lastRecomputed() {
+        return recomputed;
+    }
+
+    //the snapshot edge ids refer to
+    CsrGraph csr() {
+        return csr;
+    }
+
+    //the weakly connected components of the edges not removed yet, only to be read
+    Components components() {
+        return components;
+    }
+
+    //true if edge e of the snapshot has been removed
+    boolean isRemoved(int e) {
+        return removed[e];
+    }
+
+    /**
+     * Finds the remaining edge with the highest betweeness, ties going to the smallest edge id.
+     * <p>
+     * Runtime: O(m)
+     *
+     * @return the id of that edge in the CSR snapshot taken at construction, or -1 if no edges
+     * are left
+     */
+    int maxEdge() {
+        int[] top = topEdgeIds(1);
+        return top.length == 0 ? -1 : top[0];
+    }
+
+    //ids of the (at most) k remaining edges with the highest betweeness, best first
+    int[] topEdgeIds(int k) {
+        return TopEdges.of(worker.score, removed, k);
+    }
+
+    //current betweeness of edge e of the snapshot
+    double score(int e) {
+        return worker.score[e];
+    }
+
+    /**
+     * Runtime: O(m + t lg k), see {@link TopEdges}
+     *
+     * @param k how many edges to return
+     * @return {u, v} of the (at most) k remaining edges with the highest betweeness, best first
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public int[][] topEdges(int k) {
+        int[] top = topEdgeIds(k);
+        int[][] edges = new int[top.length][];
+        for (int i = 0; i < top.length; i++) {
+            edges[i] = new int[] {csr.source(top[i]), csr.target(top[i])};
+        }
+        return edges;
+    }
+
+    /**
+     * Removes the edge with the highest betweeness from the graph and updates the betweeness of
+     * the remaining edges.
+     *
+     * @return {betweeness (rounded), u, v} of the removed edge, or {-1, -1, -1} if the graph has
+     * no edges left
+     */
+    public int[] removeMaxEdge() {
+        int e = maxEdge();
+        if (e == -1) {
+            return new int[] {-1, -1, -1};
+        }
+        int[] max = {(int) Math.round(worker.score[e]), csr.source(e), csr.target(e)};
+        removeEdge(max[1], max[2]);
+        return max;
+    }
+
+    /**
+     * Removes the k edges with the highest betweeness in one round. Each affected source is only
+     * recomputed once for the whole batch, so removing k edges this way is cheaper than k calls to
+     * {@link #removeMaxEdge()}, at the price of not re-ranking the edges between removals.
+     *
+     * @param k how many edges to remove
+     * @return {betweeness (rounded), u, v} of every removed edge, best first
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public int[][] removeTopEdges(int k) {
+        int[] top = topEdgeIds(k);
+        int[][] result = new int[top.length][];
+        for (int i = 0; i < top.length; i++) {
+            result[i] = new int[] {(int) Math.round(worker.score[top[i]]), csr.source(top[i]),
+                csr.target(top[i])};
+        }
+        removeEdges(top);
+        return result;
+    }
+
+    /**
+     * Removes the {@code u-v} edge from the graph, recomputing only the sources whose shortest
+     * paths went through it, or its whole component if that is cheaper.
+     * <p>
+     * Runtime: O(min(2k, c) * m * lg n) for the k sources whose DAG contained the edge, in a
+     * component of c nodes
+     *
+     * @param u source vertex
+     * @param v target vertex
+     * @return {@code true} if the edge was present
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public boolean removeEdge(int u, int v) {
+        int e = csr.edgeId(u, v);
+        if (e == -1 || removed[e]) {
+            return false;
+        }
+        removeEdges(new int[] {e});
+        return true;
+    }
+
+    //removes edges still present, rerunning the union of the sources whose DAGs used any of them,
+    //or, when that is at least half of the components they are in, those components once
+    void removeEdges(int[] edges) {
+        BetweenessMetrics metrics = worker.metrics;
+        long begin = System.nanoTime();
+        //only sources in the same component can have a shortest path through an edge
+        BitSet comps = new BitSet();
+        int regionSize = 0;
+        for (int e : edges) {
+            int c = components.component(csr.source(e));
+            if (!comps.get(c)) {
+                comps.set(c);
+                regionSize += components.size(c);
+            }
+        }
+        BitSet affected = null;
+        if (usedBy != null) {
+            affected = new BitSet();
+            for (int e : edges) {
+                affected.or(usedBy[e]);
+            }
+        }
+        if (affected == null || 2L * affected.cardinality() >= regionSize) {
+            int[] region = new int[regionSize];
+            int at = 0;
+            for (int c = comps.nextSetBit(0); c >= 0; c = comps.nextSetBit(c + 1)) {
+                int[] members = components.members(c);
+                System.arraycopy(members, 0, region, at, members.length);
+                at += members.length;
+            }
+            rerun(edges, region);
+        } else {
+            rerun(edges, affected);
+        }
+        for (int e : edges) {
+            int parent = components.component(csr.source(e));
+            int child = components.removeEdge(e);
+            g.deleteEdge(csr.source(e), csr.target(e));
+            if (splits != null) {
+                long listening = System.nanoTime();
+                splits.removed(e, parent, child);
+                begin += System.nanoTime() - listening; //the listener's time is not an update
+            }
+        }
+        if (metrics != null) {
+            metrics.phase("updates", begin);
+        }
+    }
+
+    //takes back the contributions of the affected sources, removes the edges, and adds back the
+    //new contributions
+    private void rerun(int[] edges, BitSet affected) {
+        recomputed = affected.cardinality();
+        if (worker.metrics != null) {
+            worker.metrics.expect(2L * recomputed); //every affected source runs twice
+        }
+        //take back the old contributions while the edges are still there
+        for (int s = affected.nextSetBit(0); s >= 0; s = affected.nextSetBit(s + 1)) {
+            worker.accumulate(s, -1.0);
+        }
+        for (int e : edges) {
+            removed[e] = true;
+            worker.score[e] = 0.0;
+        }
+        for (int s = affected.nextSetBit(0); s >= 0; s = affected.nextSetBit(s + 1)) {
+            worker.accumulate(s);
+        }
+    }
+
+    //removes the edges and runs every source of region, whole components holding them, afresh
+    private void rerun(int[] edges, int[] region) {
+        recomputed = region.length;
+        if (worker.metrics != null) {
+            worker.metrics.expect(region.length);
+        }
+        for (int e : edges) {
+            removed[e] = true;
+        }
+        //every contribution to an edge of the region came from a source in it
+        for (int v : region) {
+            for (int e = csr.offsets[v]; e < csr.offsets[v + 1]; e++) {
+                worker.score[e] = 0.0;
+                if (usedBy != null) {
+                    usedBy[e].clear();
+                }
+            }
+        }
+        worker.scope = region;
+        worker.scopeEdges = Brandes.edgeCount(csr, region);
+        for (int s : region) {
+            worker.accumulate(s);
+        }
+        worker.scope = null;
+    }
+}
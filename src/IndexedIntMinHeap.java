@@ -0,0 +1,302 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A d-ary min-heap of int values in {@code [0, capacity)} keyed by int priorities.
+ * <p>
+ * Keys and values live in two flat int arrays laid out as the heap, and a third array maps every
+ * value to its slot (or -1 when it is not in the heap), so {@code containsValue} and
+ * {@code decreaseKey} are plain array reads. Nothing is allocated after construction when the
+ * int overloads are used; the {@link BinaryMinHeap} methods are still there for callers that want
+ * the generic contract, at the price of boxing.
+ * <p>
+ * An arity of 2 gives the usual binary heap. A larger arity makes the heap shallower, so
+ * {@code add} and {@code decreaseKey} (the bulk of the work in Dijkstra) get cheaper while
+ * {@code extractMin} compares more children per level; 4 is usually a good choice.
+ * <p>
+ * Like every {@link BinaryMinHeap}, the generic methods accept a null value. It is kept as the
+ * value {@code capacity}, one past the int values, so it never collides with them; the int
+ * methods report it as {@code capacity}.
+ */
+public class IndexedIntMinHeap implements BinaryMinHeap<Integer, Integer> {
+
+    private final int arity;
+    private final int[] keys; //keys[i] is the priority of values[i]
+    private final int[] values;
+    private final int[] position; //slot of each value in the heap, -1 if absent
+    private final int nullValue; //stands for the null value of the generic methods
+    private int size;
+
+    /**
+     * Initializes an empty binary heap.
+     *
+     * @param capacity values must be in {@code [0, capacity)}
+     * @throws IllegalArgumentException if {@code capacity} is negative
+     */
+    public IndexedIntMinHeap(int capacity) {
+        this(capacity, 2);
+    }
+
+    /**
+     * Initializes an empty d-ary heap.
+     *
+     * @param capacity values must be in {@code [0, capacity)}
+     * @param arity    the number of children of every node, at least 2
+     * @throws IllegalArgumentException if {@code capacity} is negative or {@code arity} < 2
+     */
+    public IndexedIntMinHeap(int capacity, int arity) {
+        if (capacity < 0 || arity < 2) {
+            throw new IllegalArgumentException();
+        }
+        this.arity = arity;
+        nullValue = capacity;
+        keys = new int[capacity + 1];
+        values = new int[capacity + 1];
+        position = new int[capacity + 1];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runtime - O(1)
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Runtime - O(1)
+     *
+     * @param value the value to check
+     * @return true if the heap contains the value
+     */
+    public boolean containsValue(int value) {
+        return value >= 0 && value < nullValue && position[value] != -1;
+    }
+
+    /**
+     * Runtime - O(lg n / lg d)
+     *
+     * @param key   the priority of the value
+     * @param value the value to insert, in {@code [0, capacity)}
+     * @throws IllegalArgumentException if value is out of range or already in the heap
+     */
+    public void add(int key, int value) {
+        if (value < 0 || value >= nullValue || position[value] != -1) {
+            throw new IllegalArgumentException();
+        }
+        siftUp(size++, key, value);
+    }
+
+    /**
+     * Runtime - O(lg n / lg d)
+     *
+     * @param value  the value whose key to update
+     * @param newKey the new key, no larger than the current one
+     * @throws NoSuchElementException   if value is not in the heap
+     * @throws IllegalArgumentException if newKey is larger than the current key
+     */
+    public void decreaseKey(int value, int newKey) {
+        if (!containsValue(value)) {
+            throw new NoSuchElementException();
+        }
+        int index = position[value];
+        if (newKey > keys[index]) {
+            throw new IllegalArgumentException();
+        }
+        siftUp(index, newKey, value); //a smaller key can only move up
+    }
+
+    /**
+     * Runtime - O(1)
+     *
+     * @return the smallest key in the heap
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peekKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[0];
+    }
+
+    /**
+     * Runtime - O(1)
+     *
+     * @return a value with the smallest key in the heap
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peekValue() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return values[0];
+    }
+
+    /**
+     * Removes a value with the smallest key. Ties broken arbitrarily.
+     * <p>
+     * Runtime - O(d lg n / lg d)
+     *
+     * @return the removed value
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int extractMinValue() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int min = values[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(0, keys[size], values[size]); //move the last entry to the top
+        }
+        return min;
+    }
+
+    /**
+     * Empties the heap.
+     * <p>
+     * Runtime - O(size), not O(capacity)
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[values[i]] = -1;
+        }
+        size = 0;
+    }
+
+    //moves the hole at index up until key fits, then places the entry there
+    private void siftUp(int index, int key, int value) {
+        while (index > 0) {
+            int parent = (index - 1) / arity;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[index] = keys[parent];
+            values[index] = values[parent];
+            position[values[index]] = index;
+            index = parent;
+        }
+        keys[index] = key;
+        values[index] = value;
+        position[value] = index;
+    }
+
+    //moves the hole at index down past every smaller child, then places the entry there
+    private void siftDown(int index, int key, int value) {
+        while (true) {
+            int first = index * arity + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int smallest = first;
+            for (int c = first + 1; c < last; c++) {
+                if (keys[c] < keys[smallest]) {
+                    smallest = c;
+                }
+            }
+            if (keys[smallest] >= key) {
+                break;
+            }
+            keys[index] = keys[smallest];
+            values[index] = values[smallest];
+            position[values[index]] = index;
+            index = smallest;
+        }
+        keys[index] = key;
+        values[index] = value;
+        position[value] = index;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runtime - O(1)
+     */
+    @Override
+    public boolean containsValue(Integer value) {
+        return value == null ? position[nullValue] != -1 : containsValue(value.intValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runtime - O(lg n / lg d)
+     */
+    @Override
+    public void add(Integer key, Integer value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        if (value != null) {
+            add(key.intValue(), value.intValue());
+        } else if (position[nullValue] != -1) {
+            throw new IllegalArgumentException();
+        } else {
+            siftUp(size++, key, nullValue);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runtime - O(lg n / lg d)
+     */
+    @Override
+    public void decreaseKey(Integer value, Integer newKey) {
+        if (!containsValue(value)) {
+            throw new NoSuchElementException();
+        }
+        if (newKey == null) {
+            throw new IllegalArgumentException();
+        }
+        int index = position[value == null ? nullValue : value];
+        if (newKey > keys[index]) {
+            throw new IllegalArgumentException();
+        }
+        siftUp(index, newKey, values[index]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runtime - O(1)
+     */
+    @Override
+    public Entry<Integer, Integer> peek() {
+        return new Entry<Integer, Integer>(peekKey(), boxed(peekValue()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runtime - O(d lg n / lg d)
+     */
+    @Override
+    public Entry<Integer, Integer> extractMin() {
+        int key = peekKey();
+        return new Entry<Integer, Integer>(key, boxed(extractMinValue()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runtime - O(n)
+     */
+    @Override
+    public Set<Integer> values() {
+        Set<Integer> set = new HashSet<Integer>();
+        for (int i = 0; i < size; i++) {
+            set.add(boxed(values[i]));
+        }
+        return set;
+    }
+
+    private Integer boxed(int value) {
+        return value == nullValue ? null : value;
+    }
+}
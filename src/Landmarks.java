@@ -0,0 +1,186 @@
+import java.util.Arrays;
+
+/**
+ * Landmark distances for ALT (A*, landmarks, triangle inequality) searches on a {@link CsrGraph}.
+ * <p>
+ * For a handful of landmark nodes L the distances {@code d(L, v)} and {@code d(v, L)} to and from
+ * every node are computed up front. By the triangle inequality, {@code d(L, t) - d(L, v)} and
+ * {@code d(v, L) - d(t, L)} are both lower bounds on {@code d(v, t)}, and so is their maximum over
+ * all landmarks. {@link Dijkstra#getShortestPathBidirectional(CsrGraph, int, int, Landmarks)}
+ * uses these bounds to steer both frontiers toward each other. Landmarks only stay valid for the
+ * graph they were built on.
+ */
+public class Landmarks {
+    static final int INF = Integer.MAX_VALUE;
+
+    private final int n;
+    private final int[] landmarks;
+    //distances, interleaved per node so one bound reads adjacent ints: from[v * k + i] is
+    //d(landmarks[i], v) and to[v * k + i] is d(v, landmarks[i]), INF if there is no path
+    private final int[] from;
+    private final int[] to;
+
+    /**
+     * Picks {@code k} landmarks far apart from each other. The first ones go to the weakly
+     * connected components with edges, biggest first, one each, since a landmark tells nothing
+     * about the distances in other components. Every later landmark is the node furthest from the
+     * ones picked so far among the nodes they reach. Nodes without edges are only picked when
+     * {@code k} leaves nothing else.
+     * <p>
+     * Runtime: O(k m lg n)
+     *
+     * @param g the graph, must have no negative-weighted edges
+     * @param k the number of landmarks
+     * @throws IllegalArgumentException if {@code k} is not in {@code [1, n]}, some edge weight is
+     *                                  negative, or {@code n * k} does not fit in an int
+     */
+    public Landmarks(CsrGraph g, int k) {
+        this(g, pick(g, k));
+    }
+
+    /**
+     * Uses the given nodes as landmarks.
+     * <p>
+     * Runtime: O(k m lg n)
+     *
+     * @param g         the graph, must have no negative-weighted edges
+     * @param landmarks the landmark nodes
+     * @throws IllegalArgumentException if there are no landmarks, one does not exist, some edge
+     *                                  weight is negative, or {@code n * k} does not fit in an int
+     */
+    public Landmarks(CsrGraph g, int[] landmarks) {
+        n = g.getSize();
+        int k = landmarks.length;
+        if (k == 0 || (long) n * k > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException();
+        }
+        this.landmarks = landmarks.clone();
+        from = new int[n * k];
+        to = new int[n * k];
+        for (int i = 0; i < k; i++) {
+            int[] forward = Dijkstra.distances(g, this.landmarks[i], false);
+            int[] backward = Dijkstra.distances(g, this.landmarks[i], true);
+            for (int v = 0; v < n; v++) {
+                from[v * k + i] = forward[v];
+                to[v * k + i] = backward[v];
+            }
+        }
+    }
+
+    //farthest point selection over the nodes with edges. A landmark only bounds distances within
+    //its own weakly connected component, so the first landmarks seed the components, biggest
+    //first, each at the node furthest from one of its members. The rest go to the node furthest
+    //from the landmarks among the nodes they reach. Nodes no landmark reaches, then isolated
+    //nodes, are only picked once nothing else is left
+    private static int[] pick(CsrGraph g, int k) {
+        int n = g.getSize();
+        if (k <= 0 || k > n) {
+            throw new IllegalArgumentException();
+        }
+        Components components = new Components(g);
+        int count = components.getCount();
+        long[] bySize = new long[count]; //biggest component first, then by id
+        for (int c = 0; c < count; c++) {
+            bySize[c] = (long) (n - components.size(c)) << 32 | c;
+        }
+        Arrays.sort(bySize);
+        int[] picked = new int[k];
+        int[] nearest = new int[n]; //distance from the closest landmark, -1 once picked
+        Arrays.fill(nearest, INF);
+        for (int i = 0; i < k; i++) {
+            int best = -1;
+            if (i < count && components.size((int) bySize[i]) > 1) {
+                int[] members = components.members((int) bySize[i]);
+                int[] dist = Dijkstra.distances(g, members[0], false);
+                best = members[0];
+                for (int v : members) {
+                    if (dist[v] != INF && dist[v] > dist[best]) {
+                        best = v;
+                    }
+                }
+            } else {
+                for (int v = 0; v < n; v++) {
+                    if (nearest[v] != INF && (best == -1 || nearest[v] > nearest[best])) {
+                        best = v;
+                    }
+                }
+                if (best == -1 || nearest[best] < 0) {
+                    best = leftover(components, nearest);
+                }
+            }
+            picked[i] = best;
+            int[] dist = Dijkstra.distances(g, best, false);
+            for (int v = 0; v < n; v++) {
+                nearest[v] = Math.min(nearest[v], dist[v]);
+            }
+            nearest[best] = -1; //never pick a node twice
+        }
+        return picked;
+    }
+
+    //the first node not picked yet, preferring nodes with edges
+    private static int leftover(Components components, int[] nearest) {
+        int isolated = -1;
+        for (int v = 0; v < nearest.length; v++) {
+            if (nearest[v] >= 0) {
+                if (components.size(components.component(v)) > 1) {
+                    return v;
+                }
+                if (isolated == -1) {
+                    isolated = v;
+                }
+            }
+        }
+        return isolated;
+    }
+
+    /**
+     * @return the number of nodes of the graph the landmarks were built on
+     */
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * @return the landmark nodes
+     */
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * Runtime: O(k)
+     *
+     * @param v a node
+     * @param t a node
+     * @return a lower bound on the length of the shortest {@code v-t} path, {@code INF} if the
+     * landmarks prove there is no such path
+     * @throws IllegalArgumentException if a node does not exist
+     */
+    public int lowerBound(int v, int t) {
+        if (v < 0 || v >= n || t < 0 || t >= n) {
+            throw new IllegalArgumentException();
+        }
+        int k = landmarks.length;
+        int bound = 0;
+        for (int i = 0; i < k; i++) {
+            int lt = from[t * k + i];
+            int lv = from[v * k + i];
+            if (lv != INF) {
+                if (lt == INF) {
+                    return INF; //L reaches v but not t, so v cannot reach t either
+                }
+                bound = Math.max(bound, lt - lv);
+            }
+            int vl = to[v * k + i];
+            int tl = to[t * k + i];
+            if (tl != INF) {
+                if (vl == INF) {
+                    return INF; //t reaches L but v does not, so v cannot reach t
+                }
+                bound = Math.max(bound, vl - tl);
+            }
+        }
+        return bound;
+    }
+}
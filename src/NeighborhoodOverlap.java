@@ -0,0 +1,190 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the neighborhood overlap of the endpoints of every edge of a {@link CsrGraph} in one
+ * pass: the number of out neighbors {@code u} and {@code v} share, over the number of out
+ * neighbors only one of them has.
+ * <p>
+ * Only the real edges are visited, and every pair is intersected on the sorted neighbor runs of
+ * the CSR arrays, by a linear merge when the two degrees are alike and by galloping through the
+ * longer run when one is much shorter, so an edge costs about
+ * O(min(deg(u), deg(v)) lg(max(deg(u), deg(v)))) at worst. Every edge's result goes to its own
+ * slot, so ranges of source nodes can be handed to different threads without any locking.
+ */
+final public class NeighborhoodOverlap {
+    private NeighborhoodOverlap() {}
+
+    //above this degree ratio, galloping beats a linear merge
+    static final int GALLOP_RATIO = 16;
+
+    /**
+     * Runtime: O(sum over edges u-v of min(deg(u), deg(v)) lg(maxdeg))
+     *
+     * @param g the graph
+     * @return the overlap of every edge, indexed by edge id
+     */
+    public static double[] of(CsrGraph g) {
+        return of(g, 1);
+    }
+
+    /**
+     * Same as {@link #of(CsrGraph)}, splitting the source nodes across {@code parallelism}
+     * threads.
+     *
+     * @param g           the graph
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @return the overlap of every edge, indexed by edge id
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative
+     */
+    public static double[] of(CsrGraph g, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException();
+        }
+        double[] overlap = new double[g.getEdgeCount()];
+        if (parallelism == 1) {
+            fill(g, overlap, 0, g.getSize());
+            return overlap;
+        }
+        //ranges are split by edge count, so a few hubs do not leave one thread with all the work
+        long grain = Math.max(1, (long) g.getEdgeCount() / (parallelism * 8));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new Range(g, overlap, 0, g.getSize(), grain));
+        } finally {
+            pool.shutdown();
+        }
+        return overlap;
+    }
+
+    /**
+     * Runtime: O(sum over edges u-v of min(deg(u), deg(v)) lg(maxdeg))
+     *
+     * @param g           the graph
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @return the overlap of every edge summed and divided by the number of nodes, like
+     * {@link Graph#avgNeighOverlap}
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative
+     */
+    public static double average(CsrGraph g, int parallelism) {
+        double sum = 0.0;
+        for (double x : of(g, parallelism)) {
+            sum += x;
+        }
+        return sum / g.getSize();
+    }
+
+    //overlap of every edge leaving a node in [lo, hi)
+    static void fill(CsrGraph g, double[] overlap, int lo, int hi) {
+        int[] offsets = g.offsets;
+        int[] targets = g.targets;
+        for (int u = lo; u < hi; u++) {
+            int degU = offsets[u + 1] - offsets[u];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                int degV = offsets[v + 1] - offsets[v];
+                int shared = intersectionSize(targets, offsets[u], offsets[u + 1], offsets[v],
+                        offsets[v + 1]);
+                overlap[e] = (double) shared / (double) (degU + degV - 2 * shared);
+            }
+        }
+    }
+
+    /**
+     * Counts the values two sorted runs of {@code a} have in common.
+     *
+     * @return the size of the intersection of {@code a[aLo, aHi)} and {@code a[bLo, bHi)}
+     */
+    static int intersectionSize(int[] a, int aLo, int aHi, int bLo, int bHi) {
+        return intersectionSize(a, aLo, aHi, a, bLo, bHi);
+    }
+
+    /**
+     * Counts the values two sorted runs have in common.
+     *
+     * @return the size of the intersection of {@code a[aLo, aHi)} and {@code b[bLo, bHi)}
+     */
+    static int intersectionSize(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi) {
+        if (aHi - aLo > bHi - bLo) { //make a[aLo, aHi) the shorter run
+            return intersectionSize(b, bLo, bHi, a, aLo, aHi);
+        }
+        int shared = 0;
+        if ((long) (aHi - aLo) * GALLOP_RATIO < bHi - bLo) {
+            //look every value of the short run up in what is left of the long one
+            int j = bLo;
+            for (int i = aLo; i < aHi && j < bHi; i++) {
+                j = gallop(b, a[i], j, bHi);
+                if (j < bHi && b[j] == a[i]) {
+                    shared++;
+                    j++;
+                }
+            }
+            return shared;
+        }
+        int i = aLo;
+        int j = bLo;
+        while (i < aHi && j < bHi) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    //first index in [lo, hi) whose value is at least key, hi if there is none: doubles the step
+    //until it overshoots, then binary searches the last step, so it costs O(lg distance)
+    static int gallop(int[] a, int key, int lo, int hi) {
+        int step = 1;
+        int prev = lo;
+        int cur = lo;
+        while (cur < hi && a[cur] < key) {
+            prev = cur + 1;
+            cur = lo + step;
+            step <<= 1;
+        }
+        int end = Math.min(cur, hi);
+        while (prev < end) {
+            int mid = (prev + end) >>> 1;
+            if (a[mid] < key) {
+                prev = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return prev;
+    }
+
+    //overlaps of the edges leaving [lo, hi), split in half while it holds more than grain edges
+    static class Range extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final CsrGraph g;
+        private final double[] overlap;
+        private final int lo;
+        private final int hi;
+        private final long grain;
+
+        Range(CsrGraph g, double[] overlap, int lo, int hi, long grain) {
+            this.g = g;
+            this.overlap = overlap;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= 1 || g.offsets[hi] - g.offsets[lo] <= grain) {
+                fill(g, overlap, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Range(g, overlap, lo, mid, grain), new Range(g, overlap, mid, hi, grain));
+        }
+    }
+}
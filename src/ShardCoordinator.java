@@ -0,0 +1,379 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes edge betweeness across several processes, possibly on several machines: the
+ * coordinator splits the sources into ranges and hands them to {@link ShardWorker} processes,
+ * which stream back the partial betweeness of every edge for their range, and the coordinator
+ * sums them.
+ * <p>
+ * Every worker loads the same {@link GraphSnapshot} file (on a shared disk when the workers are on
+ * other machines) into its own heap copy, so only small range messages and the result vectors go
+ * over the sockets.
+ * Ranges are handed out one at a time as workers ask, so a fast or lightly loaded worker simply
+ * does more of them. If a worker dies, the range it was running goes back in the queue for the
+ * others. A worker that dies silently, with its machine or network, is caught by a heartbeat:
+ * while it runs a range it sends {@code HEARTBEAT} every heartbeat interval, and a worker the
+ * coordinator hears nothing from for {@link #MISSED_HEARTBEATS} intervals is dropped and its range
+ * put back. Both ends also turn on TCP keepalive for the idle time between ranges. Workers can
+ * join at any time, before or during a run, and stay connected for the next run until the
+ * coordinator is closed.
+ * <p>
+ * The protocol is plain {@link DataOutputStream} framing. A worker opens with
+ * {@code int MAGIC, long fingerprint} and is answered {@code ACCEPTED} or {@code REJECTED}. Then
+ * the coordinator sends {@code OP_RANGE, int lo, int hi, int mode, int heartbeatMillis} and the
+ * worker answers any number of {@code int HEARTBEAT} followed by {@code int lo, int hi, double[m]},
+ * until the coordinator sends {@code OP_STOP}.
+ */
+public class ShardCoordinator implements Closeable {
+    static final int MAGIC = 0x42545348; //"BTSH"
+    static final int ACCEPTED = 1;
+    static final int REJECTED = 0;
+    static final int OP_STOP = 0;
+    static final int OP_RANGE = 1;
+    static final int HEARTBEAT = -1; //never a range start
+    /** How many heartbeat intervals of silence a worker is allowed before it counts as dead. */
+    public static final int MISSED_HEARTBEATS = 4;
+    /** The heartbeat interval of {@link #ShardCoordinator(File, int)}. */
+    public static final int DEFAULT_HEARTBEAT_MILLIS = 1000;
+
+    private final File snapshot;
+    private final int n;
+    private final int m;
+    private final long fingerprint;
+    private final boolean negativeWeights;
+    private final int heartbeatMillis;
+    private final ServerSocket server;
+    private final LinkedBlockingQueue<Task> queue = new LinkedBlockingQueue<Task>();
+    private final List<Socket> sockets = new ArrayList<Socket>();
+    private final List<Process> processes = new ArrayList<Process>();
+    private final List<Run> runs = new ArrayList<Run>(); //edgeBetweeness calls still waiting
+    private volatile boolean closed;
+
+    //one range of sources of one run; STOP tells the handler that takes it to hang up
+    private static class Task {
+        static final Task STOP = new Task(null, 0, 0);
+        final Run run;
+        final int lo;
+        final int hi;
+
+        Task(Run run, int lo, int hi) {
+            this.run = run;
+            this.lo = lo;
+            this.hi = hi;
+        }
+    }
+
+    //the state of one edgeBetweeness call
+    private static class Run {
+        final Brandes.Mode mode;
+        final double[] score;
+        final CountDownLatch left;
+        volatile boolean abandoned; //timed out or closed, nobody wants its ranges any more
+
+        Run(Brandes.Mode mode, int m, int ranges) {
+            this.mode = mode;
+            score = new double[m];
+            left = new CountDownLatch(ranges);
+        }
+    }
+
+    /**
+     * Starts listening for workers on every local address, with workers sending a heartbeat
+     * every {@link #DEFAULT_HEARTBEAT_MILLIS} while they run a range.
+     *
+     * @param snapshot the graph snapshot file the workers will map
+     * @param port     the port to listen on, 0 for any free one
+     * @throws IOException if the snapshot cannot be read or the port cannot be opened
+     */
+    public ShardCoordinator(File snapshot, int port) throws IOException {
+        this(snapshot, port, DEFAULT_HEARTBEAT_MILLIS);
+    }
+
+    /**
+     * Starts listening for workers on every local address. A worker that has not been heard from
+     * for {@code MISSED_HEARTBEATS * heartbeatMillis}, in the handshake or while it runs a range,
+     * is dropped and its range goes to another worker.
+     *
+     * @param snapshot        the graph snapshot file the workers will map
+     * @param port            the port to listen on, 0 for any free one
+     * @param heartbeatMillis how often a worker running a range says it is alive
+     * @throws IOException              if the snapshot cannot be read or the port cannot be
+     *                                  opened
+     * @throws IllegalArgumentException if {@code heartbeatMillis} is not positive or too big
+     */
+    public ShardCoordinator(File snapshot, int port, int heartbeatMillis) throws IOException {
+        if (heartbeatMillis <= 0 || heartbeatMillis > Integer.MAX_VALUE / MISSED_HEARTBEATS) {
+            throw new IllegalArgumentException();
+        }
+        this.snapshot = snapshot;
+        this.heartbeatMillis = heartbeatMillis;
+        CsrGraph g = GraphSnapshot.open(snapshot).toCsrGraph();
+        n = g.getSize();
+        m = g.getEdgeCount();
+        fingerprint = Checkpoint.fingerprint(g);
+        negativeWeights = g.hasNegativeWeights();
+        server = new ServerSocket(port);
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        }, "shard-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return the port workers should connect to
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Starts worker JVMs on this machine with the same Java and class path as this one. They are
+     * stopped by {@link #close()}.
+     *
+     * @param count   how many workers to start
+     * @param threads the number of threads each worker runs a range with
+     * @return the worker processes
+     * @throws IOException              if a process cannot be started
+     * @throws IllegalArgumentException if {@code count} is negative or {@code threads} is not
+     *                                  positive
+     */
+    public List<Process> launchLocalWorkers(int count, int threads) throws IOException {
+        if (count < 0 || threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java")
+                .getPath();
+        List<Process> started = new ArrayList<Process>();
+        for (int i = 0; i < count; i++) {
+            ProcessBuilder pb = new ProcessBuilder(java, "-cp",
+                    System.getProperty("java.class.path"), "ShardWorker",
+                    InetAddress.getLoopbackAddress().getHostAddress(),
+                    Integer.toString(getPort()), snapshot.getAbsolutePath(),
+                    Integer.toString(threads));
+            pb.inheritIO();
+            Process p = pb.start();
+            started.add(p);
+            synchronized (processes) {
+                processes.add(p);
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Computes the betweeness of every edge of the snapshot, split into {@code ranges} ranges of
+     * consecutive sources. More ranges balance the load better, but every range sends back one
+     * vector of m doubles. Blocks until every range is done, so at least one worker has to be
+     * connected or join before {@code timeoutMillis} runs out.
+     *
+     * @param mode          how the length of a path is measured
+     * @param ranges        how many ranges to split the sources into
+     * @param timeoutMillis how long to wait for the whole run
+     * @return the betweeness of every edge, indexed by edge id of the snapshot
+     * @throws IOException              if the run does not finish in time, or the coordinator is
+     *                                  closed
+     * @throws IllegalArgumentException if {@code ranges} is not positive, or some edge weight is
+     *                                  negative and paths are weighted
+     */
+    public double[] edgeBetweeness(Brandes.Mode mode, int ranges, long timeoutMillis)
+            throws IOException {
+        if (ranges <= 0 || (mode == Brandes.Mode.WEIGHTED && negativeWeights)) {
+            throw new IllegalArgumentException();
+        }
+        ranges = Math.max(1, Math.min(ranges, n));
+        Run run = new Run(mode, m, ranges);
+        synchronized (runs) {
+            //checked under the lock, so close either sees this run or it sees closed
+            if (closed) {
+                throw new IOException("coordinator is closed");
+            }
+            runs.add(run);
+        }
+        try {
+            for (int i = 0; i < ranges; i++) {
+                int lo = (int) ((long) n * i / ranges);
+                int hi = (int) ((long) n * (i + 1) / ranges);
+                queue.add(new Task(run, lo, hi));
+            }
+            if (!run.left.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                run.abandoned = true;
+                throw new IOException("betweeness run timed out with " + run.left.getCount()
+                        + " of " + ranges + " ranges left");
+            }
+            if (run.abandoned) {
+                throw new IOException("coordinator is closed");
+            }
+        } catch (InterruptedException e) {
+            run.abandoned = true;
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } finally {
+            synchronized (runs) {
+                runs.remove(run);
+            }
+        }
+        synchronized (run) {
+            return run.score.clone();
+        }
+    }
+
+    /**
+     * Tells every worker to stop, stops the ones {@link #launchLocalWorkers} started, and closes
+     * the port. A run still waiting in {@link #edgeBetweeness} fails at once.
+     *
+     * @throws IOException if the port cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        synchronized (runs) {
+            for (Run run : runs) {
+                run.abandoned = true;
+                while (run.left.getCount() > 0) { //wakes the waiting call, which sees abandoned
+                    run.left.countDown();
+                }
+            }
+        }
+        server.close();
+        int handlers;
+        synchronized (sockets) {
+            handlers = sockets.size();
+        }
+        queue.clear();
+        for (int i = 0; i < handlers; i++) {
+            queue.add(Task.STOP);
+        }
+        synchronized (processes) {
+            for (Process p : processes) {
+                try {
+                    if (!p.waitFor(5, TimeUnit.SECONDS)) {
+                        p.destroy();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    p.destroy();
+                }
+            }
+        }
+        synchronized (sockets) {
+            for (Socket s : sockets) {
+                s.close();
+            }
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            final Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                return; //closed
+            }
+            synchronized (sockets) {
+                sockets.add(socket);
+            }
+            Thread handler = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    serve(socket);
+                }
+            }, "shard-" + socket.getRemoteSocketAddress());
+            handler.setDaemon(true);
+            handler.start();
+        }
+    }
+
+    //feeds one worker ranges until it fails or is told to stop, putting back a range it failed
+    private void serve(Socket socket) {
+        Task task = null;
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            //reads only happen in the handshake and while a range runs, when the worker talks
+            socket.setSoTimeout(MISSED_HEARTBEATS * heartbeatMillis);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    socket.getInputStream(), 1 << 16));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    socket.getOutputStream(), 1 << 16));
+            if (in.readInt() != MAGIC || in.readLong() != fingerprint) {
+                out.writeInt(REJECTED);
+                out.flush();
+                return;
+            }
+            out.writeInt(ACCEPTED);
+            out.flush();
+            double[] partial = new double[m];
+            while (true) {
+                task = queue.take();
+                if (task == Task.STOP) {
+                    task = null;
+                    out.writeInt(OP_STOP);
+                    out.flush();
+                    return;
+                }
+                if (task.run.abandoned) {
+                    task = null;
+                    continue;
+                }
+                out.writeInt(OP_RANGE);
+                out.writeInt(task.lo);
+                out.writeInt(task.hi);
+                out.writeInt(task.run.mode.ordinal());
+                out.writeInt(heartbeatMillis);
+                out.flush();
+                int lo = in.readInt();
+                while (lo == HEARTBEAT) {
+                    lo = in.readInt();
+                }
+                if (lo != task.lo || in.readInt() != task.hi) {
+                    throw new IOException("worker answered for another range");
+                }
+                for (int e = 0; e < m; e++) {
+                    partial[e] = in.readDouble();
+                }
+                synchronized (task.run) {
+                    for (int e = 0; e < m; e++) {
+                        task.run.score[e] += partial[e];
+                    }
+                }
+                task.run.left.countDown();
+                task = null;
+            }
+        } catch (IOException e) {
+            //the worker is gone or went silent, someone else gets its range
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (task != null && !closed) {
+                queue.add(task);
+            }
+            synchronized (sockets) {
+                sockets.remove(socket);
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //already broken
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * A worker process for {@link ShardCoordinator}: maps the shared graph snapshot, connects to the
+ * coordinator, and runs the ranges of sources it is handed until it is told to stop or the
+ * coordinator goes away.
+ * <p>
+ * Start one, with the project on the class path, as
+ * <pre>
+ *   java ShardWorker &lt;host&gt; &lt;port&gt; &lt;snapshot file&gt; &lt;threads&gt;
+ * </pre>
+ * or let {@link ShardCoordinator#launchLocalWorkers(int, int)} do it. Every worker reads the graph
+ * from the same {@link GraphSnapshot} file, so nothing but the source ranges and the results
+ * crosses the socket. The worker sends the {@link Checkpoint#fingerprint(CsrGraph) fingerprint}
+ * of its copy first, and the coordinator turns it away if it is not the graph being computed.
+ * While a range runs, a second thread sends the coordinator a heartbeat at the interval it asked
+ * for, so it can tell a slow range from a dead worker.
+ */
+final public class ShardWorker {
+    private ShardWorker() {}
+
+    /** How long to wait for the coordinator to take the connection and answer the handshake. */
+    public static final int CONNECT_TIMEOUT_MILLIS = 10000;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("usage: ShardWorker <host> <port> <snapshot file> <threads>");
+            System.exit(2);
+        }
+        run(args[0], Integer.parseInt(args[1]), new File(args[2]), Integer.parseInt(args[3]));
+    }
+
+    /**
+     * Serves a coordinator until it says stop or closes the connection.
+     *
+     * @param host     the coordinator's host
+     * @param port     the coordinator's port
+     * @param snapshot the graph snapshot file the coordinator was given
+     * @param threads  the number of threads to run each range with
+     * @throws IOException              if the snapshot cannot be read, the connection fails or
+     *                                  times out, or the coordinator turns this worker away
+     * @throws IllegalArgumentException if {@code threads} is zero or negative
+     */
+    public static void run(String host, int port, File snapshot, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        CsrGraph g = GraphSnapshot.open(snapshot).toCsrGraph();
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    socket.getInputStream(), 1 << 16));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    socket.getOutputStream(), 1 << 16));
+            out.writeInt(ShardCoordinator.MAGIC);
+            out.writeLong(Checkpoint.fingerprint(g));
+            out.flush();
+            if (in.readInt() != ShardCoordinator.ACCEPTED) {
+                throw new IOException("coordinator is computing another graph than " + snapshot);
+            }
+            socket.setSoTimeout(0); //the coordinator may well be idle between runs
+            while (true) {
+                int op;
+                try {
+                    op = in.readInt();
+                } catch (EOFException e) {
+                    return; //the coordinator closed
+                }
+                if (op == ShardCoordinator.OP_STOP) {
+                    return;
+                }
+                int lo = in.readInt();
+                int hi = in.readInt();
+                Brandes.Mode mode = Brandes.Mode.values()[in.readInt()];
+                int heartbeatMillis = in.readInt();
+                int[] sources = new int[hi - lo];
+                for (int i = 0; i < sources.length; i++) {
+                    sources[i] = lo + i;
+                }
+                Heartbeat heartbeat = new Heartbeat(out, heartbeatMillis);
+                Thread beating = new Thread(heartbeat, "shard-heartbeat");
+                beating.setDaemon(true);
+                beating.start();
+                double[] partial;
+                try {
+                    partial = Brandes.edgeBetweeness(g, sources, threads, mode);
+                } finally {
+                    heartbeat.stop();
+                }
+                synchronized (out) {
+                    out.writeInt(lo);
+                    out.writeInt(hi);
+                    for (double x : partial) {
+                        out.writeDouble(x);
+                    }
+                    out.flush();
+                }
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    //writes HEARTBEAT to out every interval until stopped, holding out's lock for each one so it
+    //never lands inside a result
+    private static class Heartbeat implements Runnable {
+        private final DataOutputStream out;
+        private final long interval;
+        private boolean stopped; //guarded by out
+
+        Heartbeat(DataOutputStream out, long interval) {
+            this.out = out;
+            this.interval = interval;
+        }
+
+        @Override
+        public void run() {
+            synchronized (out) {
+                try {
+                    while (true) {
+                        out.wait(interval);
+                        if (stopped) {
+                            return;
+                        }
+                        out.writeInt(ShardCoordinator.HEARTBEAT);
+                        out.flush();
+                    }
+                } catch (InterruptedException e) {
+                    //stop beating
+                } catch (IOException e) {
+                    //the coordinator is gone, the result write will find out too
+                }
+            }
+        }
+
+        //no heartbeat is written after this returns
+        void stop() {
+            synchronized (out) {
+                stopped = true;
+                out.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of one single-source Dijkstra run: for every node its parent on a shortest path, its
+ * distance from the source, and the number of shortest paths reaching it. Build one with
+ * {@link Dijkstra#shortestPathTree} and read off as many paths as needed without running Dijkstra
+ * again.
+ * <p>
+ * If the run stopped early (once a set of targets was settled), only the settled nodes have final
+ * answers; every other node is reported as unreachable.
+ */
+public class ShortestPathTree {
+    private final int src;
+    private final int[] parent; //-1 for the source and for unreached nodes
+    private final int[] distance; //Integer.MAX_VALUE if not reached
+    private final double[] pathCount;
+    private final boolean[] settled;
+
+    ShortestPathTree(int src, int[] parent, int[] distance, double[] pathCount, boolean[] settled) {
+        this.src = src;
+        this.parent = parent;
+        this.distance = distance;
+        this.pathCount = pathCount;
+        this.settled = settled;
+    }
+
+    /**
+     * @return the source node of the tree
+     */
+    public int getSource() {
+        return src;
+    }
+
+    /**
+     * @param v a node
+     * @return true if a shortest path from the source to {@code v} is known
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public boolean hasPathTo(int v) {
+        checkVertex(v);
+        return settled[v];
+    }
+
+    /**
+     * @param v a node
+     * @return the length of the shortest path to {@code v}, or {@code Integer.MAX_VALUE} if there
+     * is none
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public int distanceTo(int v) {
+        return hasPathTo(v) ? distance[v] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param v a node
+     * @return the node before {@code v} on its shortest path, or -1 for the source and for
+     * unreachable nodes
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public int parent(int v) {
+        return hasPathTo(v) ? parent[v] : -1;
+    }
+
+    /**
+     * @param v a node
+     * @return the number of distinct shortest paths from the source to {@code v}, 0 if there is
+     * none
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public double pathCount(int v) {
+        return hasPathTo(v) ? pathCount[v] : 0.0;
+    }
+
+    /**
+     * Reads one shortest path out of the tree. The path is built by walking the parent pointers
+     * once into an int array, so it takes O(L) time and one array for a path of L nodes.
+     *
+     * @param tgt the target node
+     * @return an empty list if there is no path from the source to {@code tgt}, otherwise an
+     * unmodifiable list of the nodes on the path, the first being the source and the last
+     * {@code tgt}
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public List<Integer> pathTo(int tgt) {
+        final int[] path = pathArray(tgt);
+        if (path.length == 0) {
+            return Collections.emptyList();
+        }
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return path[index];
+            }
+
+            @Override
+            public int size() {
+                return path.length;
+            }
+        };
+    }
+
+    /**
+     * Same as {@link #pathTo(int)} as a plain array.
+     *
+     * @param tgt the target node
+     * @return the nodes on the path from the source to {@code tgt}, empty if there is none
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public int[] pathArray(int tgt) {
+        if (!hasPathTo(tgt)) {
+            return new int[0];
+        }
+        int length = 1;
+        for (int v = tgt; v != src; v = parent[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = tgt, i = length - 1; i >= 0; v = parent[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+
+    private void checkVertex(int v) {
+        if (v < 0 || v >= parent.length) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Which edges of a {@link Graph} are strong ties, classified once and then kept up to date as
+ * edges come and go.
+ * <p>
+ * The index is built on a CSR snapshot of the graph and stores one bit per snapshot edge id. A
+ * deleted edge is only marked in a second bitset, and the rare edge added after the
+ * snapshot is classified on its own and kept in a small map, so neither costs more than one
+ * classification. {@link Graph} updates its index from {@code addEdge} and {@code deleteEdge}.
+ * <p>
+ * The classifier decides how strong is measured. Weight thresholds depend on the edge alone, so
+ * the index stays exact. Overlap depends on the rest of the graph, and the index keeps the
+ * classification from when it was built (plus new edges judged against the graph at the time
+ * they were added) until {@link #rebuild()} is called. A betweeness percentile cannot judge a new
+ * edge at all, so once one is added the index is rebuilt the next time it is read.
+ */
+public class TieIndex {
+    /** The fewest changes {@link #isRebuildCheaper(int)} ever rebuilds for. */
+    public static final int MIN_REBUILD = 64;
+
+    /**
+     * Decides which edges are strong.
+     */
+    public interface Classifier {
+        /**
+         * @param g a snapshot of the graph
+         * @return the strong edges, by edge id of {@code g}
+         */
+        BitSet classify(CsrGraph g);
+
+        /**
+         * Classifies one edge added after the index was built.
+         *
+         * @param g the graph, already holding the {@code u-v} edge
+         * @param u source vertex
+         * @param v target vertex
+         * @return true if {@code u-v} is strong, false if it is weak, or null if it can only be
+         * judged by classifying the whole graph again
+         */
+        Boolean isStrong(Graph g, int u, int v);
+    }
+
+    /**
+     * @param threshold edges heavier than this are strong
+     * @return a classifier by edge weight
+     */
+    public static Classifier byWeight(final int threshold) {
+        return new Classifier() {
+            @Override
+            public BitSet classify(CsrGraph g) {
+                BitSet strong = new BitSet(g.getEdgeCount());
+                for (int e = 0; e < g.getEdgeCount(); e++) {
+                    if (g.weights[e] > threshold) {
+                        strong.set(e);
+                    }
+                }
+                return strong;
+            }
+
+            @Override
+            public Boolean isStrong(Graph g, int u, int v) {
+                return g.getWeight(u, v) > threshold;
+            }
+        };
+    }
+
+    /**
+     * @param threshold edges whose endpoints' neighborhood overlap is above this are strong
+     * @return a classifier by neighborhood overlap
+     */
+    public static Classifier byOverlap(final double threshold) {
+        return new Classifier() {
+            @Override
+            public BitSet classify(CsrGraph g) {
+                double[] overlap = NeighborhoodOverlap.of(g);
+                BitSet strong = new BitSet(g.getEdgeCount());
+                for (int e = 0; e < overlap.length; e++) {
+                    if (overlap[e] > threshold) {
+                        strong.set(e);
+                    }
+                }
+                return strong;
+            }
+
+            @Override
+            public Boolean isStrong(Graph g, int u, int v) {
+                return g.neighOverlap(g, u, v) > threshold;
+            }
+        };
+    }
+
+    /**
+     * Strong ties carry few shortest paths, so the edges with the lowest betweeness are strong.
+     * Classifying runs Brandes' algorithm on the snapshot and finds the cutoff from scratch. A
+     * new edge has no betweeness until the whole graph is measured again, so an index built with
+     * this classifier reclassifies every edge the next time it is read after an edge is added.
+     *
+     * @param percentile edges whose betweeness is at or below this percentile, in
+     *                   {@code [0, 100]}, are strong
+     * @return a classifier by betweeness percentile
+     * @throws IllegalArgumentException if {@code percentile} is out of range
+     */
+    public static Classifier byBetweenessPercentile(final double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException();
+        }
+        return new Classifier() {
+            @Override
+            public BitSet classify(CsrGraph g) {
+                BitSet strong = new BitSet(g.getEdgeCount());
+                if (g.getEdgeCount() == 0) {
+                    return strong;
+                }
+                g.populateBetweeness(1);
+                double[] sorted = g.betweeness.clone();
+                Arrays.sort(sorted);
+                int rank = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+                double cutoff = rank < 0 ? Double.NEGATIVE_INFINITY : sorted[rank];
+                for (int e = 0; e < g.getEdgeCount(); e++) {
+                    if (g.betweeness[e] <= cutoff) {
+                        strong.set(e);
+                    }
+                }
+                return strong;
+            }
+
+            @Override
+            public Boolean isStrong(Graph g, int u, int v) {
+                return null; //its betweeness is only known once the whole graph is measured
+            }
+        };
+    }
+
+    private final Graph g;
+    private final Classifier classifier;
+    private CsrGraph base; //the snapshot the bits refer to
+    private BitSet strong; //by edge id of base
+    private BitSet deleted; //edges of base deleted since
+    private HashMap<Long, Boolean> added; //edges not in base, u << 32 | v to strength
+    private boolean stale; //an edge was added that only a full classification can judge
+
+    /**
+     * Classifies every edge of {@code g}. Use {@link Graph#buildTieIndex} to have the graph keep
+     * it up to date.
+     * <p>
+     * Runtime: O(n + m lg(maxdeg)) plus the classifier
+     *
+     * @param g          the graph
+     * @param classifier decides which edges are strong
+     */
+    TieIndex(Graph g, Classifier classifier) {
+        this.g = g;
+        this.classifier = classifier;
+        rebuild();
+    }
+
+    /**
+     * Reclassifies every edge from scratch against a new snapshot of the graph.
+     */
+    public void rebuild() {
+        base = new CsrGraph(g);
+        strong = classifier.classify(base);
+        deleted = new BitSet(base.getEdgeCount());
+        added = new HashMap<Long, Boolean>();
+        stale = false;
+    }
+
+    /**
+     * Tells whether {@code changes} edge insertions and deletions are cheaper to take in with one
+     * {@link #rebuild()} than one at a time: they are once they reach an eighth of the edges the
+     * index was built on, and at least {@link #MIN_REBUILD} of them.
+     *
+     * @param changes the number of changed edges
+     * @return true if rebuilding is cheaper
+     */
+    public boolean isRebuildCheaper(int changes) {
+        return changes >= Math.max(MIN_REBUILD, base.getEdgeCount() / 8);
+    }
+
+    /**
+     * @return the classifier the index was built with
+     */
+    public Classifier getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * Runtime: O(lg(outdeg(u))), plus a {@link #rebuild()} if an edge the classifier cannot
+     * judge alone was added since the last one
+     *
+     * @param u source vertex
+     * @param v target vertex
+     * @return true if {@code u-v} is an edge and a strong tie
+     * @throws IllegalArgumentException if a specified vertex does not exist
+     */
+    public boolean isStrong(int u, int v) {
+        refresh();
+        int e = base.edgeId(u, v);
+        if (e != -1 && !deleted.get(e)) {
+            return strong.get(e);
+        }
+        Boolean s = added.get(key(u, v));
+        return s != null && s;
+    }
+
+    /**
+     * @return the number of edges that are strong ties
+     */
+    public int strongCount() {
+        refresh();
+        BitSet live = (BitSet) strong.clone();
+        live.andNot(deleted);
+        int count = live.cardinality();
+        for (boolean s : added.values()) {
+            if (s) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Translates the index to the edge ids of a newer snapshot of the same graph, which is what
+     * {@link Triangles} takes.
+     * <p>
+     * Runtime: O(m lg(maxdeg))
+     *
+     * @param snapshot a snapshot of the graph taken after any of the changes the index has seen
+     * @return the strong edges, by edge id of {@code snapshot}
+     */
+    public BitSet strongEdges(CsrGraph snapshot) {
+        refresh();
+        BitSet result = new BitSet(snapshot.getEdgeCount());
+        for (int u = 0; u < snapshot.getSize(); u++) {
+            for (int e = snapshot.offsets[u]; e < snapshot.offsets[u + 1]; e++) {
+                if (isStrong(u, snapshot.targets[e])) {
+                    result.set(e);
+                }
+            }
+        }
+        return result;
+    }
+
+    //called by Graph once u-v has been added
+    void edgeAdded(int u, int v) {
+        if (stale) {
+            return; //the next read classifies everything anyway
+        }
+        Boolean s = classifier.isStrong(g, u, v);
+        if (s == null) {
+            stale = true;
+            return;
+        }
+        int e = base.edgeId(u, v);
+        if (e != -1) {
+            deleted.clear(e); //deleted and added back, maybe with another weight
+            strong.set(e, s);
+        } else {
+            added.put(key(u, v), s);
+        }
+    }
+
+    //called by Graph once u-v has been deleted
+    void edgeDeleted(int u, int v) {
+        if (stale) {
+            return;
+        }
+        int e = base.edgeId(u, v);
+        if (e != -1) {
+            deleted.set(e);
+        } else {
+            added.remove(key(u, v));
+        }
+    }
+
+    //classifies every edge again if some added edge could not be classified on its own
+    private void refresh() {
+        if (stale) {
+            rebuild();
+        }
+    }
+
+    private static long key(int u, int v) {
+        return ((long) u << 32) | v;
+    }
+}
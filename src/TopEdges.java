@@ -0,0 +1,97 @@
+/**
+ * Finds the k edges with the highest betweeness without sorting every edge.
+ * <p>
+ * The best k seen so far are kept in a bounded min-heap keyed by score, so each further edge costs
+ * one comparison against the weakest of them, and only the edges that beat it pay O(lg k) to get
+ * in. Ties always go to the smaller edge id, so the answer does not depend on iteration order.
+ */
+final public class TopEdges {
+    private TopEdges() {}
+
+    /**
+     * Runtime: O(m + t lg k) where t is the number of edges that enter the heap
+     *
+     * @param scores the score of every edge, indexed by edge id
+     * @param k      how many edges to return
+     * @return the ids of the (at most) k highest scoring edges, best first
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public static int[] of(double[] scores, int k) {
+        return of(scores, null, k);
+    }
+
+    /**
+     * Runtime: O(m + t lg k) where t is the number of edges that enter the heap
+     *
+     * @param scores the score of every edge, indexed by edge id
+     * @param skip   edges to leave out, indexed by edge id, or null to consider every edge
+     * @param k      how many edges to return
+     * @return the ids of the (at most) k highest scoring edges, best first
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public static int[] of(double[] scores, boolean[] skip, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+        int[] heap = new int[Math.min(k, scores.length)]; //edge ids, worst of the best at heap[0]
+        int size = 0;
+        for (int e = 0; e < scores.length; e++) {
+            if (skip != null && skip[e]) {
+                continue;
+            }
+            if (size < heap.length) {
+                heap[size] = e;
+                siftUp(scores, heap, size++);
+            } else if (size > 0 && worse(scores, heap[0], e)) {
+                heap[0] = e; //e beats the weakest kept edge, everything below it stays out
+                siftDown(scores, heap, 0, size);
+            }
+        }
+        //pop the worst until empty, filling the answer from the back
+        int[] top = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            top[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(scores, heap, 0, i);
+        }
+        return top;
+    }
+
+    //true if edge a ranks below edge b
+    static boolean worse(double[] scores, int a, int b) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && a > b);
+    }
+
+    private static void siftUp(double[] scores, int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!worse(scores, heap[index], heap[parent])) {
+                break;
+            }
+            int tmp = heap[index];
+            heap[index] = heap[parent];
+            heap[parent] = tmp;
+            index = parent;
+        }
+    }
+
+    private static void siftDown(double[] scores, int[] heap, int index, int size) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            if (left < size && worse(scores, heap[left], heap[smallest])) {
+                smallest = left;
+            }
+            if (left + 1 < size && worse(scores, heap[left + 1], heap[smallest])) {
+                smallest = left + 1;
+            }
+            if (smallest == index) {
+                return;
+            }
+            int tmp = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = tmp;
+            index = smallest;
+        }
+    }
+}
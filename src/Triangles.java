@@ -0,0 +1,394 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Triangle and wedge counts of a {@link CsrGraph}, per node and in total, with the triadic closure
+ * violations and clustering coefficients that follow from them.
+ * <p>
+ * Counting works on the undirected view of the graph: {@code u} and {@code v} are adjacent if
+ * either {@code u-v} or {@code v-u} is an edge. A wedge at {@code v} is a pair of its neighbors,
+ * and it is closed if the two are adjacent as well. A strong wedge is a pair of strong ties of
+ * {@code v}, out edges of {@code v} marked strong, and an open strong wedge is a triadic closure
+ * violation.
+ * <p>
+ * Every node is ranked by degree and keeps only its higher ranked neighbors, so every triangle is
+ * found exactly once, from its lowest ranked corner, by merging two of these forward lists. No
+ * forward list is longer than O(sqrt(m)), which bounds the whole pass by O(m^1.5). Ranges of nodes
+ * are counted on different threads, each into its own arrays, which are summed at the end.
+ */
+public class Triangles {
+    //bits of a forward list entry x of node u
+    static final byte OUT_STRONG = 1; //u-x is a strong edge
+    static final byte IN_STRONG = 2; //x-u is a strong edge
+
+    private final long[] triangles; //triangles through each node
+    private final long[] closedStrong; //closed strong wedges at each node
+    private final int[] degree; //number of neighbors in the undirected view
+    private final int[] strongDegree; //number of strong out edges
+    private final long triangleCount;
+
+    private Triangles(long[] triangles, long[] closedStrong, int[] degree, int[] strongDegree) {
+        this.triangles = triangles;
+        this.closedStrong = closedStrong;
+        this.degree = degree;
+        this.strongDegree = strongDegree;
+        long sum = 0;
+        for (long t : triangles) {
+            sum += t;
+        }
+        triangleCount = sum / 3;
+    }
+
+    /**
+     * Counts with strong ties being the edges with a weight above {@code strongWeight}.
+     *
+     * @param g            the graph
+     * @param strongWeight edges heavier than this are strong
+     * @param parallelism  the number of worker threads, 1 runs on the calling thread
+     * @return the counts
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative
+     */
+    public static Triangles of(CsrGraph g, int strongWeight, int parallelism) {
+        BitSet strong = new BitSet(g.getEdgeCount());
+        for (int e = 0; e < g.getEdgeCount(); e++) {
+            if (g.weights[e] > strongWeight) {
+                strong.set(e);
+            }
+        }
+        return of(g, strong, parallelism);
+    }
+
+    /**
+     * Runtime: O(m^1.5 / parallelism + n lg n)
+     *
+     * @param g           the graph
+     * @param strong      the strong edges, by edge id
+     * @param parallelism the number of worker threads, 1 runs on the calling thread
+     * @return the counts
+     * @throws IllegalArgumentException if {@code parallelism} is zero or negative
+     */
+    public static Triangles of(final CsrGraph g, BitSet strong, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException();
+        }
+        final int n = g.getSize();
+        g.buildReverse();
+        int[] degree = new int[n];
+        int[] strongDegree = new int[n];
+        for (int u = 0; u < n; u++) {
+            degree[u] = mergedSize(g, u);
+            for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+                if (strong.get(e)) {
+                    strongDegree[u]++;
+                }
+            }
+        }
+
+        //rank by degree, ties by id
+        long[] keys = new long[n];
+        for (int v = 0; v < n; v++) {
+            keys[v] = ((long) degree[v] << 32) | v;
+        }
+        Arrays.sort(keys);
+        int[] rank = new int[n];
+        for (int r = 0; r < n; r++) {
+            rank[(int) keys[r]] = r;
+        }
+        final Forward fwd = new Forward(g, strong, degree, rank);
+
+        if (parallelism == 1) {
+            Counter counter = new Counter(n);
+            counter.count(fwd, 0, n);
+            return new Triangles(counter.triangles, counter.closedStrong, degree, strongDegree);
+        }
+        final ConcurrentLinkedQueue<Counter> counters = new ConcurrentLinkedQueue<Counter>();
+        ThreadLocal<Counter> local = new ThreadLocal<Counter>() {
+            @Override
+            protected Counter initialValue() {
+                Counter counter = new Counter(n);
+                counters.add(counter);
+                return counter;
+            }
+        };
+        //ranges are split by forward entries, which is roughly what they cost
+        long grain = Math.max(1, (long) fwd.offsets[n] / (parallelism * 8));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new Range(fwd, 0, n, grain, local));
+        } finally {
+            pool.shutdown();
+        }
+
+        //reduce, O(n) per thread
+        long[] triangles = new long[n];
+        long[] closedStrong = new long[n];
+        for (Counter counter : counters) {
+            for (int v = 0; v < n; v++) {
+                triangles[v] += counter.triangles[v];
+                closedStrong[v] += counter.closedStrong[v];
+            }
+        }
+        return new Triangles(triangles, closedStrong, degree, strongDegree);
+    }
+
+    //number of distinct nodes among the out and in neighbors of u
+    private static int mergedSize(CsrGraph g, int u) {
+        return g.offsets[u + 1] - g.offsets[u] + g.inOffsets[u + 1] - g.inOffsets[u]
+                - NeighborhoodOverlap.intersectionSize(g.targets, g.offsets[u],
+                        g.offsets[u + 1], g.inSources, g.inOffsets[u], g.inOffsets[u + 1]);
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int getSize() {
+        return triangles.length;
+    }
+
+    /**
+     * @param v a node
+     * @return the number of triangles through {@code v}
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public long getTriangles(int v) {
+        checkVertex(v);
+        return triangles[v];
+    }
+
+    /**
+     * @return the number of triangles in the graph
+     */
+    public long getTriangleCount() {
+        return triangleCount;
+    }
+
+    /**
+     * @param v a node
+     * @return the number of pairs of neighbors of {@code v}
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public long getWedges(int v) {
+        checkVertex(v);
+        return pairs(degree[v]);
+    }
+
+    /**
+     * @return the number of wedges in the graph, open or closed
+     */
+    public long getWedgeCount() {
+        long sum = 0;
+        for (int d : degree) {
+            sum += pairs(d);
+        }
+        return sum;
+    }
+
+    /**
+     * @param v a node
+     * @return the number of pairs of strong ties of {@code v}
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public long getStrongWedges(int v) {
+        checkVertex(v);
+        return pairs(strongDegree[v]);
+    }
+
+    /**
+     * @param v a node
+     * @return the number of pairs of strong ties of {@code v} that are not adjacent, each one a
+     * triadic closure violation
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public long getViolations(int v) {
+        checkVertex(v);
+        return pairs(strongDegree[v]) - closedStrong[v];
+    }
+
+    /**
+     * @return the number of triadic closure violations in the graph
+     */
+    public long getViolationCount() {
+        long sum = 0;
+        for (int v = 0; v < triangles.length; v++) {
+            sum += pairs(strongDegree[v]) - closedStrong[v];
+        }
+        return sum;
+    }
+
+    /**
+     * @return the nodes with at least one triadic closure violation
+     */
+    public Set<Integer> violators() {
+        Set<Integer> nodes = new HashSet<Integer>();
+        for (int v = 0; v < triangles.length; v++) {
+            if (pairs(strongDegree[v]) > closedStrong[v]) {
+                nodes.add(v);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @param v a node
+     * @return the local clustering coefficient of {@code v}, the fraction of its wedges that are
+     * closed, 0 if it has fewer than two neighbors
+     * @throws IllegalArgumentException if the node does not exist
+     */
+    public double clustering(int v) {
+        long wedges = getWedges(v);
+        return wedges == 0 ? 0.0 : (double) triangles[v] / wedges;
+    }
+
+    /**
+     * @return the global clustering coefficient (transitivity), the fraction of all wedges that
+     * are closed, 0 if there are none
+     */
+    public double transitivity() {
+        long wedges = getWedgeCount();
+        return wedges == 0 ? 0.0 : 3.0 * triangleCount / wedges;
+    }
+
+    private static long pairs(long k) {
+        return k * (k - 1) / 2;
+    }
+
+    private void checkVertex(int v) {
+        if (v < 0 || v >= triangles.length) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    //for every node, its higher ranked neighbors in increasing id order, with their strong bits
+    static class Forward {
+        final int[] offsets;
+        final int[] nodes;
+        final byte[] bits;
+
+        Forward(CsrGraph g, BitSet strong, int[] degree, int[] rank) {
+            int n = g.getSize();
+            offsets = new int[n + 1];
+            long total = 0;
+            for (int u = 0; u < n; u++) {
+                total += degree[u];
+            }
+            //every undirected edge is kept by exactly one of its ends
+            nodes = new int[(int) (total / 2)];
+            bits = new byte[nodes.length];
+            int k = 0;
+            for (int u = 0; u < n; u++) {
+                int i = g.offsets[u];
+                int iEnd = g.offsets[u + 1];
+                int j = g.inOffsets[u];
+                int jEnd = g.inOffsets[u + 1];
+                while (i < iEnd || j < jEnd) {
+                    int x;
+                    byte b = 0;
+                    if (j == jEnd || (i < iEnd && g.targets[i] < g.inSources[j])) {
+                        x = g.targets[i];
+                        b = strong.get(i) ? OUT_STRONG : 0;
+                        i++;
+                    } else if (i == iEnd || g.inSources[j] < g.targets[i]) {
+                        x = g.inSources[j];
+                        b = strong.get(g.inEdges[j]) ? IN_STRONG : 0;
+                        j++;
+                    } else { //both u-x and x-u
+                        x = g.targets[i];
+                        b = (byte) ((strong.get(i) ? OUT_STRONG : 0)
+                                | (strong.get(g.inEdges[j]) ? IN_STRONG : 0));
+                        i++;
+                        j++;
+                    }
+                    if (rank[x] > rank[u]) {
+                        nodes[k] = x;
+                        bits[k] = b;
+                        k++;
+                    }
+                }
+                offsets[u + 1] = k;
+            }
+        }
+    }
+
+    //per thread accumulators
+    static class Counter {
+        final long[] triangles;
+        final long[] closedStrong;
+
+        Counter(int n) {
+            triangles = new long[n];
+            closedStrong = new long[n];
+        }
+
+        //every triangle whose lowest ranked corner is in [lo, hi)
+        void count(Forward fwd, int lo, int hi) {
+            int[] offsets = fwd.offsets;
+            int[] nodes = fwd.nodes;
+            byte[] bits = fwd.bits;
+            for (int u = lo; u < hi; u++) {
+                for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+                    int v = nodes[a];
+                    //merge u's and v's forward lists, every common node w closes u-v-w
+                    int i = offsets[u];
+                    int j = offsets[v];
+                    while (i < offsets[u + 1] && j < offsets[v + 1]) {
+                        if (nodes[i] < nodes[j]) {
+                            i++;
+                        } else if (nodes[i] > nodes[j]) {
+                            j++;
+                        } else {
+                            int w = nodes[i];
+                            triangles[u]++;
+                            triangles[v]++;
+                            triangles[w]++;
+                            //a corner's wedge is strong if both its edges leave it strong
+                            if ((bits[a] & bits[i] & OUT_STRONG) != 0) {
+                                closedStrong[u]++;
+                            }
+                            if ((bits[a] & IN_STRONG) != 0 && (bits[j] & OUT_STRONG) != 0) {
+                                closedStrong[v]++;
+                            }
+                            if ((bits[i] & bits[j] & IN_STRONG) != 0) {
+                                closedStrong[w]++;
+                            }
+                            i++;
+                            j++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    //counts the triangles of the nodes [lo, hi), halving while it holds more than grain entries
+    static class Range extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Forward fwd;
+        private final int lo;
+        private final int hi;
+        private final long grain;
+        private final ThreadLocal<Counter> local;
+
+        Range(Forward fwd, int lo, int hi, long grain, ThreadLocal<Counter> local) {
+            this.fwd = fwd;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+            this.local = local;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= 1 || fwd.offsets[hi] - fwd.offsets[lo] <= grain) {
+                local.get().count(fwd, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Range(fwd, lo, mid, grain, local), new Range(fwd, mid, hi, grain, local));
+        }
+    }
+}
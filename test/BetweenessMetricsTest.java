@@ -0,0 +1,92 @@
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks the counters and phases {@link BetweenessMetrics} collects from betweeness, incremental
+ * and Girvan-Newman runs on a connected graph, where every search reaches every node.
+ */
+final public class BetweenessMetricsTest {
+    private BetweenessMetricsTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(21);
+        int n = 60;
+        Graph g = TestSupport.randomUndirectedGraph(random, n, n * 2, 20);
+        for (int v = 0; v + 1 < n; v++) { //a path through every node keeps it connected
+            if (!g.hasEdge(v, v + 1)) {
+                g.addEdge(v, v + 1, 1 + random.nextInt(20));
+                g.addEdge(v + 1, v, g.getWeight(v, v + 1));
+            }
+        }
+        CsrGraph csr = new CsrGraph(g);
+        long m = csr.getEdgeCount();
+        for (Brandes.Mode mode : Brandes.Mode.values()) {
+            for (int parallelism = 1; parallelism <= 3; parallelism += 2) {
+                final AtomicInteger reports = new AtomicInteger();
+                BetweenessMetrics metrics = new BetweenessMetrics(
+                        new BetweenessMetrics.Listener() {
+                            @Override
+                            public void progress(BetweenessMetrics metrics) {
+                                TestSupport.check(metrics.getSources()
+                                        <= metrics.getExpectedSources(), "reported progress");
+                                reports.incrementAndGet();
+                            }
+                        }, 0);
+                Brandes.edgeBetweeness(csr, null, parallelism, mode, metrics);
+                String what = mode + " on " + parallelism + " threads: ";
+                TestSupport.check(metrics.getSources() == n, what + "sources");
+                TestSupport.check(metrics.getExpectedSources() == n, what + "expected sources");
+                TestSupport.check(metrics.getEtaNanos() == 0, what + "nothing left");
+                TestSupport.check(reports.get() > 0, what + "the listener was called");
+                if (mode == Brandes.Mode.DIRECTION_OPTIMIZING) {
+                    //bottom-up steps stop scanning a node's edges at its first parent
+                    TestSupport.check(metrics.getEdgesRelaxed() > 0, what + "edges relaxed");
+                } else {
+                    TestSupport.check(metrics.getEdgesRelaxed() >= m * n, what + "edges relaxed");
+                }
+                if (mode == Brandes.Mode.WEIGHTED) {
+                    //every node is added and extracted once per source
+                    TestSupport.check(metrics.getHeapOperations() >= 2L * n * n, what + "heap");
+                    TestSupport.check(metrics.getDecreaseKeys() <= metrics.getHeapOperations(),
+                            what + "decrease-keys");
+                } else {
+                    TestSupport.check(metrics.getHeapOperations() == 0, what + "no heap");
+                }
+                Map<String, Long> phases = metrics.getPhaseNanos();
+                TestSupport.check(phases.containsKey("components")
+                        && phases.containsKey("searches"), what + "phases " + phases.keySet());
+                TestSupport.check(phases.containsKey("reduce") == (parallelism > 1),
+                        what + "reduce phase");
+            }
+        }
+
+        //a subset of the sources, and the counts add up across runs
+        BetweenessMetrics metrics = new BetweenessMetrics();
+        Brandes.edgeBetweeness(csr, new int[] {0, 5, 7}, 1, Brandes.Mode.WEIGHTED, metrics);
+        TestSupport.check(metrics.getSources() == 3, "some sources");
+        Graph.populateBetweeness(g, 2, Brandes.Mode.WEIGHTED, metrics);
+        TestSupport.check(metrics.getSources() == 3 + n, "sources add up");
+        TestSupport.check(metrics.getPhaseNanos().containsKey("snapshot"), "snapshot phase");
+
+        //the first pass runs every source, a removal at least one more
+        metrics = new BetweenessMetrics();
+        IncrementalBetweeness inc = new IncrementalBetweeness(g, Brandes.Mode.WEIGHTED, metrics);
+        TestSupport.check(metrics.getSources() == n, "initial sources");
+        inc.removeMaxEdge();
+        TestSupport.check(metrics.getSources() >= n + 1
+                && metrics.getSources() == metrics.getExpectedSources(), "update sources");
+        Map<String, Long> phases = metrics.getPhaseNanos();
+        TestSupport.check(phases.containsKey("initial") && phases.containsKey("updates"),
+                "incremental phases " + phases.keySet());
+
+        metrics = new BetweenessMetrics();
+        GirvanNewman.run(g, 5, Integer.MAX_VALUE, 1, metrics);
+        phases = metrics.getPhaseNanos();
+        TestSupport.check(phases.containsKey("initial") && phases.containsKey("updates")
+                && phases.containsKey("communities"), "Girvan-Newman phases " + phases.keySet());
+        TestSupport.check(metrics.getSources() == metrics.getExpectedSources(),
+                "Girvan-Newman sources");
+        System.out.println("BetweenessMetricsTest ok");
+    }
+}
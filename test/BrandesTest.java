@@ -0,0 +1,210 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Checks {@link Brandes} in every mode against betweeness counted pair by pair from all shortest
+ * path lengths, on one thread and several, for every source and for a few, on graphs of one
+ * component and of many, and checks that a {@link Checkpoint} run that dies and resumes gives what
+ * an uninterrupted one does.
+ */
+final public class BrandesTest {
+    private BrandesTest() {}
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(22);
+        for (int round = 0; round < 40; round++) {
+            int n = 2 + random.nextInt(40);
+            Graph drawn = random.nextBoolean() ? TestSupport.randomUndirectedGraph(random, n, n, 9)
+                    : TestSupport.randomGraph(random, n, n * 2, 9);
+            Graph g = positive(drawn);
+            double[][] expected = brute(g, null, false);
+            compare(g, expected, Brandes.edgeBetweeness(g));
+            compare(g, expected, Brandes.edgeBetweeness(g, 3));
+            CsrGraph csr = new CsrGraph(g);
+            int[] some = new int[random.nextInt(n)];
+            for (int i = 0; i < some.length; i++) {
+                some[i] = random.nextInt(n); //repeats count twice
+            }
+            for (Brandes.Mode mode : Brandes.Mode.values()) {
+                boolean unit = mode != Brandes.Mode.WEIGHTED;
+                double[][] all = brute(g, null, unit);
+                double[][] part = brute(g, some, unit);
+                for (int parallelism = 1; parallelism <= 3; parallelism += 2) {
+                    if (!unit) {
+                        compare(csr, all, Brandes.edgeBetweeness(csr, parallelism), "");
+                        compare(csr, part, Brandes.edgeBetweeness(csr, some, parallelism), "");
+                    }
+                    compare(csr, all, Brandes.edgeBetweeness(csr, null, parallelism, mode),
+                            " in " + mode);
+                    compare(csr, part, Brandes.edgeBetweeness(csr, some, parallelism, mode),
+                            " in " + mode);
+                }
+            }
+            checkResume(csr, random.nextInt(n + 1), expected);
+        }
+        //components of very different sizes, so some run alone and some split across threads
+        Graph many = new Graph(300);
+        int first = 0;
+        for (int size : new int[] {120, 60, 30, 30, 20, 10, 5, 3, 2}) {
+            for (int i = 0; i < size * 2; i++) {
+                int u = first + random.nextInt(size);
+                int v = first + random.nextInt(size);
+                if (u != v) {
+                    many.addEdge(u, v, 1 + random.nextInt(9));
+                }
+            }
+            first += size;
+        }
+        double[][] expected = brute(many, null, false);
+        CsrGraph csr = new CsrGraph(many);
+        for (int parallelism = 1; parallelism <= 4; parallelism++) {
+            compare(many, expected, Brandes.edgeBetweeness(many, parallelism));
+            compare(csr, expected, Brandes.edgeBetweeness(csr, parallelism), "");
+        }
+        System.out.println("BrandesTest ok");
+    }
+
+    //the same edges as g with one added to every weight, so no zero lengths to tie on
+    private static Graph positive(Graph g) {
+        Graph copy = new Graph(g.getSize());
+        for (int u = 0; u < g.getSize(); u++) {
+            for (int v : g.outNeighbors(u)) {
+                copy.addEdge(u, v, 1 + g.getWeight(u, v));
+            }
+        }
+        return copy;
+    }
+
+    private static void compare(Graph g, double[][] expected,
+            ArrayList<HashMap<Integer, Double>> actual) {
+        TestSupport.check(actual.size() == g.getSize(), "one map per node");
+        for (int u = 0; u < g.getSize(); u++) {
+            TestSupport.check(actual.get(u).keySet().equals(g.outNeighbors(u)),
+                    "one score per out edge of " + u);
+            for (int v : g.outNeighbors(u)) {
+                TestSupport.checkClose(expected[u][v], actual.get(u).get(v),
+                        "betweeness of " + u + "-" + v);
+            }
+        }
+    }
+
+    private static void compare(CsrGraph g, double[][] expected, double[] actual, String what) {
+        TestSupport.check(g.getEdgeCount() == actual.length, "one score per edge");
+        for (int e = 0; e < actual.length; e++) {
+            TestSupport.checkClose(expected[g.source(e)][g.target(e)], actual[e],
+                    "betweeness of edge " + e + what);
+        }
+    }
+
+    //a run that stops after dieAfter sources and is resumed gives the uninterrupted result
+    private static void checkResume(CsrGraph g, final int dieAfter, double[][] expected)
+            throws IOException {
+        File file = File.createTempFile("checkpoint", ".bin");
+        try {
+            file.delete();
+            double[] whole = Checkpoint.edgeBetweeness(g, 7, 1, Brandes.Mode.WEIGHTED, file, 0,
+                    null);
+            compare(g, expected, whole, " of a checkpointed run");
+            file.delete();
+            BetweenessMetrics dying = new BetweenessMetrics(new BetweenessMetrics.Listener() {
+                @Override
+                public void progress(BetweenessMetrics metrics) {
+                    if (metrics.getSources() >= dieAfter) {
+                        throw new IllegalStateException("stopped");
+                    }
+                }
+            }, 0);
+            try {
+                Checkpoint.edgeBetweeness(g, 7, 1, Brandes.Mode.WEIGHTED, file, 0, dying);
+            } catch (IllegalStateException e) {
+                //the run died, what it finished is in the file
+            }
+            double[] resumed = Checkpoint.edgeBetweeness(g, 7, 1, Brandes.Mode.WEIGHTED, file, 0,
+                    null);
+            TestSupport.check(Arrays.equals(whole, resumed), "a resumed run matches to the bit");
+            file.delete();
+            compare(g, expected, Checkpoint.edgeBetweeness(g, 7, 3, Brandes.Mode.WEIGHTED, file,
+                    0, null), " of a checkpointed run");
+        } finally {
+            file.delete();
+        }
+    }
+
+    //sum over sources s and targets t of the share of shortest s-t paths through every edge u-v,
+    //as score[u][v]. With unit set every edge has length one
+    private static double[][] brute(Graph g, int[] sources, boolean unit) {
+        int n = g.getSize();
+        long inf = Long.MAX_VALUE / 4;
+        long[][] dist = new long[n][n];
+        for (int u = 0; u < n; u++) {
+            Arrays.fill(dist[u], inf);
+            dist[u][u] = 0;
+            for (int v : g.outNeighbors(u)) {
+                dist[u][v] = length(g, u, v, unit);
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int u = 0; u < n; u++) {
+                for (int v = 0; v < n; v++) {
+                    dist[u][v] = Math.min(dist[u][v], dist[u][k] + dist[k][v]);
+                }
+            }
+        }
+        //paths[u][v]: number of shortest u-v paths, counted in order of distance from u
+        double[][] paths = new double[n][n];
+        for (int u = 0; u < n; u++) {
+            Integer[] order = new Integer[n];
+            for (int v = 0; v < n; v++) {
+                order[v] = v;
+            }
+            final long[] from = dist[u];
+            Arrays.sort(order, new java.util.Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Long.compare(from[a], from[b]);
+                }
+            });
+            paths[u][u] = 1;
+            for (int v : order) {
+                if (v == u || from[v] >= inf) {
+                    continue;
+                }
+                for (int w = 0; w < n; w++) {
+                    if (g.hasEdge(w, v) && from[w] + length(g, w, v, unit) == from[v]) {
+                        paths[u][v] += paths[u][w];
+                    }
+                }
+            }
+        }
+        if (sources == null) {
+            sources = new int[n];
+            for (int s = 0; s < n; s++) {
+                sources[s] = s;
+            }
+        }
+        double[][] score = new double[n][n];
+        for (int s : sources) {
+            for (int t = 0; t < n; t++) {
+                if (t == s || dist[s][t] >= inf) {
+                    continue;
+                }
+                for (int u = 0; u < n; u++) {
+                    for (int v : g.outNeighbors(u)) {
+                        if (dist[s][u] + length(g, u, v, unit) + dist[v][t] == dist[s][t]) {
+                            score[u][v] += paths[s][u] * paths[v][t] / paths[s][t];
+                        }
+                    }
+                }
+            }
+        }
+        return score;
+    }
+
+    private static long length(Graph g, int u, int v, boolean unit) {
+        return unit ? 1 : g.getWeight(u, v);
+    }
+}
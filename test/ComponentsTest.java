@@ -0,0 +1,112 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks {@link Components} against weakly connected components found by breadth first search
+ * over the edges that are left, after every removal of random graphs' edges in random order.
+ */
+final public class ComponentsTest {
+    private ComponentsTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(18);
+        for (int round = 0; round < 60; round++) {
+            int n = 1 + random.nextInt(50);
+            Graph g = random.nextBoolean() ? TestSupport.randomUndirectedGraph(random, n, n, 9)
+                    : TestSupport.randomGraph(random, n, n * 2, 9);
+            CsrGraph csr = new CsrGraph(g);
+            int m = csr.getEdgeCount();
+            boolean[] removed = new boolean[m];
+            Components components = new Components(csr);
+            compare(components, labels(csr, removed));
+            int[] order = new int[m];
+            for (int e = 0; e < m; e++) {
+                int j = random.nextInt(e + 1);
+                order[e] = order[j];
+                order[j] = e;
+            }
+            for (int e : order) {
+                int before = components.getCount();
+                int parent = components.component(csr.source(e));
+                int child = components.removeEdge(e);
+                removed[e] = true;
+                TestSupport.check(components.isRemoved(e), "edge " + e + " is removed");
+                int[] expected = labels(csr, removed);
+                compare(components, expected);
+                boolean split = expected[csr.source(e)] != expected[csr.target(e)];
+                TestSupport.check((child != -1) == split, "split by edge " + e);
+                if (split) {
+                    TestSupport.check(child == before && components.getCount() == before + 1,
+                            "the new component comes last");
+                    TestSupport.check(components.size(child) <= components.size(parent),
+                            "the smaller part moves");
+                }
+                TestSupport.check(components.removeEdge(e) == -1, "removing twice splits nothing");
+            }
+            try {
+                components.size(components.getCount());
+                throw new AssertionError("a missing component was accepted");
+            } catch (IllegalArgumentException expected) {
+                //no such component
+            }
+        }
+        System.out.println("ComponentsTest ok");
+    }
+
+    //the two labellings put the same nodes together, and members and sizes agree with them
+    private static void compare(Components components, int[] expected) {
+        int n = expected.length;
+        int[] label = components.labels();
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            TestSupport.check(components.component(v) == label[v], "component of " + v);
+            count = Math.max(count, expected[v] + 1);
+            for (int w = 0; w < v; w++) {
+                TestSupport.check((label[v] == label[w]) == (expected[v] == expected[w]),
+                        "same component " + v + " " + w);
+            }
+        }
+        TestSupport.check(components.getCount() == count, "component count");
+        for (int c = 0; c < count; c++) {
+            int[] members = components.members(c);
+            TestSupport.check(members.length == components.size(c) && members.length > 0,
+                    "members of " + c);
+            for (int i = 0; i < members.length; i++) {
+                TestSupport.check(label[members[i]] == c, "member of " + c);
+                TestSupport.check(i == 0 || members[i - 1] < members[i], "members in order");
+            }
+        }
+    }
+
+    //weakly connected component of every node over the edges not removed
+    private static int[] labels(CsrGraph g, boolean[] removed) {
+        int n = g.getSize();
+        int[] label = new int[n];
+        Arrays.fill(label, -1);
+        int next = 0;
+        for (int s = 0; s < n; s++) {
+            if (label[s] != -1) {
+                continue;
+            }
+            ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+            queue.add(s);
+            label[s] = next;
+            while (!queue.isEmpty()) {
+                int x = queue.poll();
+                for (int e = 0; e < g.getEdgeCount(); e++) {
+                    if (removed[e]) {
+                        continue;
+                    }
+                    int y = g.source(e) == x ? g.target(e) : g.target(e) == x ? g.source(e) : -1;
+                    if (y != -1 && label[y] == -1) {
+                        label[y] = next;
+                        queue.add(y);
+                    }
+                }
+            }
+            next++;
+        }
+        return label;
+    }
+}
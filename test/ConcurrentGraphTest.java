@@ -0,0 +1,151 @@
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks that a {@link ConcurrentGraph} answers like a {@link Graph} given the same changes,
+ * across delta merges and batches, and that readers racing a writer always see one whole epoch.
+ */
+final public class ConcurrentGraphTest {
+    private ConcurrentGraphTest() {}
+
+    public static void main(String[] args) throws InterruptedException {
+        Random random = new Random(24);
+        for (int round = 0; round < 10; round++) {
+            int n = 5 + random.nextInt(40);
+            Graph g = TestSupport.randomGraph(random, n, n * 2, 20);
+            ConcurrentGraph cg = new ConcurrentGraph(g);
+            for (int step = 0; step < 300; step++) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                if (random.nextInt(10) == 0) {
+                    EdgeBatch batch = new EdgeBatch();
+                    for (int i = random.nextInt(20); i > 0; i--) {
+                        int a = random.nextInt(n);
+                        int b = random.nextInt(n);
+                        if (random.nextBoolean()) {
+                            batch.addEdge(a, b, random.nextInt(20));
+                        } else {
+                            batch.deleteEdge(a, b);
+                        }
+                    }
+                    TestSupport.check(cg.apply(batch) == g.apply(batch), "batch changes");
+                } else if (u != v && random.nextBoolean()) {
+                    int w = random.nextInt(20);
+                    TestSupport.check(cg.addEdge(u, v, w) == g.addEdge(u, v, w), "add");
+                } else if (u != v) {
+                    TestSupport.check(cg.deleteEdge(u, v) == g.deleteEdge(u, v), "delete");
+                }
+                compare(cg.snapshot(), g, random);
+            }
+            try {
+                cg.getWeight(n, 0);
+                throw new AssertionError("a missing vertex was read");
+            } catch (IllegalArgumentException e) {
+                //expected
+            }
+        }
+        checkReaders();
+        System.out.println("ConcurrentGraphTest ok");
+    }
+
+    private static void compare(ConcurrentGraph.Epoch epoch, Graph g, Random random) {
+        int n = g.getSize();
+        int edges = 0;
+        for (int u = 0; u < n; u++) {
+            int[] out = epoch.outNeighbors(u);
+            TestSupport.check(out.length == g.outNeighbors(u).size(), "out degree of " + u);
+            for (int v : out) {
+                TestSupport.check(g.hasEdge(u, v) && epoch.getWeight(u, v) == g.getWeight(u, v),
+                        "edge " + u + "-" + v);
+            }
+            edges += out.length;
+        }
+        TestSupport.check(edges == epoch.getEdgeCount(), "edge count");
+        int u = random.nextInt(n);
+        int v = random.nextInt(n);
+        if (!g.hasEdge(u, v)) {
+            try {
+                epoch.getWeight(u, v);
+                throw new AssertionError("a missing edge was read");
+            } catch (NoSuchElementException e) {
+                //expected
+            }
+        }
+        List<Integer> expected = Dijkstra.getShortestPath(g, u, v);
+        List<Integer> actual = epoch.getShortestPath(u, v);
+        TestSupport.check(expected.isEmpty() == actual.isEmpty(), "reachable " + u + "-" + v);
+        TestSupport.check(length(epoch, actual) == length(epoch, expected),
+                "shortest " + u + "-" + v + " path");
+    }
+
+    private static long length(ConcurrentGraph.Epoch epoch, List<Integer> path) {
+        long length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            length += epoch.getWeight(path.get(i - 1), path.get(i));
+        }
+        return length;
+    }
+
+    //one writer keeps every node's out degree equal to the number of edges in its epoch, readers
+    //check that no epoch they see is half written
+    private static void checkReaders() throws InterruptedException {
+        final int n = 200;
+        final ConcurrentGraph cg = new ConcurrentGraph(n);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final long end = System.nanoTime() + 500000000L;
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Random random = new Random(1);
+                while (System.nanoTime() < end) {
+                    int u = random.nextInt(n);
+                    int v = random.nextInt(n);
+                    if (u != v && !cg.addEdge(u, v, 1 + random.nextInt(9))) {
+                        cg.deleteEdge(u, v);
+                    }
+                }
+            }
+        });
+        Thread[] readers = new Thread[3];
+        for (int i = 0; i < readers.length; i++) {
+            final Random random = new Random(i);
+            readers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (System.nanoTime() < end) {
+                            ConcurrentGraph.Epoch epoch = cg.snapshot();
+                            int edges = 0;
+                            for (int u = 0; u < n; u++) {
+                                for (int v : epoch.outNeighbors(u)) {
+                                    TestSupport.check(epoch.hasEdge(u, v), "listed edge exists");
+                                    epoch.getWeight(u, v);
+                                    edges++;
+                                }
+                            }
+                            TestSupport.check(edges == epoch.getEdgeCount(), "whole epoch");
+                            List<Integer> path = epoch.getShortestPath(random.nextInt(n),
+                                    random.nextInt(n));
+                            length(epoch, path); //every step is an edge of the epoch
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            });
+        }
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("a reader failed", failure.get());
+        }
+    }
+}
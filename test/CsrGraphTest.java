@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Checks that a {@link CsrGraph} holds the same edges, weights and betweeness as the
+ * {@link Graph} it was taken from, that later changes to the graph leave it alone, and checks its
+ * neighborhood overlap against the overlap counted from neighbor sets.
+ */
+final public class CsrGraphTest {
+    private CsrGraphTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(3);
+        for (int round = 0; round < 60; round++) {
+            int n = 1 + random.nextInt(40);
+            Graph g = random.nextBoolean()
+                    ? TestSupport.randomUndirectedGraph(random, n, n * 2, 100)
+                    : TestSupport.randomGraph(random, n, n * 3, 100);
+            CsrGraph csr = new CsrGraph(g);
+            checkSame(g, csr);
+            checkOverlap(g, csr);
+            checkBetweeness(g, csr, 1 + random.nextInt(3));
+            if (n > 1) {
+                //the snapshot keeps the edges it was taken with
+                int u = random.nextInt(n);
+                int v = (u + 1 + random.nextInt(n - 1)) % n;
+                boolean had = csr.hasEdge(u, v);
+                if (had) {
+                    g.deleteEdge(u, v);
+                } else {
+                    g.addEdge(u, v, 7);
+                }
+                TestSupport.check(csr.hasEdge(u, v) == had, "later changes are not seen");
+            }
+        }
+        System.out.println("CsrGraphTest ok");
+    }
+
+    private static void checkSame(Graph g, CsrGraph csr) {
+        int n = g.getSize();
+        TestSupport.check(csr.getSize() == n, "same size");
+        int m = 0;
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            Set<Integer> out = g.outNeighbors(u);
+            m += out.size();
+            TestSupport.check(csr.outDegree(u) == out.size(), "out degree of " + u);
+            int[] targets = csr.outNeighbors(u);
+            TestSupport.check(new ArrayList<Integer>(new TreeSet<Integer>(out)).equals(
+                    boxed(targets)), "out neighbors of " + u + " in increasing order");
+            for (int v : targets) {
+                //edge ids run through the out edges of 0, then of 1, and so on
+                TestSupport.check(csr.edgeId(u, v) == e, "id of " + u + "-" + v);
+                TestSupport.check(csr.source(e) == u && csr.target(e) == v, "ends of " + e);
+                TestSupport.check(csr.weight(e) == g.getWeight(u, v), "weight of " + e);
+                TestSupport.check(csr.getWeight(u, v) == g.getWeight(u, v), "weight of " + u
+                        + "-" + v);
+                e++;
+            }
+            for (int v = 0; v < n; v++) {
+                TestSupport.check(csr.hasEdge(u, v) == g.hasEdge(u, v), "edge " + u + "-" + v);
+                if (!g.hasEdge(u, v)) {
+                    TestSupport.check(csr.edgeId(u, v) == -1, "no id for " + u + "-" + v);
+                    try {
+                        csr.getWeight(u, v);
+                        throw new AssertionError("no weight for " + u + "-" + v);
+                    } catch (NoSuchElementException expected) {
+                        //nothing to read
+                    }
+                }
+            }
+        }
+        TestSupport.check(csr.getEdgeCount() == m, "same edge count");
+        for (int bad : new int[] {-1, n}) {
+            try {
+                csr.outDegree(bad);
+                throw new AssertionError("vertex " + bad + " is rejected");
+            } catch (IllegalArgumentException expected) {
+                //not a vertex
+            }
+        }
+        for (int bad : new int[] {-1, m}) {
+            try {
+                csr.source(bad);
+                throw new AssertionError("edge " + bad + " is rejected");
+            } catch (IllegalArgumentException expected) {
+                //not an edge
+            }
+        }
+    }
+
+    private static void checkOverlap(Graph g, CsrGraph csr) {
+        int n = g.getSize();
+        double sum = 0;
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                Set<Integer> shared = new TreeSet<Integer>(g.outNeighbors(a));
+                shared.retainAll(g.outNeighbors(b));
+                int only = g.outNeighbors(a).size() + g.outNeighbors(b).size()
+                        - 2 * shared.size();
+                double expected = (double) shared.size() / (double) only;
+                double actual = csr.neighOverlap(a, b);
+                TestSupport.check(same(expected, actual), "overlap of " + a + " and " + b);
+                if (g.hasEdge(a, b)) {
+                    sum += expected;
+                }
+            }
+        }
+        double average = csr.avgNeighOverlap();
+        TestSupport.check(same(sum / n, average), "average overlap");
+    }
+
+    private static void checkBetweeness(Graph g, CsrGraph csr, int parallelism) {
+        ArrayList<HashMap<Integer, Double>> expected = Brandes.edgeBetweeness(g);
+        int top = csr.populateBetweeness(parallelism);
+        TestSupport.check((top == -1) == (csr.getEdgeCount() == 0), "a top edge if any edge");
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            int u = csr.source(e);
+            int v = csr.target(e);
+            TestSupport.checkClose(expected.get(u).get(v), csr.getBetweeness(e),
+                    "betweeness of " + e);
+            TestSupport.check(csr.getBetweeness(u, v) == csr.getBetweeness(e),
+                    "betweeness of " + u + "-" + v);
+            TestSupport.check(csr.getBetweeness(top) >= csr.getBetweeness(e), "top is highest");
+        }
+    }
+
+    //equal up to rounding, or the same infinity or NaN when nothing is only one node's
+    private static boolean same(double expected, double actual) {
+        return Double.compare(expected, actual) == 0 || Math.abs(expected - actual) < 1e-9;
+    }
+
+    private static ArrayList<Integer> boxed(int[] values) {
+        ArrayList<Integer> list = new ArrayList<Integer>();
+        for (int v : values) {
+            list.add(v);
+        }
+        return list;
+    }
+}
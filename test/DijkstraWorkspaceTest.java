@@ -0,0 +1,53 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that searches reusing the calling thread's {@link DijkstraWorkspace} after a bigger
+ * graph, after an early exit and across the generation wrap-around give the same answers as a
+ * thread that never searched before.
+ */
+final public class DijkstraWorkspaceTest {
+    private DijkstraWorkspaceTest() {}
+
+    public static void main(String[] args) throws InterruptedException {
+        Random random = new Random(14);
+        final CsrGraph g = new CsrGraph(TestSupport.randomGraph(random, 150, 600, 30));
+        final int n = g.getSize();
+        final int[][] fresh = new int[n][];
+        Thread first = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int src = 0; src < n; src++) {
+                    fresh[src] = Dijkstra.distances(g, src, false);
+                }
+            }
+        });
+        first.start();
+        first.join();
+
+        //a bigger graph leaves stamps past n behind
+        CsrGraph big = new CsrGraph(TestSupport.randomGraph(random, 1000, 4000, 30));
+        Dijkstra.distances(big, 0, false);
+        for (int round = 0; round < 200; round++) {
+            int src = random.nextInt(n);
+            int tgt = random.nextInt(n);
+            //stops as soon as tgt is settled, with the rest of the frontier still queued
+            List<Integer> path = Dijkstra.getShortestPath(g, src, tgt);
+            TestSupport.check(path.isEmpty() == (fresh[src][tgt] == Integer.MAX_VALUE),
+                    "early exit path");
+            Dijkstra.shortestPathTree(g, src, tgt);
+            if (round % 50 == 0) {
+                //the next search wraps the generation around, the last one's stamps read 1
+                DijkstraWorkspace.get(n, 0).generation = 0;
+                Dijkstra.distances(g, tgt, false);
+                DijkstraWorkspace.get(n, 0).generation = -1;
+            }
+            int other = random.nextInt(n);
+            int[] dist = Dijkstra.distances(g, other, false);
+            for (int v = 0; v < n; v++) {
+                TestSupport.check(dist[v] == fresh[other][v], "distance after reuse");
+            }
+        }
+        System.out.println("DijkstraWorkspaceTest ok");
+    }
+}
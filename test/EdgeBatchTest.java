@@ -0,0 +1,79 @@
+import java.util.Random;
+
+/**
+ * Checks {@link Graph#apply(EdgeBatch)} against the same changes made one call at a time, and
+ * the tie index it leaves behind for batches below and above the rebuild threshold.
+ */
+final public class EdgeBatchTest {
+    private EdgeBatchTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(25);
+        for (int round = 0; round < 20; round++) {
+            int n = 5 + random.nextInt(40);
+            long seed = random.nextLong();
+            Graph batched = TestSupport.randomGraph(new Random(seed), n, n * 4, 100);
+            Graph sequential = TestSupport.randomGraph(new Random(seed), n, n * 4, 100);
+            TieIndex batchedTies = batched.buildTieIndex(TieIndex.byWeight(50));
+            TieIndex sequentialTies = sequential.buildTieIndex(TieIndex.byWeight(50));
+
+            //a few changes go in edge by edge, a lot of them rebuild the index
+            int k = round % 2 == 0 ? 1 + random.nextInt(10) : TieIndex.MIN_REBUILD + n * 2;
+            TestSupport.check(batchedTies.isRebuildCheaper(k) == (round % 2 == 1), "threshold");
+            EdgeBatch batch = new EdgeBatch();
+            int changed = 0;
+            for (int i = 0; i < k; i++) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                if (u == v) {
+                    continue;
+                }
+                //the same edge often comes up more than once, added, deleted and added again
+                if (random.nextBoolean()) {
+                    batch.deleteEdge(u, v);
+                    changed += sequential.deleteEdge(u, v) ? 1 : 0;
+                } else {
+                    int weight = random.nextInt(100);
+                    batch.addEdge(u, v, weight);
+                    changed += sequential.addEdge(u, v, weight) ? 1 : 0;
+                }
+            }
+            TestSupport.check(batched.apply(batch) == changed, "changed count");
+            TestSupport.check(batched.getList().equals(sequential.getList()), "edges and weights");
+            for (int u = 0; u < n; u++) {
+                for (int v = 0; v < n; v++) {
+                    TestSupport.check(batchedTies.isStrong(u, v) == sequentialTies.isStrong(u, v),
+                            "weight ties");
+                }
+            }
+            TestSupport.check(batchedTies.strongCount() == sequentialTies.strongCount(),
+                    "weight count");
+
+            //ties that depend on the rest of the graph are judged against the graph after it
+            TieIndex.Classifier percentile = TieIndex.byBetweenessPercentile(30);
+            TieIndex ties = batched.buildTieIndex(percentile);
+            batch.clear();
+            batch.addEdge(0, n - 1, 7);
+            batch.deleteEdge(1, 2);
+            batched.apply(batch);
+            CsrGraph csr = new CsrGraph(batched);
+            TestSupport.check(ties.strongEdges(csr).equals(percentile.classify(csr)),
+                    "percentile ties");
+        }
+
+        //a vertex out of range leaves the graph as it was
+        Graph g = TestSupport.randomGraph(new Random(3), 10, 30, 100);
+        Graph copy = TestSupport.randomGraph(new Random(3), 10, 30, 100);
+        EdgeBatch bad = new EdgeBatch();
+        bad.addEdge(0, 1, 5);
+        bad.deleteEdge(2, 10);
+        try {
+            g.apply(bad);
+            TestSupport.check(false, "bad vertex accepted");
+        } catch (IllegalArgumentException expected) {
+            //nothing applied
+        }
+        TestSupport.check(g.getList().equals(copy.getList()), "bad batch changed the graph");
+        System.out.println("EdgeBatchTest ok");
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Checks that {@link EdgeList} reads back the edges of random graphs, in both layouts, to the same
+ * {@link Graph} and {@link CsrGraph} as the graph they came from, keeps sign columns out of the
+ * weights, rejects malformed lines, other negative weights, a '-' without digits and node ids too
+ * large to count with the line they are on, and that the shortest path entry points refuse negative
+ * weights instead of returning wrong paths.
+ */
+final public class EdgeListTest {
+    private EdgeListTest() {}
+
+    public static void main(String[] args) throws IOException {
+        File tribes = new File("tribes.txt");
+        if (tribes.exists()) {
+            EdgeList list = EdgeList.read(tribes);
+            TestSupport.check(list.isSigned(), "tribes.txt has a sign column");
+            TestSupport.check(!list.isWeighted(), "signs are not weights");
+            list.randomizeWeights(new Random(1));
+            CsrGraph g = list.toCsrGraph();
+            TestSupport.check(!g.hasNegativeWeights(), "tribes.txt has no negative weights");
+            Brandes.edgeBetweeness(g, 1);
+        }
+
+        File file = File.createTempFile("edges", ".txt");
+        try {
+            checkRead(file);
+
+            write(file, "0 1 1\n1 2 -1\n2 0 1\n");
+            EdgeList signed = EdgeList.read(file);
+            TestSupport.check(signed.isSigned(), "a +-1 column is a sign column");
+            TestSupport.check(signed.getSign(1) == -1, "the sign of the second edge");
+
+            rejects(file, "0 1 5\n\n1 2 -3\n", 3, "a negative weight");
+            //a '-' on its own is not a zero
+            rejects(file, "0 1\n1 - 2\n", 2, "a lone '-' column");
+            rejects(file, "0 1 4\n1 2 -\n", 2, "a lone '-' weight");
+            //one node more than that would not fit in an int
+            rejects(file, "0 1\n1 2147483647\n", 2, "the largest int as a node id");
+            write(file, "0 1\n2147483646 0\n");
+            TestSupport.check(EdgeList.read(file).getSize() == Integer.MAX_VALUE, "largest size");
+        } finally {
+            file.delete();
+        }
+
+        Graph g = new Graph(3);
+        g.addEdge(0, 1, 4);
+        g.addEdge(1, 2, -3);
+        g.addEdge(0, 2, 2);
+        TestSupport.check(g.hasNegativeWeights(), "the graph counts its negative edge");
+        expectRejected(g);
+        g.deleteEdge(1, 2);
+        TestSupport.check(!g.hasNegativeWeights(), "deleting the edge clears the count");
+        Dijkstra.getShortestPath(g, 0, 2);
+        System.out.println("EdgeListTest ok");
+    }
+
+    private static void checkRead(File file) throws IOException {
+        //comments, blank lines, tabs, commas and \r\n, the first of two u-v lines is kept
+        write(file, "# a header\n0 1 5\r\n1\t2 7\n\n2,0,3\n0 1 9\n");
+        EdgeList list = EdgeList.read(file);
+        TestSupport.check(list.getCount() == 4 && list.getSize() == 3, "four lines, three nodes");
+        TestSupport.check(list.isWeighted(), "every line has a weight");
+        TestSupport.check(list.toGraph().getWeight(0, 1) == 5, "the first 0-1 line is kept");
+        TestSupport.check(list.toCsrGraph().getWeight(0, 1) == 5, "the first 0-1 line is kept");
+        write(file, "0 1\n3 2\n");
+        list = EdgeList.read(file);
+        TestSupport.check(!list.isWeighted() && list.getSize() == 4, "no weights, four nodes");
+
+        rejects(file, "0 1 2 3\n", 1, "a fourth column");
+        rejects(file, "0 1\n0\n", 2, "a single column");
+        rejects(file, "0 1\n1 2 3\n", 2, "a weight on some lines only");
+        rejects(file, "0 1\n1 -2\n", 2, "a negative node id");
+        rejects(file, "0 1\n1 x\n", 2, "a letter");
+        rejects(file, "0 1\n1 2147483648\n", 2, "an integer too large");
+
+        Random random = new Random(7);
+        for (int round = 0; round < 30; round++) {
+            int n = 1 + random.nextInt(50);
+            Graph g = TestSupport.randomGraph(random, n, n * 3, 100);
+            boolean weighted = random.nextBoolean();
+            StringBuilder text = new StringBuilder();
+            for (int u = 0; u < n; u++) {
+                for (int v : g.outNeighbors(u)) {
+                    text.append(u).append(' ').append(v);
+                    text.append(weighted ? " " + g.getWeight(u, v) + "\n" : "\n");
+                }
+            }
+            text.append(n - 1).append(' ').append(n - 1).append(weighted ? " 0\n" : "\n");
+            g.addEdge(n - 1, n - 1, 0); //so the largest node is in the file
+            write(file, text.toString());
+            list = EdgeList.read(file);
+            TestSupport.check(list.getSize() == n, "size of round " + round);
+            CsrGraph expected = new CsrGraph(g);
+            CsrGraph direct = list.toCsrGraph();
+            CsrGraph viaGraph = new CsrGraph(list.toGraph());
+            TestSupport.check(direct.getEdgeCount() == expected.getEdgeCount()
+                    && viaGraph.getEdgeCount() == expected.getEdgeCount(), "same edge count");
+            for (int e = 0; e < expected.getEdgeCount(); e++) {
+                int weight = weighted ? expected.weight(e) : 0;
+                TestSupport.check(direct.source(e) == expected.source(e)
+                        && direct.target(e) == expected.target(e) && direct.weight(e) == weight,
+                        "edge " + e + " of the snapshot");
+                TestSupport.check(viaGraph.source(e) == expected.source(e)
+                        && viaGraph.target(e) == expected.target(e)
+                        && viaGraph.weight(e) == weight, "edge " + e + " of the graph");
+            }
+        }
+    }
+
+    //writes text to file and checks that reading it fails, naming the line
+    private static void rejects(File file, String text, int lineNo, String what)
+            throws IOException {
+        write(file, text);
+        try {
+            EdgeList.read(file);
+            throw new AssertionError(what + " was read");
+        } catch (IOException e) {
+            TestSupport.check(e.getMessage().contains("line " + lineNo),
+                    "the error names the line: " + e.getMessage());
+        }
+    }
+
+    private static void expectRejected(Graph g) {
+        CsrGraph csr = new CsrGraph(g);
+        int rejected = 0;
+        try {
+            Dijkstra.getShortestPath(g, 0, 2);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+        }
+        try {
+            Dijkstra.getShortestPath(csr, 0, 2);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+        }
+        try {
+            Brandes.edgeBetweeness(csr, 1);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+        }
+        try {
+            Brandes.edgeBetweeness(csr, null, 1, Brandes.Mode.UNWEIGHTED);
+            rejected++;
+        } catch (IllegalArgumentException e) {
+            throw new AssertionError("hop counts do not read the weights");
+        }
+        try {
+            GirvanNewman.run(g);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+        }
+        TestSupport.check(rejected == 5, "every weighted entry point rejects negative weights");
+    }
+
+    private static void write(File file, String text) throws IOException {
+        Writer out = new FileWriter(file);
+        try {
+            out.write(text);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks {@link GirvanNewman#run} against brute force: every removed edge had the highest
+ * betweeness of what was left, and the communities and modularity recorded at every split are
+ * those of the components of the graph at that point, also when several edges go per round and
+ * when a run resumes from a checkpoint.
+ */
+final public class GirvanNewmanTest {
+    private GirvanNewmanTest() {}
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(6);
+        File checkpoint = File.createTempFile("girvan", ".ckpt");
+        try {
+            for (int round = 0; round < 40; round++) {
+                int n = 2 + random.nextInt(30);
+                long seed = random.nextLong();
+                Graph original = graph(seed, n);
+                GirvanNewman.Result result = GirvanNewman.run(graph(seed, n));
+                check(result, original, true);
+
+                //a round of several edges splits the communities once per edge, in order
+                int batch = 2 + random.nextInt(4);
+                result = GirvanNewman.run(graph(seed, n), Integer.MAX_VALUE, Integer.MAX_VALUE,
+                        batch);
+                check(result, original, false);
+
+                //a run that stopped partway replays its removals on resuming
+                checkpoint.delete();
+                int stop = random.nextInt(n * 2);
+                GirvanNewman.run(graph(seed, n), stop, Integer.MAX_VALUE, 1, null, checkpoint,
+                        seed);
+                result = GirvanNewman.run(graph(seed, n), Integer.MAX_VALUE, Integer.MAX_VALUE, 1,
+                        null, checkpoint, seed);
+                check(result, original, true);
+            }
+        } finally {
+            checkpoint.delete();
+        }
+        System.out.println("GirvanNewmanTest ok");
+    }
+
+    private static Graph graph(long seed, int n) {
+        Graph drawn = TestSupport.randomUndirectedGraph(new Random(seed), n, n * 2, 9);
+        Graph g = new Graph(n);
+        for (int u = 0; u < n; u++) {
+            for (int v : drawn.outNeighbors(u)) {
+                g.addEdge(u, v, 1 + drawn.getWeight(u, v)); //no zero lengths to tie on
+            }
+        }
+        return g;
+    }
+
+    //ranked if every edge was the one with the highest betweeness when it was removed, which
+    //rounds of more than one edge do not promise
+    private static void check(GirvanNewman.Result result, Graph original, boolean ranked) {
+        CsrGraph csr = new CsrGraph(original);
+        int n = csr.getSize();
+        Graph left = new Graph(n);
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            left.addEdge(csr.source(e), csr.target(e), csr.weight(e));
+        }
+        int communities = count(labels(left));
+        double best = modularity(csr, labels(left));
+        int split = 0;
+        List<int[]> removed = result.removedEdges;
+        TestSupport.check(removed.size() == csr.getEdgeCount(), "every edge is removed");
+        for (int i = 0; i < removed.size(); i++) {
+            int u = removed.get(i)[0];
+            int v = removed.get(i)[1];
+            CsrGraph now = new CsrGraph(left);
+            double[] scores = Brandes.edgeBetweeness(now, null, 1, Brandes.Mode.WEIGHTED);
+            double max = 0.0;
+            for (double score : scores) {
+                max = Math.max(max, score);
+            }
+            if (ranked) {
+                TestSupport.checkClose(max, scores[now.edgeId(u, v)], "removed " + u + "-" + v);
+            }
+            left.deleteEdge(u, v);
+            int[] label = labels(left);
+            if (count(label) > communities) {
+                communities = count(label);
+                GirvanNewman.Split s = result.dendrogram.get(split++);
+                TestSupport.check(s.removal == i + 1 && s.u == u && s.v == v, "split edge");
+                TestSupport.check(s.communities == communities, "communities");
+                double q = modularity(csr, label);
+                TestSupport.checkClose(q, s.modularity, "modularity");
+                best = Math.max(best, q);
+            }
+        }
+        TestSupport.check(split == result.dendrogram.size(), "a split for every split");
+        TestSupport.checkClose(best, result.bestModularity, "best modularity");
+        TestSupport.checkClose(best, modularity(csr, result.bestPartition), "best partition");
+    }
+
+    //weakly connected component of every node, numbered in order of their smallest node
+    private static int[] labels(Graph g) {
+        int n = g.getSize();
+        int[] label = new int[n];
+        Arrays.fill(label, -1);
+        int next = 0;
+        for (int s = 0; s < n; s++) {
+            if (label[s] != -1) {
+                continue;
+            }
+            ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+            queue.add(s);
+            label[s] = next;
+            while (!queue.isEmpty()) {
+                int x = queue.poll();
+                for (int y = 0; y < n; y++) {
+                    if (label[y] == -1 && (g.hasEdge(x, y) || g.hasEdge(y, x))) {
+                        label[y] = next;
+                        queue.add(y);
+                    }
+                }
+            }
+            next++;
+        }
+        return label;
+    }
+
+    private static int count(int[] label) {
+        int max = -1;
+        for (int l : label) {
+            max = Math.max(max, l);
+        }
+        return max + 1;
+    }
+
+    //directed modularity of the partition, against every edge of csr
+    private static double modularity(CsrGraph csr, int[] label) {
+        double m = csr.getEdgeCount();
+        if (m == 0) {
+            return 0.0;
+        }
+        int n = csr.getSize();
+        double[] outDeg = new double[n];
+        double[] inDeg = new double[n];
+        double q = 0.0;
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            int u = csr.source(e);
+            int v = csr.target(e);
+            outDeg[label[u]]++;
+            inDeg[label[v]]++;
+            if (label[u] == label[v]) {
+                q += 1.0 / m;
+            }
+        }
+        for (int c = 0; c < n; c++) {
+            q -= outDeg[c] * inDeg[c] / (m * m);
+        }
+        return q;
+    }
+}
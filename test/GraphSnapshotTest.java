@@ -0,0 +1,92 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+/**
+ * Checks that a {@link GraphSnapshot} reads back what was written, with and without the
+ * betweeness column and with and without the padding before it, and that a corrupt file is
+ * rejected when it is opened.
+ */
+final public class GraphSnapshotTest {
+    private GraphSnapshotTest() {}
+
+    public static void main(String[] args) throws IOException {
+        File file = File.createTempFile("snapshot", ".bin");
+        try {
+            Random random = new Random(8);
+            //an even n pads the betweeness column, an odd n does not
+            for (int n : new int[] {1, 2, 7, 30, 31}) {
+                CsrGraph g = new CsrGraph(TestSupport.randomGraph(random, n, n * 4, 50));
+                g.populateBetweeness(1);
+                for (boolean withBetweeness : new boolean[] {false, true}) {
+                    GraphSnapshot.write(g, file, withBetweeness);
+                    GraphSnapshot snapshot = GraphSnapshot.open(file);
+                    compare(g, snapshot, withBetweeness);
+                    compare(g, snapshot.toCsrGraph(), withBetweeness);
+                }
+            }
+
+            CsrGraph g = new CsrGraph(TestSupport.randomGraph(random, 20, 60, 50));
+            int m = g.getEdgeCount();
+            long offsets = GraphSnapshot.HEADER_BYTES;
+            long targets = offsets + 4L * (g.getSize() + 1);
+            rejects(g, file, offsets, 1, "first offset");
+            rejects(g, file, offsets + 4L * g.getSize(), m + 1, "last offset");
+            rejects(g, file, offsets + 4L * 5, m, "decreasing offsets");
+            rejects(g, file, targets + 4L * (m - 1), g.getSize(), "target past the last node");
+            rejects(g, file, targets, -1, "negative target");
+            //n + 1 must not wrap around, the file is then far too short
+            rejects(g, file, 12, Integer.MAX_VALUE, "huge node count");
+        } finally {
+            file.delete();
+        }
+        System.out.println("GraphSnapshotTest ok");
+    }
+
+    private static void compare(CsrGraph g, GraphSnapshot snapshot, boolean withBetweeness) {
+        TestSupport.check(snapshot.getSize() == g.getSize(), "size");
+        TestSupport.check(snapshot.getEdgeCount() == g.getEdgeCount(), "edge count");
+        TestSupport.check(snapshot.hasBetweeness() == withBetweeness, "betweeness flag");
+        for (int v = 0; v <= g.getSize(); v++) {
+            TestSupport.check(snapshot.offset(v) == g.offsets[v], "offset");
+        }
+        for (int e = 0; e < g.getEdgeCount(); e++) {
+            TestSupport.check(snapshot.target(e) == g.target(e), "target");
+            TestSupport.check(snapshot.weight(e) == g.weight(e), "weight");
+            if (withBetweeness) {
+                TestSupport.check(snapshot.getBetweeness(e) == g.getBetweeness(e), "betweeness");
+            }
+        }
+    }
+
+    private static void compare(CsrGraph g, CsrGraph copy, boolean withBetweeness) {
+        TestSupport.check(copy.getSize() == g.getSize(), "copied size");
+        for (int e = 0; e < g.getEdgeCount(); e++) {
+            TestSupport.check(copy.source(e) == g.source(e), "copied source");
+            TestSupport.check(copy.target(e) == g.target(e), "copied target");
+            TestSupport.check(copy.weight(e) == g.weight(e), "copied weight");
+            TestSupport.check(copy.getBetweeness(e) == (withBetweeness ? g.getBetweeness(e) : 0),
+                    "copied betweeness");
+        }
+    }
+
+    //writes g, overwrites the int at position and checks that opening the file fails
+    private static void rejects(CsrGraph g, File file, long position, int value, String what)
+            throws IOException {
+        GraphSnapshot.write(g, file, false);
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            raw.seek(position);
+            raw.writeInt(Integer.reverseBytes(value)); //the file is little-endian
+        } finally {
+            raw.close();
+        }
+        try {
+            GraphSnapshot.open(file);
+            TestSupport.check(false, "accepted a corrupt snapshot: " + what);
+        } catch (IOException expected) {
+            //rejected up front
+        }
+    }
+}
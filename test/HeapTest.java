@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Checks both heaps against a plain map of value to key, through the generic
+ * {@link BinaryMinHeap} contract, null values included.
+ */
+final public class HeapTest {
+    private HeapTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(4);
+        for (int round = 0; round < 200; round++) {
+            int capacity = 1 + random.nextInt(40);
+            List<BinaryMinHeap<Integer, Integer>> heaps =
+                    new ArrayList<BinaryMinHeap<Integer, Integer>>();
+            heaps.add(new BinaryMinHeapImpl<Integer, Integer>());
+            heaps.add(new IndexedIntMinHeap(capacity));
+            heaps.add(new IndexedIntMinHeap(capacity, 4));
+            for (BinaryMinHeap<Integer, Integer> heap : heaps) {
+                randomOps(heap, capacity, new Random(round));
+            }
+        }
+        IndexedIntMinHeap heap = new IndexedIntMinHeap(3);
+        heap.add(5, null);
+        TestSupport.check(heap.containsValue((Integer) null), "null is in the heap");
+        TestSupport.check(!heap.containsValue((Integer) 0), "0 is not the null value");
+        try {
+            heap.add(6, null);
+            TestSupport.check(false, "null added twice");
+        } catch (IllegalArgumentException expected) {
+            //the value is already in the heap
+        }
+        try {
+            heap.add(1, 3);
+            TestSupport.check(false, "value past capacity accepted");
+        } catch (IllegalArgumentException expected) {
+            //out of range
+        }
+        System.out.println("HeapTest ok");
+    }
+
+    private static void randomOps(BinaryMinHeap<Integer, Integer> heap, int capacity,
+            Random random) {
+        Map<Integer, Integer> model = new HashMap<Integer, Integer>(); //value to key
+        for (int op = 0; op < 300; op++) {
+            int choice = random.nextInt(4);
+            Integer value = random.nextInt(capacity + 1);
+            if (value == capacity) {
+                value = null;
+            }
+            if (choice <= 1) {
+                int key = random.nextInt(50);
+                if (model.containsKey(value)) {
+                    try {
+                        heap.add(key, value);
+                        TestSupport.check(false, "duplicate added to " + heap.getClass());
+                    } catch (IllegalArgumentException expected) {
+                        //already there
+                    }
+                } else {
+                    heap.add(key, value);
+                    model.put(value, key);
+                }
+            } else if (choice == 2) {
+                if (!model.containsKey(value)) {
+                    try {
+                        heap.decreaseKey(value, 0);
+                        TestSupport.check(false, "decreased a missing value in " + heap.getClass());
+                    } catch (NoSuchElementException expected) {
+                        //not there
+                    }
+                } else {
+                    int key = model.get(value) - random.nextInt(5);
+                    heap.decreaseKey(value, key);
+                    model.put(value, key);
+                }
+            } else if (model.isEmpty()) {
+                TestSupport.check(heap.isEmpty(), "heap should be empty");
+            } else {
+                int min = Integer.MAX_VALUE;
+                for (int key : model.values()) {
+                    min = Math.min(min, key);
+                }
+                TestSupport.check(heap.peek().key == min, "peek " + heap.getClass());
+                BinaryMinHeap.Entry<Integer, Integer> entry = heap.extractMin();
+                TestSupport.check(entry.key == min, "extractMin " + heap.getClass());
+                TestSupport.check(model.containsKey(entry.value)
+                        && model.get(entry.value) == min, "extracted entry");
+                model.remove(entry.value);
+            }
+            TestSupport.check(heap.size() == model.size(), "size " + heap.getClass());
+            TestSupport.check(heap.values().equals(model.keySet()), "values " + heap.getClass());
+            TestSupport.check(heap.containsValue(value) == model.containsKey(value),
+                    "containsValue " + heap.getClass());
+        }
+    }
+}
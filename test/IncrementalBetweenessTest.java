@@ -0,0 +1,62 @@
+import java.util.Random;
+
+/**
+ * Checks that {@link IncrementalBetweeness} matches a full Brandes run on what is left of the
+ * graph after every removal, in every mode, with and without the remembered DAGs, one edge at a
+ * time and in batches.
+ */
+final public class IncrementalBetweenessTest {
+    private IncrementalBetweenessTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(5);
+        for (int round = 0; round < 60; round++) {
+            int n = 2 + random.nextInt(40);
+            boolean undirected = random.nextBoolean();
+            Brandes.Mode mode = Brandes.Mode.values()[round % Brandes.Mode.values().length];
+            long maxTrackedBits = round % 2 == 0 ? 0 : IncrementalBetweeness.MAX_TRACKED_BITS;
+            long seed = random.nextLong();
+            Graph g = graph(new Random(seed), n, undirected);
+            Graph copy = graph(new Random(seed), n, undirected);
+            IncrementalBetweeness inc = new IncrementalBetweeness(g, new CsrGraph(g), mode, null,
+                    new int[0], maxTrackedBits);
+            compare(inc, copy, mode);
+            int batch = 1 + random.nextInt(3);
+            while (true) {
+                int[][] top = batch == 1 ? new int[][] {inc.removeMaxEdge()}
+                        : inc.removeTopEdges(batch);
+                if (top.length == 0 || top[0][0] == -1) {
+                    break;
+                }
+                for (int[] edge : top) {
+                    TestSupport.check(copy.deleteEdge(edge[1], edge[2]), "removed a missing edge");
+                }
+                TestSupport.check(inc.lastRecomputed() <= n, "recomputed more sources than nodes");
+                compare(inc, copy, mode);
+            }
+        }
+        System.out.println("IncrementalBetweenessTest ok");
+    }
+
+    private static Graph graph(Random random, int n, boolean undirected) {
+        Graph drawn = undirected ? TestSupport.randomUndirectedGraph(random, n, n * 2, 9)
+                : TestSupport.randomGraph(random, n, n * 3, 9);
+        Graph g = new Graph(n);
+        for (int u = 0; u < n; u++) {
+            for (int v : drawn.outNeighbors(u)) {
+                g.addEdge(u, v, 1 + drawn.getWeight(u, v)); //no zero lengths to tie on
+            }
+        }
+        return g;
+    }
+
+    //every edge left in copy has the betweeness a full run gives it
+    private static void compare(IncrementalBetweeness inc, Graph copy, Brandes.Mode mode) {
+        CsrGraph csr = new CsrGraph(copy);
+        double[] full = Brandes.edgeBetweeness(csr, null, 1, mode);
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            TestSupport.checkClose(full[e], inc.getBetweeness(csr.source(e), csr.target(e)),
+                    "betweeness of " + csr.source(e) + "-" + csr.target(e) + " in " + mode);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks that landmarks land on nodes with edges, one per component first, that their bounds are
+ * lower bounds, that the ALT and plain bidirectional searches find paths as short as Dijkstra's,
+ * and that {@link Graph#inNeighbors} follows edge changes.
+ */
+final public class LandmarksTest {
+    private LandmarksTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(13);
+        for (int round = 0; round < 30; round++) {
+            int n = 20 + random.nextInt(60);
+            //only the upper nodes get edges, so node 0 and friends are isolated
+            Graph g = new Graph(n);
+            int low = n / 4;
+            for (int i = 0; i < n * 2; i++) {
+                int u = low + random.nextInt(n - low);
+                int v = low + random.nextInt(n - low);
+                if (u != v) {
+                    g.addEdge(u, v, random.nextInt(20));
+                }
+            }
+            CsrGraph csr = new CsrGraph(g);
+            Components components = new Components(csr);
+            int withEdges = 0;
+            for (int c = 0; c < components.getCount(); c++) {
+                if (components.size(c) > 1) {
+                    withEdges++;
+                }
+            }
+            int k = 1 + random.nextInt(4);
+            Landmarks landmarks = new Landmarks(csr, k);
+            Landmarks chosen = new Landmarks(csr, new int[] {random.nextInt(n), random.nextInt(n)});
+            int[] picked = landmarks.getLandmarks();
+            boolean[] seeded = new boolean[components.getCount()];
+            for (int i = 0; i < picked.length; i++) {
+                int c = components.component(picked[i]);
+                TestSupport.check(components.size(c) > 1, "landmark " + picked[i] + " has edges");
+                if (i < withEdges) {
+                    TestSupport.check(!seeded[c], "one landmark per component first");
+                    seeded[c] = true;
+                }
+            }
+
+            for (int src = 0; src < n; src += 3) {
+                int[] dist = Dijkstra.distances(csr, src, false);
+                for (int tgt = 0; tgt < n; tgt++) {
+                    checkPath(csr, Dijkstra.getShortestPathBidirectional(csr, src, tgt, landmarks),
+                            src, tgt, dist[tgt]);
+                    checkPath(csr, Dijkstra.getShortestPathBidirectional(csr, src, tgt, chosen),
+                            src, tgt, dist[tgt]);
+                    checkPath(csr, Dijkstra.getShortestPathBidirectional(csr, src, tgt),
+                            src, tgt, dist[tgt]);
+                    checkPath(csr, Dijkstra.getShortestPathBidirectional(g, src, tgt),
+                            src, tgt, dist[tgt]);
+                    int bound = landmarks.lowerBound(src, tgt);
+                    TestSupport.check(bound <= dist[tgt], "the landmark bound is a lower bound");
+                    TestSupport.check(chosen.lowerBound(src, tgt) <= dist[tgt],
+                            "a chosen landmark bound is a lower bound");
+                }
+            }
+            checkInNeighbors(g);
+            for (int i = 0; i < n; i++) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                if (g.hasEdge(u, v)) {
+                    g.deleteEdge(u, v);
+                } else if (u != v) {
+                    g.addEdge(u, v, 1);
+                }
+            }
+            checkInNeighbors(g);
+        }
+        System.out.println("LandmarksTest ok");
+    }
+
+    //the in neighbors of every node are the nodes with an edge to it
+    private static void checkInNeighbors(Graph g) {
+        for (int v = 0; v < g.getSize(); v++) {
+            Set<Integer> in = new HashSet<Integer>();
+            for (int u = 0; u < g.getSize(); u++) {
+                if (g.hasEdge(u, v)) {
+                    in.add(u);
+                }
+            }
+            TestSupport.check(g.inNeighbors(v).equals(in), "in neighbors of " + v);
+        }
+    }
+
+    private static void checkPath(CsrGraph g, List<Integer> path, int src, int tgt, int dist) {
+        if (dist == Landmarks.INF) {
+            TestSupport.check(path.isEmpty(), "no path from " + src + " to " + tgt);
+            return;
+        }
+        TestSupport.check(path.get(0) == src && path.get(path.size() - 1) == tgt,
+                "the path runs from " + src + " to " + tgt);
+        long length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            length += g.getWeight(path.get(i - 1), path.get(i));
+        }
+        TestSupport.check(length == dist, "shortest " + src + "-" + tgt + " path");
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks {@link NeighborhoodOverlap} against overlaps counted from neighbor sets, on one thread and
+ * several, its merge and galloping intersections against a plain count, and
+ * {@link Graph#neighOverlap} on node ids too big to be cached boxes.
+ */
+final public class NeighborhoodOverlapTest {
+    private NeighborhoodOverlapTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(15);
+        for (int round = 0; round < 500; round++) {
+            //lengths far apart take the galloping path, alike ones the merge
+            int[] a = sortedRun(random, random.nextInt(5), 60);
+            int[] b = sortedRun(random, random.nextInt(200), 60);
+            int[] both = new int[a.length + b.length];
+            System.arraycopy(a, 0, both, 0, a.length);
+            System.arraycopy(b, 0, both, a.length, b.length);
+            int expected = 0;
+            for (int x : a) {
+                if (Arrays.binarySearch(b, x) >= 0) {
+                    expected++;
+                }
+            }
+            TestSupport.check(NeighborhoodOverlap.intersectionSize(both, 0, a.length, a.length,
+                    both.length) == expected, "intersection of round " + round);
+            TestSupport.check(NeighborhoodOverlap.intersectionSize(both, a.length, both.length, 0,
+                    a.length) == expected, "intersection the other way round");
+            int key = random.nextInt(62) - 1;
+            int first = 0;
+            while (first < b.length && b[first] < key) {
+                first++;
+            }
+            TestSupport.check(NeighborhoodOverlap.gallop(b, key, 0, b.length) == first, "gallop");
+        }
+
+        for (int round = 0; round < 40; round++) {
+            int n = 2 + random.nextInt(300);
+            Graph g = random.nextBoolean() ? TestSupport.randomUndirectedGraph(random, n, n * 3, 9)
+                    : TestSupport.randomGraph(random, n, n * 4, 9);
+            int hub = random.nextInt(n); //a node of high degree next to ones of low degree
+            for (int v = 0; v < n; v += 2) {
+                if (v != hub) {
+                    g.addEdge(hub, v, 1);
+                    g.addEdge(v, hub, 1);
+                }
+            }
+            CsrGraph csr = new CsrGraph(g);
+            double[] sequential = NeighborhoodOverlap.of(csr);
+            double[] parallel = NeighborhoodOverlap.of(csr, 3);
+            double sum = 0.0;
+            for (int e = 0; e < csr.getEdgeCount(); e++) {
+                double overlap = overlap(g, csr.source(e), csr.target(e));
+                TestSupport.check(same(overlap, sequential[e]), "overlap of edge " + e);
+                TestSupport.check(same(overlap, parallel[e]), "parallel overlap of edge " + e);
+                sum += overlap;
+            }
+            TestSupport.check(same(sum / n, NeighborhoodOverlap.average(csr, 2)), "average");
+            for (int i = 0; i < 50; i++) {
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                TestSupport.check(same(overlap(g, a, b), g.neighOverlap(g, a, b)),
+                        "graph overlap of " + a + " and " + b);
+            }
+        }
+        System.out.println("NeighborhoodOverlapTest ok");
+    }
+
+    //distinct values from [0, bound), in increasing order, at most length of them
+    private static int[] sortedRun(Random random, int length, int bound) {
+        Set<Integer> values = new HashSet<Integer>();
+        for (int i = 0; i < length; i++) {
+            values.add(random.nextInt(bound));
+        }
+        int[] run = new int[values.size()];
+        int i = 0;
+        for (int v : values) {
+            run[i++] = v;
+        }
+        Arrays.sort(run);
+        return run;
+    }
+
+    private static double overlap(Graph g, int a, int b) {
+        Set<Integer> shared = new HashSet<Integer>(g.outNeighbors(a));
+        shared.retainAll(g.outNeighbors(b));
+        int only = g.outNeighbors(a).size() + g.outNeighbors(b).size() - 2 * shared.size();
+        return (double) shared.size() / (double) only;
+    }
+
+    //equal up to rounding, or the same infinity or NaN when nothing is only one node's
+    private static boolean same(double expected, double actual) {
+        return Double.compare(expected, actual) == 0 || Math.abs(expected - actual) < 1e-9;
+    }
+}
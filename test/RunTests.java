@@ -0,0 +1,33 @@
+/**
+ * Runs every check in this directory. From the project root:
+ * <pre>
+ *   javac -d out src/*.java test/*.java &amp;&amp; java -cp out RunTests
+ * </pre>
+ */
+final public class RunTests {
+    private RunTests() {}
+
+    public static void main(String[] args) throws Exception {
+        BrandesTest.main(args);
+        CsrGraphTest.main(args);
+        HeapTest.main(args);
+        IncrementalBetweenessTest.main(args);
+        GirvanNewmanTest.main(args);
+        EdgeListTest.main(args);
+        GraphSnapshotTest.main(args);
+        SampledBetweenessTest.main(args);
+        TopEdgesTest.main(args);
+        ShortestPathTreeTest.main(args);
+        LandmarksTest.main(args);
+        DijkstraWorkspaceTest.main(args);
+        NeighborhoodOverlapTest.main(args);
+        TrianglesTest.main(args);
+        TieIndexTest.main(args);
+        ComponentsTest.main(args);
+        BetweenessMetricsTest.main(args);
+        ShardCoordinatorTest.main(args);
+        ConcurrentGraphTest.main(args);
+        EdgeBatchTest.main(args);
+        System.out.println("all checks passed");
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.Random;
+
+/**
+ * Checks {@link Brandes#sampledEdgeBetweeness} against the exact betweeness: exact once every
+ * source is sampled, repeatable for a seed, and within the error bound it reports.
+ */
+final public class SampledBetweenessTest {
+    private SampledBetweenessTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(9);
+        for (int round = 0; round < 10; round++) {
+            int n = 2 + random.nextInt(40);
+            CsrGraph g = new CsrGraph(TestSupport.randomGraph(random, n, n * 3, 20));
+            double[] exact = Brandes.edgeBetweeness(g, 1);
+
+            //k >= n runs every source once
+            Brandes.Sample all = Brandes.sampledEdgeBetweeness(g, n + random.nextInt(3), 0.1,
+                    random.nextLong(), 1 + random.nextInt(3));
+            TestSupport.check(all.sources == n && all.epsilon == 0.0, "all sources");
+            for (int e = 0; e < exact.length; e++) {
+                TestSupport.checkClose(exact[e], all.scores[e], "all sources, edge " + e);
+            }
+            Brandes.Sample tight = Brandes.sampledEdgeBetweeness(g, 1e-3, 0.1, 1, 2);
+            TestSupport.check(tight.sources == n && tight.epsilon == 0.0, "epsilon needs all");
+
+            //the same seed draws the same sources
+            long seed = random.nextLong();
+            int k = 1 + random.nextInt(n);
+            double[] first = Brandes.sampledEdgeBetweeness(g, k, 0.1, seed, 1).scores;
+            double[] again = Brandes.sampledEdgeBetweeness(g, k, 0.1, seed, 3).scores;
+            for (int e = 0; e < first.length; e++) {
+                TestSupport.checkClose(first[e], again[e], "same seed, edge " + e);
+            }
+        }
+
+        //a sample well short of n stays within the bound it reports
+        int n = 400;
+        CsrGraph g = new CsrGraph(TestSupport.randomGraph(random, n, n * 4, 20));
+        double[] exact = Brandes.edgeBetweeness(g, 2);
+        for (int seed = 0; seed < 5; seed++) {
+            Brandes.Sample sample = Brandes.sampledEdgeBetweeness(g, 0.25, 0.01, seed, 2);
+            TestSupport.check(sample.sources < n && sample.epsilon <= 0.25, "sample size");
+            double bound = sample.epsilon * n * (n - 1);
+            for (int e = 0; e < exact.length; e++) {
+                TestSupport.check(Math.abs(sample.scores[e] - exact[e]) <= bound,
+                        "error bound, edge " + e);
+            }
+        }
+        System.out.println("SampledBetweenessTest ok");
+    }
+}
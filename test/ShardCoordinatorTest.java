@@ -0,0 +1,177 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Random;
+
+/**
+ * Checks that a {@link ShardCoordinator} sums the same betweeness as single-process Brandes in
+ * every mode, refuses a worker of another graph, hands the range of a worker that drops or goes
+ * silent to another worker, keeps waiting for a slow worker that sends heartbeats, and fails a
+ * waiting run as soon as it is closed.
+ */
+final public class ShardCoordinatorTest {
+    private ShardCoordinatorTest() {}
+
+    public static void main(String[] args) throws Exception {
+        final CsrGraph g = new CsrGraph(TestSupport.randomGraph(new Random(23), 300, 1500, 50));
+        final File snapshot = File.createTempFile("snapshot", ".bin");
+        try {
+            GraphSnapshot.write(g, snapshot, false);
+            double[] expected = Brandes.edgeBetweeness(g, 1);
+
+            //every mode sums as in one process, another graph is refused, and the range of a
+            //worker that drops goes back to the others
+            ShardCoordinator sharded = new ShardCoordinator(snapshot, 0);
+            Socket stranger = new Socket("127.0.0.1", sharded.getPort());
+            DataOutputStream out = new DataOutputStream(stranger.getOutputStream());
+            out.writeInt(ShardCoordinator.MAGIC);
+            out.writeLong(Checkpoint.fingerprint(g) + 1);
+            out.flush();
+            TestSupport.check(new DataInputStream(stranger.getInputStream()).readInt()
+                    == ShardCoordinator.REJECTED, "another graph is refused");
+            stranger.close();
+            Socket dropping = handshake(sharded, g);
+            startWorker(sharded, snapshot, dropping);
+            startWorker(sharded, snapshot, null);
+            startWorker(sharded, snapshot, null);
+            for (Brandes.Mode mode : Brandes.Mode.values()) {
+                compare(Brandes.edgeBetweeness(g, null, 1, mode),
+                        sharded.edgeBetweeness(mode, 7, 30000));
+            }
+            sharded.close();
+
+            //a worker takes a range and never answers, but keeps its connection open
+            final ShardCoordinator coordinator = new ShardCoordinator(snapshot, 0, 100);
+            final Socket silent = handshake(coordinator, g);
+            Thread hung = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        new DataInputStream(silent.getInputStream()).readInt();
+                        //only now is there a worker that can take the range back
+                        ShardWorker.run("127.0.0.1", coordinator.getPort(), snapshot, 1);
+                    } catch (IOException e) {
+                        //the coordinator closed
+                    }
+                }
+            });
+            hung.setDaemon(true);
+            hung.start();
+            compare(expected, coordinator.edgeBetweeness(Brandes.Mode.WEIGHTED, 4, 30000));
+            coordinator.close();
+            silent.close();
+
+            //a worker that takes longer than the silence allowed, but keeps beating
+            ShardCoordinator patient = new ShardCoordinator(snapshot, 0, 100);
+            final Socket slow = handshake(patient, g);
+            Thread beating = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        answerSlowly(slow, g);
+                    } catch (Exception e) {
+                        //checked by the result
+                    }
+                }
+            });
+            beating.setDaemon(true);
+            beating.start();
+            compare(expected, patient.edgeBetweeness(Brandes.Mode.WEIGHTED, 1, 10000));
+            patient.close();
+            slow.close();
+
+            //closing fails a waiting run at once, not when its timeout runs out
+            final ShardCoordinator lonely = new ShardCoordinator(snapshot, 0, 100);
+            Thread closer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(200);
+                        lonely.close();
+                    } catch (Exception e) {
+                        //checked by the waiting run
+                    }
+                }
+            });
+            closer.start();
+            long begin = System.nanoTime();
+            try {
+                lonely.edgeBetweeness(Brandes.Mode.WEIGHTED, 2, 60000);
+                TestSupport.check(false, "a run finished without workers");
+            } catch (IOException e) {
+                TestSupport.check(e.getMessage().contains("closed"), "closed: " + e.getMessage());
+            }
+            TestSupport.check(System.nanoTime() - begin < 10000000000L, "woken by close");
+            closer.join();
+        } finally {
+            snapshot.delete();
+        }
+        System.out.println("ShardCoordinatorTest ok");
+    }
+
+    private static Socket handshake(ShardCoordinator coordinator, CsrGraph g) throws IOException {
+        Socket socket = new Socket("127.0.0.1", coordinator.getPort());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeInt(ShardCoordinator.MAGIC);
+        out.writeLong(Checkpoint.fingerprint(g));
+        out.flush();
+        TestSupport.check(new DataInputStream(socket.getInputStream()).readInt()
+                == ShardCoordinator.ACCEPTED, "the worker is accepted");
+        return socket;
+    }
+
+    //runs a worker in a daemon thread; with a socket, first takes one range on it and drops it
+    private static void startWorker(final ShardCoordinator coordinator, final File snapshot,
+            final Socket dropping) {
+        Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (dropping != null) {
+                        new DataInputStream(dropping.getInputStream()).readInt();
+                        dropping.close();
+                    }
+                    ShardWorker.run("127.0.0.1", coordinator.getPort(), snapshot, 1);
+                } catch (IOException e) {
+                    //the coordinator closed
+                }
+            }
+        });
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    //reads one range, sends heartbeats for ten times the allowed silence, then answers
+    private static void answerSlowly(Socket socket, CsrGraph g) throws Exception {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        TestSupport.check(in.readInt() == ShardCoordinator.OP_RANGE, "a range is handed out");
+        int lo = in.readInt();
+        int hi = in.readInt();
+        Brandes.Mode mode = Brandes.Mode.values()[in.readInt()];
+        int heartbeatMillis = in.readInt();
+        for (int i = 0; i < 10 * ShardCoordinator.MISSED_HEARTBEATS; i++) {
+            Thread.sleep(heartbeatMillis);
+            out.writeInt(ShardCoordinator.HEARTBEAT);
+            out.flush();
+        }
+        int[] sources = new int[hi - lo];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = lo + i;
+        }
+        out.writeInt(lo);
+        out.writeInt(hi);
+        for (double x : Brandes.edgeBetweeness(g, sources, 1, mode)) {
+            out.writeDouble(x);
+        }
+        out.flush();
+    }
+
+    private static void compare(double[] expected, double[] actual) {
+        for (int e = 0; e < expected.length; e++) {
+            TestSupport.checkClose(expected[e], actual[e], "betweeness of edge " + e);
+        }
+    }
+}
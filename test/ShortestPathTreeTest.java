@@ -0,0 +1,142 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks {@link Dijkstra#shortestPathTree} on a {@link Graph} and a {@link CsrGraph} against
+ * Bellman-Ford distances and brute force path counts, its paths against
+ * {@link Dijkstra#getShortestPath}, and early exit runs against the full tree.
+ */
+final public class ShortestPathTreeTest {
+    private ShortestPathTreeTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(12);
+        for (int round = 0; round < 30; round++) {
+            int n = 1 + random.nextInt(40);
+            //positive weights from a small range, so there are many ties to count
+            Graph g = new Graph(n);
+            for (int i = 0; i < n * 3; i++) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                if (u != v) {
+                    g.addEdge(u, v, 1 + random.nextInt(4));
+                }
+            }
+            CsrGraph csr = new CsrGraph(g);
+            for (int src = 0; src < n; src++) {
+                long[] dist = bellmanFord(csr, src);
+                double[] count = pathCounts(csr, src, dist);
+                ShortestPathTree full = Dijkstra.shortestPathTree(g, src);
+                ShortestPathTree fullCsr = Dijkstra.shortestPathTree(csr, src);
+                for (int v = 0; v < n; v++) {
+                    for (ShortestPathTree tree : new ShortestPathTree[] {full, fullCsr}) {
+                        boolean reached = dist[v] != Long.MAX_VALUE;
+                        TestSupport.check(tree.hasPathTo(v) == reached, "reached " + v);
+                        TestSupport.check(tree.distanceTo(v)
+                                == (reached ? dist[v] : Integer.MAX_VALUE), "distance " + v);
+                        TestSupport.checkClose(count[v], tree.pathCount(v), "path count " + v);
+                        checkPath(csr, tree.pathTo(v), src, v, dist[v]);
+                    }
+                    checkPath(csr, Dijkstra.getShortestPath(g, src, v), src, v, dist[v]);
+                    checkPath(csr, Dijkstra.getShortestPath(csr, src, v), src, v, dist[v]);
+                }
+
+                //early exit, down to no targets at all
+                int[] targets = new int[random.nextInt(4)];
+                for (int i = 0; i < targets.length; i++) {
+                    targets[i] = random.nextInt(n);
+                }
+                checkPartial(full, Dijkstra.shortestPathTree(g, src, targets), targets, n);
+                checkPartial(full, Dijkstra.shortestPathTree(csr, src, targets), targets, n);
+            }
+            ShortestPathTree none = Dijkstra.shortestPathTree(g, 0, new int[0]);
+            TestSupport.check(none.hasPathTo(0) && none.distanceTo(0) == 0, "no targets");
+            TestSupport.check(none.pathTo(0).equals(Arrays.asList(0)), "no targets, path");
+        }
+        System.out.println("ShortestPathTreeTest ok");
+    }
+
+    //the targets and the source have their full answers, every other node either the full
+    //answer or none
+    private static void checkPartial(ShortestPathTree full, ShortestPathTree partial,
+            int[] targets, int n) {
+        int src = full.getSource();
+        TestSupport.check(partial.hasPathTo(src) && partial.distanceTo(src) == 0, "source settled");
+        for (int t : targets) {
+            TestSupport.check(partial.hasPathTo(t) == full.hasPathTo(t), "target " + t);
+        }
+        for (int v = 0; v < n; v++) {
+            if (partial.hasPathTo(v)) {
+                TestSupport.check(partial.distanceTo(v) == full.distanceTo(v), "early distance");
+                TestSupport.checkClose(full.pathCount(v), partial.pathCount(v), "early count");
+                TestSupport.check(partial.pathTo(v).size() == partial.pathArray(v).length,
+                        "early path");
+            } else {
+                TestSupport.check(partial.pathTo(v).isEmpty() && partial.parent(v) == -1
+                        && partial.distanceTo(v) == Integer.MAX_VALUE, "early unreached");
+            }
+        }
+    }
+
+    //a path is empty exactly when there is none, otherwise it runs from src to tgt over edges
+    //whose weights add up to the shortest distance
+    private static void checkPath(CsrGraph g, List<Integer> path, int src, int tgt, long dist) {
+        if (dist == Long.MAX_VALUE) {
+            TestSupport.check(path.isEmpty(), "path to unreachable " + tgt);
+            return;
+        }
+        TestSupport.check(path.get(0) == src && path.get(path.size() - 1) == tgt, "path ends");
+        long length = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            length += g.getWeight(path.get(i), path.get(i + 1));
+        }
+        TestSupport.check(length == dist, "path length to " + tgt);
+    }
+
+    private static long[] bellmanFord(CsrGraph g, int src) {
+        int n = g.getSize();
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        dist[src] = 0;
+        for (int round = 0; round < n; round++) {
+            for (int e = 0; e < g.getEdgeCount(); e++) {
+                int u = g.source(e);
+                if (dist[u] != Long.MAX_VALUE && dist[u] + g.weight(e) < dist[g.target(e)]) {
+                    dist[g.target(e)] = dist[u] + g.weight(e);
+                }
+            }
+        }
+        return dist;
+    }
+
+    //with positive weights, the nodes in order of distance count their paths from the ones before
+    private static double[] pathCounts(CsrGraph g, int src, long[] dist) {
+        int n = g.getSize();
+        Integer[] order = new Integer[n];
+        for (int v = 0; v < n; v++) {
+            order[v] = v;
+        }
+        final long[] d = dist;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(d[a], d[b]);
+            }
+        });
+        double[] count = new double[n];
+        count[src] = 1;
+        for (int v : order) {
+            if (dist[v] == Long.MAX_VALUE) {
+                break;
+            }
+            for (int e = g.offsets[v]; e < g.offsets[v + 1]; e++) {
+                if (dist[v] + g.weight(e) == dist[g.target(e)]) {
+                    count[g.target(e)] += count[v];
+                }
+            }
+        }
+        return count;
+    }
+}
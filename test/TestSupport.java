@@ -0,0 +1,54 @@
+import java.util.Random;
+
+/**
+ * Helpers shared by the checks in this directory. Every check is a class with a main method that
+ * throws an {@link AssertionError} on the first thing that is wrong; {@link RunTests} runs them
+ * all.
+ */
+final class TestSupport {
+    private TestSupport() {}
+
+    static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+    }
+
+    static void checkClose(double expected, double actual, String what) {
+        if (Math.abs(expected - actual) > 1e-9 * Math.max(1.0, Math.abs(expected))) {
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * @return a graph of n nodes and about edges random edges, weights in [0, maxWeight)
+     */
+    static Graph randomGraph(Random random, int n, int edges, int maxWeight) {
+        Graph g = new Graph(n);
+        for (int i = 0; i < edges; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u != v) {
+                g.addEdge(u, v, random.nextInt(maxWeight));
+            }
+        }
+        return g;
+    }
+
+    /**
+     * @return a random graph where every edge also goes the other way, with the same weight
+     */
+    static Graph randomUndirectedGraph(Random random, int n, int edges, int maxWeight) {
+        Graph g = new Graph(n);
+        for (int i = 0; i < edges; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u != v && !g.hasEdge(u, v)) {
+                int w = random.nextInt(maxWeight);
+                g.addEdge(u, v, w);
+                g.addEdge(v, u, w);
+            }
+        }
+        return g;
+    }
+}
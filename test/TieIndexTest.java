@@ -0,0 +1,122 @@
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks the tie index against a fresh classification as edges come and go, and the triangle,
+ * violation and overlap counts against brute force over the adjacency of a {@link Graph}.
+ */
+final public class TieIndexTest {
+    private TieIndexTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(17);
+        for (int round = 0; round < 20; round++) {
+            int n = 5 + random.nextInt(25);
+            Graph g = TestSupport.randomGraph(random, n, n * 3, 100);
+            checkCounts(g);
+
+            //a weight threshold judges every new edge on its own
+            TieIndex weight = g.buildTieIndex(TieIndex.byWeight(50));
+            change(random, g, 10);
+            for (int u = 0; u < n; u++) {
+                for (int v = 0; v < n; v++) {
+                    TestSupport.check(weight.isStrong(u, v)
+                            == (g.hasEdge(u, v) && g.getWeight(u, v) > 50), "weight tie");
+                }
+            }
+            checkTriadic(g);
+            change(random, g, 10);
+            checkTriadic(g); //the kept counts must not survive a change
+
+            //a percentile has to look at the whole graph again once an edge is added
+            TieIndex.Classifier percentile = TieIndex.byBetweenessPercentile(30);
+            TieIndex ties = g.buildTieIndex(percentile);
+            change(random, g, 5);
+            CsrGraph csr = new CsrGraph(g);
+            BitSet fresh = percentile.classify(csr);
+            TestSupport.check(ties.strongEdges(csr).equals(fresh), "percentile ties after adding");
+            TestSupport.check(ties.strongCount() == fresh.cardinality(), "percentile count");
+            checkTriadic(g);
+        }
+        System.out.println("TieIndexTest ok");
+    }
+
+    //adds and deletes a few random edges, always adding at least one
+    private static void change(Random random, Graph g, int k) {
+        int n = g.getSize();
+        boolean added = false;
+        for (int i = 0; i < k || !added; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u == v) {
+                continue;
+            }
+            if (g.hasEdge(u, v)) {
+                g.deleteEdge(u, v);
+            } else {
+                g.addEdge(u, v, random.nextInt(100));
+                added = true;
+            }
+        }
+    }
+
+    private static boolean adjacent(Graph g, int a, int b) {
+        return g.hasEdge(a, b) || g.hasEdge(b, a);
+    }
+
+    private static void checkTriadic(Graph g) {
+        TieIndex ties = g.getTieIndex();
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int v = 0; v < g.getSize(); v++) {
+            for (int a : g.outNeighbors(v)) {
+                for (int b : g.outNeighbors(v)) {
+                    if (a < b && ties.isStrong(v, a) && ties.isStrong(v, b)
+                            && !adjacent(g, a, b)) {
+                        expected.add(v);
+                    }
+                }
+            }
+        }
+        TestSupport.check(g.triadic(g).equals(expected), "triadic closure violators");
+        TestSupport.check(g.triadic(g).equals(expected), "triadic again with no change");
+    }
+
+    private static void checkCounts(Graph g) {
+        int n = g.getSize();
+        CsrGraph csr = new CsrGraph(g);
+        Triangles counts = Triangles.of(csr, 50, 1);
+        long total = 0;
+        for (int v = 0; v < n; v++) {
+            long triangles = 0;
+            long wedges = 0;
+            long violations = 0;
+            for (int a = 0; a < n; a++) {
+                for (int b = a + 1; b < n; b++) {
+                    if (a == v || b == v || !adjacent(g, v, a) || !adjacent(g, v, b)) {
+                        continue;
+                    }
+                    wedges++;
+                    if (adjacent(g, a, b)) {
+                        triangles++;
+                    } else if (g.hasEdge(v, a) && g.getWeight(v, a) > 50
+                            && g.hasEdge(v, b) && g.getWeight(v, b) > 50) {
+                        violations++;
+                    }
+                }
+            }
+            TestSupport.check(counts.getTriangles(v) == triangles, "triangles at " + v);
+            TestSupport.check(counts.getWedges(v) == wedges, "wedges at " + v);
+            TestSupport.check(counts.getViolations(v) == violations, "violations at " + v);
+            total += triangles;
+        }
+        TestSupport.check(counts.getTriangleCount() * 3 == total, "triangle count");
+
+        double[] overlap = NeighborhoodOverlap.of(csr, 2);
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            double expected = g.neighOverlap(g, csr.source(e), csr.target(e));
+            TestSupport.check(Double.compare(expected, overlap[e]) == 0, "overlap of edge " + e);
+        }
+    }
+}
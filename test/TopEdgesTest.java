@@ -0,0 +1,102 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Checks {@link TopEdges} against a full sort, ties going to the smaller edge id, and checks that
+ * the top edges of {@link CsrGraph}, {@link IncrementalBetweeness} and a batch Girvan-Newman round
+ * of {@link Graph} are the ones it picks.
+ */
+final public class TopEdgesTest {
+    private TopEdgesTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(10);
+        for (int round = 0; round < 300; round++) {
+            int m = random.nextInt(60);
+            double[] scores = new double[m];
+            boolean[] skip = new boolean[m];
+            for (int e = 0; e < m; e++) {
+                scores[e] = random.nextInt(8); //plenty of ties
+                skip[e] = random.nextInt(4) == 0;
+            }
+            int k = random.nextInt(m + 3);
+            check(sorted(scores, null, k), TopEdges.of(scores, k), "top " + k);
+            check(sorted(scores, skip, k), TopEdges.of(scores, skip, k), "top " + k + " kept");
+        }
+        try {
+            TopEdges.of(new double[1], -1);
+            throw new AssertionError("a negative k was accepted");
+        } catch (IllegalArgumentException expected) {
+            //nothing to return
+        }
+
+        for (int round = 0; round < 30; round++) {
+            int n = 2 + random.nextInt(30);
+            long seed = random.nextLong();
+            Graph g = TestSupport.randomUndirectedGraph(new Random(seed), n, n * 2, 3);
+            CsrGraph csr = new CsrGraph(g);
+            int top = csr.populateBetweeness(1);
+            double[] scores = new double[csr.getEdgeCount()];
+            for (int e = 0; e < scores.length; e++) {
+                scores[e] = csr.getBetweeness(e);
+            }
+            int k = random.nextInt(scores.length + 2);
+            int[] expected = sorted(scores, null, k);
+            check(expected, csr.topEdges(k), "top edges of the snapshot");
+            TestSupport.check(top == (scores.length == 0 ? -1 : sorted(scores, null, 1)[0]),
+                    "populateBetweeness returns the top edge");
+
+            IncrementalBetweeness inc = new IncrementalBetweeness(g);
+            double[] incScores = new double[scores.length];
+            for (int e = 0; e < scores.length; e++) {
+                incScores[e] = inc.getBetweeness(csr.source(e), csr.target(e));
+            }
+            int[] incTop = sorted(incScores, null, k);
+            int[][] incEdges = inc.topEdges(k);
+            TestSupport.check(incEdges.length == incTop.length, "as many incremental top edges");
+            for (int i = 0; i < incTop.length; i++) {
+                TestSupport.check(incEdges[i][0] == csr.source(incTop[i])
+                        && incEdges[i][1] == csr.target(incTop[i]), "incremental top edge " + i);
+            }
+
+            int[][] removed = Graph.girvNewman(g, k);
+            TestSupport.check(removed.length == expected.length, "as many removed edges");
+            for (int i = 0; i < expected.length; i++) {
+                TestSupport.check(removed[i][0] == csr.source(expected[i])
+                        && removed[i][1] == csr.target(expected[i]), "removed edge " + i);
+                TestSupport.check(!g.hasEdge(removed[i][0], removed[i][1]), "edge is gone");
+            }
+        }
+        System.out.println("TopEdgesTest ok");
+    }
+
+    //the k best edges not skipped by sorting all of them, higher score first, then smaller id
+    private static int[] sorted(final double[] scores, boolean[] skip, int k) {
+        Integer[] ids = new Integer[scores.length];
+        for (int e = 0; e < ids.length; e++) {
+            ids[e] = e;
+        }
+        Arrays.sort(ids, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int byScore = Double.compare(scores[b], scores[a]);
+                return byScore != 0 ? byScore : Integer.compare(a, b);
+            }
+        });
+        int[] top = new int[Math.min(k, ids.length)];
+        int size = 0;
+        for (int i = 0; i < ids.length && size < top.length; i++) {
+            if (skip == null || !skip[ids[i]]) {
+                top[size++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(top, size);
+    }
+
+    private static void check(int[] expected, int[] actual, String what) {
+        TestSupport.check(Arrays.equals(expected, actual),
+                what + ": expected " + Arrays.toString(expected) + " but was "
+                        + Arrays.toString(actual));
+    }
+}
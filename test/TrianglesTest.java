@@ -0,0 +1,102 @@
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks {@link Triangles} against triangles, wedges and triadic closure violations counted node
+ * by node on the undirected view of random graphs, on one thread and several.
+ */
+final public class TrianglesTest {
+    private TrianglesTest() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(16);
+        for (int round = 0; round < 60; round++) {
+            int n = 1 + random.nextInt(60);
+            Graph g = random.nextBoolean()
+                    ? TestSupport.randomUndirectedGraph(random, n, n * 3, 100)
+                    : TestSupport.randomGraph(random, n, n * 4, 100);
+            CsrGraph csr = new CsrGraph(g);
+            int strongWeight = random.nextInt(100);
+            BitSet strong = new BitSet();
+            for (int e = 0; e < csr.getEdgeCount(); e++) {
+                if (csr.weight(e) > strongWeight) {
+                    strong.set(e);
+                }
+            }
+            for (int parallelism = 1; parallelism <= 3; parallelism++) {
+                check(csr, strongWeight, Triangles.of(csr, strongWeight, parallelism));
+                check(csr, strongWeight, Triangles.of(csr, strong, parallelism));
+            }
+            TestSupport.check(csr.triadic().equals(Triangles.of(csr, 50, 1).violators()),
+                    "the snapshot's violators");
+        }
+        System.out.println("TrianglesTest ok");
+    }
+
+    private static void check(CsrGraph g, int strongWeight, Triangles counts) {
+        int n = g.getSize();
+        boolean[][] adjacent = new boolean[n][n];
+        for (int e = 0; e < g.getEdgeCount(); e++) {
+            int u = g.source(e);
+            int v = g.target(e);
+            adjacent[u][v] = true;
+            adjacent[v][u] = true;
+        }
+        long triangleCount = 0;
+        long wedgeCount = 0;
+        long violationCount = 0;
+        long closedWedges = 0;
+        Set<Integer> violators = new HashSet<Integer>();
+        for (int v = 0; v < n; v++) {
+            long triangles = 0;
+            long wedges = 0;
+            for (int x = 0; x < n; x++) {
+                for (int y = x + 1; y < n; y++) {
+                    if (adjacent[v][x] && adjacent[v][y]) {
+                        wedges++;
+                        if (adjacent[x][y]) {
+                            triangles++;
+                        }
+                    }
+                }
+            }
+            long strongWedges = 0;
+            long violations = 0;
+            int[] out = g.outNeighbors(v);
+            for (int i = 0; i < out.length; i++) {
+                for (int j = i + 1; j < out.length; j++) {
+                    int x = out[i];
+                    int y = out[j];
+                    if (g.getWeight(v, x) > strongWeight && g.getWeight(v, y) > strongWeight) {
+                        strongWedges++;
+                        if (!adjacent[x][y]) {
+                            violations++;
+                        }
+                    }
+                }
+            }
+            TestSupport.check(counts.getTriangles(v) == triangles, "triangles at " + v);
+            TestSupport.check(counts.getWedges(v) == wedges, "wedges at " + v);
+            TestSupport.check(counts.getStrongWedges(v) == strongWedges, "strong wedges at " + v);
+            TestSupport.check(counts.getViolations(v) == violations, "violations at " + v);
+            TestSupport.checkClose(wedges == 0 ? 0.0 : (double) triangles / wedges,
+                    counts.clustering(v), "clustering at " + v);
+            triangleCount += triangles;
+            wedgeCount += wedges;
+            closedWedges += triangles;
+            violationCount += violations;
+            if (violations > 0) {
+                violators.add(v);
+            }
+        }
+        TestSupport.check(counts.getSize() == n, "one count per node");
+        TestSupport.check(counts.getTriangleCount() * 3 == triangleCount, "triangle count");
+        TestSupport.check(counts.getWedgeCount() == wedgeCount, "wedge count");
+        TestSupport.check(counts.getViolationCount() == violationCount, "violation count");
+        TestSupport.check(counts.violators().equals(violators), "violators");
+        TestSupport.checkClose(wedgeCount == 0 ? 0.0 : (double) closedWedges / wedgeCount,
+                counts.transitivity(), "transitivity");
+    }
+}